@@ -0,0 +1,122 @@
+package com.vn.backend.benchmark;
+
+import com.vn.backend.model.Author;
+import com.vn.backend.model.Category;
+import com.vn.backend.model.Product;
+import com.vn.backend.model.ProductImage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Dữ liệu cố định cho benchmark: seed và mốc thời gian cố định nên mọi lần chạy
+ * (và mọi máy) đều đo trên cùng một bộ dữ liệu.
+ */
+public final class BenchmarkFixtures {
+
+    public static final long SEED = 20240601L;
+    public static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 6, 1, 8, 30);
+
+    public static final String VNPAY_HASH_SECRET = "VNPAYBENCHMARKHASHSECRET0123456789ABCDEF";
+    public static final String MOMO_SECRET_KEY = "K951B6PE1waDMi640xX08PD3vg6EkVlz";
+
+    private static final String[] WORDS = {
+            "Nhà", "giả", "kim", "Đắc", "nhân", "tâm", "Tuổi", "trẻ", "đáng", "giá", "bao", "nhiêu",
+            "Cà", "phê", "cùng", "Tony", "Không", "gia", "đình", "Dế", "mèn", "phiêu", "lưu", "ký"
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Sản phẩm đầy đủ như khi đọc từ DB: danh mục, 2 tác giả, 3 ảnh, mô tả dài
+     */
+    public static Product product(long id) {
+        Random random = new Random(SEED + id);
+        Category category = Category.builder()
+                .id(1 + id % 12)
+                .name("Danh mục " + (1 + id % 12))
+                .build();
+
+        Product product = Product.builder()
+                .id(id)
+                .category(category)
+                .name(sentence(random, 4))
+                .shortDescription(sentence(random, 20))
+                .description(sentence(random, 200))
+                .dimension("14 x 20.5 cm")
+                .numberOfPages(120 + random.nextInt(600))
+                .isbn("978-604-" + (1_000_000 + random.nextInt(9_000_000)))
+                .stockQuanity(random.nextInt(500))
+                .price(50_000L + random.nextInt(400) * 1_000L)
+                .discount(random.nextInt(4) * 5)
+                .publisher("NXB Trẻ")
+                .publisherDate(BASE_TIME.minusDays(random.nextInt(3650)))
+                .ratingAvg(Math.round((3 + random.nextDouble() * 2) * 10) / 10.0)
+                .ratingCount(random.nextInt(2000))
+                .createdAt(BASE_TIME.minusDays(random.nextInt(365)))
+                .updatedAt(BASE_TIME)
+                .build();
+
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            authors.add(Author.builder().id(id * 10 + i).product(product).name(sentence(random, 3)).build());
+        }
+        List<ProductImage> images = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            images.add(ProductImage.builder()
+                    .id(id * 10 + i)
+                    .product(product)
+                    .publicId("products/" + id + "_" + i)
+                    .imageUrl("https://res.cloudinary.com/bookstore/image/upload/v1717200000/products/" + id + "_" + i + ".jpg")
+                    .build());
+        }
+        product.setAuthors(authors);
+        product.setImages(images);
+        return product;
+    }
+
+    public static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            products.add(product(id));
+        }
+        return products;
+    }
+
+    /**
+     * Tham số tạo URL thanh toán VNPay giống VNPayService.createPaymentUrl
+     */
+    public static Map<String, String> vnPayParams() {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Version", "2.1.0");
+        params.put("vnp_Command", "pay");
+        params.put("vnp_TmnCode", "BOOKSTOR");
+        params.put("vnp_Amount", "45900000");
+        params.put("vnp_CurrCode", "VND");
+        params.put("vnp_TxnRef", "ORDER1024_1717200000000");
+        params.put("vnp_OrderInfo", "Thanh toan don hang #1024");
+        params.put("vnp_OrderType", "other");
+        params.put("vnp_Locale", "vn");
+        params.put("vnp_ReturnUrl", "http://localhost:8080/api/payment/vnpay/callback");
+        params.put("vnp_IpAddr", "203.113.150.24");
+        params.put("vnp_CreateDate", "20240601083000");
+        params.put("vnp_ExpireDate", "20240601084500");
+        return params;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.vn.backend.benchmark;
+
+import com.vn.backend.config.jwt.JwtKeyRing;
+import com.vn.backend.config.jwt.JwtProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thông lượng ký / xác thực JWT của JwtProvider.
+ * "legacy*" tái hiện cách cũ (dựng khóa và parser ở mỗi lần gọi) để so sánh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtProviderBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-benchmark-secret-key-0123456789";
+
+    private JwtProvider jwtProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtProvider = new JwtProvider(new JwtKeyRing(SECRET, ""));
+        ReflectionTestUtils.setField(jwtProvider, "accessExpMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtProvider, "refreshExpMs", TimeUnit.DAYS.toMillis(7));
+        authentication = new UsernamePasswordAuthenticationToken("reader@bookstore.vn", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtProvider.generateAccessToken(authentication);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtProvider.generateAccessToken(authentication);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtProvider.getClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public String legacySign() {
+        return Jwts.builder()
+                .claim("email", "reader@bookstore.vn")
+                .claim("roles", List.of("ROLE_USER"))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+    }
+
+    @Benchmark
+    public Claims legacyVerify() {
+        return Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Lần xác thực thứ hai trở đi trong cùng request lấy claims từ JwtClaimsHolder
+     */
+    @State(Scope.Thread)
+    public static class InRequest {
+
+        @Setup(Level.Iteration)
+        public void bind() {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        }
+
+        @TearDown(Level.Iteration)
+        public void unbind() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public Claims verifyWithinRequest(InRequest request) {
+        return jwtProvider.getClaimsFromToken(token);
+    }
+}
@@ -0,0 +1,50 @@
+package com.vn.backend.benchmark;
+
+import com.vn.backend.util.MoMoUtil;
+import com.vn.backend.util.VNPayUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí ký request thanh toán VNPay / MoMo (mỗi lần tạo URL và mỗi callback đều phải tính)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaymentSignatureBenchmark {
+
+    private Map<String, String> vnPayParams;
+    private String vnPayHashData;
+
+    @Setup
+    public void setUp() {
+        vnPayParams = BenchmarkFixtures.vnPayParams();
+        vnPayHashData = VNPayUtil.buildHashData(vnPayParams);
+    }
+
+    @Benchmark
+    public String vnPayBuildHashData() {
+        return VNPayUtil.buildHashData(vnPayParams);
+    }
+
+    @Benchmark
+    public String vnPayHmacSHA512() {
+        return VNPayUtil.hmacSHA512(BenchmarkFixtures.VNPAY_HASH_SECRET, vnPayHashData);
+    }
+
+    @Benchmark
+    public String moMoCreateSignature() {
+        return MoMoUtil.createSignature("F8BBA842ECF85", "459000", "",
+                "http://localhost:8080/api/payment/momo/ipn", "ORDER1024_1717200000000",
+                "Thanh toan don hang #1024", "MOMOBKUN20180529", "http://localhost:8080/api/payment/momo/callback",
+                "1717200000000", "captureWallet", BenchmarkFixtures.MOMO_SECRET_KEY);
+    }
+}
@@ -0,0 +1,94 @@
+package com.vn.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vn.backend.benchmark.BenchmarkFixtures;
+import com.vn.backend.dto.response.PagedResponse;
+import com.vn.backend.dto.response.ProductResponse;
+import com.vn.backend.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí theo từng request của lớp service: map Product -> ProductResponse,
+ * tính tiền dòng giỏ hàng và serialize một trang sản phẩm ra JSON.
+ * Nằm cùng package với service để gọi trực tiếp các hàm package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceHotPathBenchmark {
+
+    @Param({"20"})
+    private int pageSize;
+
+    private Product product;
+    private List<Product> page;
+    private PagedResponse<ProductResponse> pagedResponse;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkFixtures.product(1);
+        page = BenchmarkFixtures.products(pageSize);
+
+        List<ProductResponse> data = new ArrayList<>(pageSize);
+        for (Product p : page) {
+            data.add(ProductService.toProductResponse(p));
+        }
+        pagedResponse = PagedResponse.<ProductResponse>builder()
+                .data(data)
+                .totalElements(1_000L)
+                .totalPages(1_000 / pageSize)
+                .currentPage(0)
+                .pageSize(pageSize)
+                .hasNext(true)
+                .hasPrevious(false)
+                .build();
+
+        // Cấu hình giống spring.jackson trong application.yml
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .timeZone(TimeZone.getTimeZone("Asia/Ho_Chi_Minh"))
+                .dateFormat(new SimpleDateFormat("dd/MM/yyyy HH:mm:ss"))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public ProductResponse toProductResponse() {
+        return ProductService.toProductResponse(product);
+    }
+
+    @Benchmark
+    public List<ProductResponse> toProductResponsePage() {
+        List<ProductResponse> responses = new ArrayList<>(page.size());
+        for (Product p : page) {
+            responses.add(ProductService.toProductResponse(p));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public Long calculateItemTotal() {
+        return CartService.calculateItemTotal(product, 3);
+    }
+
+    @Benchmark
+    public byte[] serializePagedResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pagedResponse);
+    }
+}
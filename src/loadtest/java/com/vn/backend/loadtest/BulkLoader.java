@@ -0,0 +1,125 @@
+package com.vn.backend.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Nạp hàng loạt bằng JDBC batch: chia dải [from, to] thành các đoạn, mỗi luồng một kết nối,
+ * commit theo từng batch. Với MySQL nên bật rewriteBatchedStatements=true trong URL.
+ */
+@Slf4j
+public class BulkLoader implements AutoCloseable {
+
+    /**
+     * Ghi tham số cho một dòng; trả về false để bỏ qua dòng đó
+     */
+    @FunctionalInterface
+    public interface RowWriter {
+        boolean write(PreparedStatement ps, long index) throws SQLException;
+    }
+
+    private final DataSource dataSource;
+    private final int threads;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public BulkLoader(DataSource dataSource, int threads, int batchSize) {
+        this.dataSource = dataSource;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Chạy sql cho mọi index trong [from, to]; trả về số dòng đã ghi
+     */
+    public long load(String table, String sql, long from, long to, RowWriter writer) {
+        if (to < from) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long total = to - from + 1;
+        long chunk = Math.max(batchSize, (total + threads - 1) / threads);
+
+        List<Future<Long>> futures = new ArrayList<>();
+        for (long lo = from; lo <= to; lo += chunk) {
+            long chunkFrom = lo;
+            long chunkTo = Math.min(to, lo + chunk - 1);
+            futures.add(executor.submit(() -> loadRange(sql, chunkFrom, chunkTo, writer)));
+        }
+
+        long rows = 0;
+        try {
+            for (Future<Long> future : futures) {
+                rows += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading " + table, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load " + table, e.getCause());
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Loaded {} rows into {} in {} s ({} rows/s)", rows, table,
+                String.format("%.1f", seconds), Math.round(rows / Math.max(seconds, 1e-3)));
+        return rows;
+    }
+
+    public void execute(String sql) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.execute();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to execute: " + sql, e);
+        }
+    }
+
+    private long loadRange(String sql, long from, long to, RowWriter writer) throws SQLException {
+        long rows = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int pending = 0;
+                for (long i = from; i <= to; i++) {
+                    if (!writer.write(ps, i)) {
+                        continue;
+                    }
+                    ps.addBatch();
+                    rows++;
+                    if (++pending == batchSize) {
+                        ps.executeBatch();
+                        connection.commit();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,362 @@
+package com.vn.backend.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Sinh dataset tổng hợp cho load test (danh mục, sản phẩm, tác giả, ảnh, user, giỏ, đơn, dòng đơn, review).
+ * Chạy ở ApplicationStartedEvent: sau khi Hibernate/Flyway tạo schema, trước các CommandLineRunner và
+ * trước các listener ApplicationReadyEvent (cây danh mục, search index, rollup dashboard) nên các cache
+ * đó được dựng trên dữ liệu đã seed.
+ * Mọi giá trị được suy ra từ hàm băm của chỉ số dòng, nên cùng cấu hình luôn cho cùng một dataset
+ * bất kể số luồng nạp.
+ */
+@Slf4j
+public class DatasetSeeder implements ApplicationListener<ApplicationStartedEvent> {
+
+    public static final String PASSWORD = "loadtest123";
+    public static final String ADMIN_EMAIL = "admin@loadtest.local";
+    public static final long ADMIN_ROLE_ID = 1;
+    public static final long USER_ROLE_ID = 2;
+    public static final int ROOT_CATEGORIES = 10;
+    public static final int CATEGORIES = 30;
+
+    static final String[] WORDS = {
+            "sách", "tiểu", "thuyết", "lịch", "sử", "kinh", "tế", "tâm", "lý", "khoa", "học", "thiếu", "nhi",
+            "trinh", "thám", "kỹ", "năng", "sống", "du", "ký", "triết", "văn", "hóa", "nghệ", "thuật", "ẩm",
+            "thực", "lập", "trình", "java", "spring", "dữ", "liệu", "quản", "trị", "marketing", "hồi", "tưởng"
+    };
+
+    private static final String[] ORDER_STATUSES = {
+            "DELIVERED", "DELIVERED", "DELIVERED", "DELIVERED", "DELIVERED", "DELIVERED",
+            "CANCELLED", "PENDING", "CONFIRMED", "PROCESSING", "SHIPPING", "SHIPPING"
+    };
+    private static final int MAX_ITEMS_PER_ORDER = 3;
+
+    private final LoadTestConfig config;
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    public DatasetSeeder(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static String emailOf(long userId) {
+        return userId == 1 ? ADMIN_EMAIL : "user" + userId + "@loadtest.local";
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        DataSource dataSource = event.getApplicationContext().getBean(DataSource.class);
+        long existing = count(dataSource, "products");
+        if (existing >= config.getProducts() && count(dataSource, "users") >= config.getUsers()) {
+            log.info("Dataset already present ({} products), skipping seed", existing);
+            return;
+        }
+        if (existing > 0) {
+            throw new IllegalStateException("Database has " + existing
+                    + " products but the requested dataset is larger; drop the schema or lower the scale");
+        }
+
+        long start = System.nanoTime();
+        try (BulkLoader loader = new BulkLoader(dataSource, config.getLoaderThreads(), config.getBatchSize())) {
+            seedCatalog(loader);
+            seedUsers(loader);
+            seedOrders(loader);
+        }
+        bumpSequences(dataSource);
+        log.info("Seeded dataset ({}) in {} s", config, String.format("%.1f", (System.nanoTime() - start) / 1e9));
+    }
+
+    private void seedCatalog(BulkLoader loader) {
+        Timestamp created = Timestamp.valueOf(now.minusYears(1));
+        loader.load("categories", "INSERT INTO categories (id, name, parent_id) VALUES (?, ?, ?)",
+                1, CATEGORIES, (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, "Danh mục " + id);
+                    if (id <= ROOT_CATEGORIES) {
+                        ps.setNull(3, java.sql.Types.BIGINT);
+                    } else {
+                        ps.setLong(3, (id - ROOT_CATEGORIES - 1) / 2 + 1);
+                    }
+                    return true;
+                });
+
+        loader.load("products", "INSERT INTO products (id, category_id, name, short_description, description, "
+                        + "dimension, number_of_pages, isbn, stock_quantity, price, discount, publisher, publisher_date, "
+                        + "rating_avg, rating_count, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                1, config.getProducts(), (ps, id) -> {
+                    long h = hash(id);
+                    ps.setLong(1, id);
+                    ps.setLong(2, 1 + Math.floorMod(h, CATEGORIES));
+                    ps.setString(3, words(h, 3) + " " + id);
+                    ps.setString(4, words(h >>> 7, 12));
+                    ps.setString(5, words(h >>> 11, 60));
+                    ps.setString(6, "14 x 20.5 cm");
+                    ps.setInt(7, 100 + (int) Math.floorMod(h >>> 3, 700));
+                    ps.setString(8, "978-604-" + id);
+                    ps.setInt(9, 100_000);
+                    ps.setLong(10, priceOf(id));
+                    ps.setInt(11, discountOf(id));
+                    ps.setString(12, "NXB " + WORDS[(int) Math.floorMod(h >>> 5, WORDS.length)]);
+                    ps.setTimestamp(13, Timestamp.valueOf(now.minusDays(Math.floorMod(h >>> 9, 3650))));
+                    ps.setDouble(14, 3 + Math.floorMod(h >>> 13, 21) / 10.0);
+                    ps.setInt(15, (int) Math.floorMod(h >>> 17, 500));
+                    ps.setTimestamp(16, Timestamp.valueOf(now.minusDays(Math.floorMod(h >>> 19, 365))));
+                    ps.setTimestamp(17, created);
+                    return true;
+                });
+
+        // authors / product_images dùng IDENTITY nên để DB tự sinh id
+        loader.load("authors", "INSERT INTO authors (product_id, name) VALUES (?, ?)",
+                1, config.getProducts(), (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, words(hash(id) >>> 23, 2));
+                    return true;
+                });
+        loader.load("product_images", "INSERT INTO product_images (product_id, public_id, image_url) VALUES (?, ?, ?)",
+                1, config.getProducts(), (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, "loadtest/" + id);
+                    ps.setString(3, "https://res.cloudinary.com/loadtest/image/upload/loadtest/" + id + ".jpg");
+                    return true;
+                });
+    }
+
+    private void seedUsers(BulkLoader loader) {
+        // Cùng một hash cho mọi user: BCrypt chậm có chủ ý, băm 100k lần sẽ chiếm gần hết thời gian seed
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+        Timestamp created = Timestamp.valueOf(now.minusYears(1));
+
+        loader.load("roles", "INSERT INTO roles (id, name, description, created_at) VALUES (?, ?, ?, ?)",
+                ADMIN_ROLE_ID, USER_ROLE_ID, (ps, id) -> {
+                    String name = id == ADMIN_ROLE_ID ? "ADMIN" : "USER";
+                    ps.setLong(1, id);
+                    ps.setString(2, name);
+                    ps.setString(3, "Default " + name.toLowerCase() + " role");
+                    ps.setTimestamp(4, created);
+                    return true;
+                });
+
+        loader.load("users", "INSERT INTO users (id, email, password, full_name, phone, address, is_active, "
+                        + "is_locked, mfa_enabled, otp_consumed, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                1, config.getUsers(), (ps, id) -> {
+                    long h = hash(id ^ 0x5DEECE66DL);
+                    ps.setLong(1, id);
+                    ps.setString(2, emailOf(id));
+                    ps.setString(3, passwordHash);
+                    ps.setString(4, "Khách hàng " + id);
+                    ps.setString(5, String.format("09%08d", Math.floorMod(h, 100_000_000)));
+                    ps.setString(6, id + " Nguyễn Huệ, Quận 1, TP. Hồ Chí Minh");
+                    ps.setBoolean(7, true);
+                    ps.setBoolean(8, false);
+                    ps.setBoolean(9, false);
+                    ps.setBoolean(10, false);
+                    ps.setTimestamp(11, Timestamp.valueOf(now.minusDays(Math.floorMod(h >>> 7, 365))));
+                    ps.setTimestamp(12, created);
+                    return true;
+                });
+
+        loader.load("user_roles", "INSERT INTO user_roles (role_id, user_id) VALUES (?, ?)",
+                1, config.getUsers(), (ps, id) -> {
+                    ps.setLong(1, id == 1 ? ADMIN_ROLE_ID : USER_ROLE_ID);
+                    ps.setLong(2, id);
+                    return true;
+                });
+
+        // Không seed cart_items: giỏ rỗng nên total = item_count = 0 (khớp tổng của các dòng)
+        loader.load("carts", "INSERT INTO carts (id, user_id, total, item_count, version) VALUES (?, ?, ?, ?, ?)",
+                1, config.getUsers(), (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setLong(2, id);
+                    ps.setLong(3, 0);
+                    ps.setInt(4, 0);
+                    ps.setLong(5, 0);
+                    return true;
+                });
+    }
+
+    private void seedOrders(BulkLoader loader) {
+        loader.load("orders", "INSERT INTO orders (id, customer_id, address, created_at, updated_at, status, "
+                        + "method_payment, payment_status, total_amount, total_item, stock_status) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                1, config.getOrders(), (ps, id) -> {
+                    long h = hash(~id);
+                    String status = statusOf(id);
+                    Timestamp created = Timestamp.valueOf(now.minusMinutes(Math.floorMod(h, 365L * 24 * 60)));
+                    long amount = 20_000;
+                    int quantity = 0;
+                    for (int line = 0; line < itemsOf(id); line++) {
+                        long productId = productOf(id, line);
+                        amount += finalPriceOf(productId) * quantityOf(id, line);
+                        quantity += quantityOf(id, line);
+                    }
+                    ps.setLong(1, id);
+                    ps.setLong(2, 2 + Math.floorMod(h >>> 11, config.getUsers() - 1));
+                    ps.setString(3, id + " Lê Lợi, Quận 1, TP. Hồ Chí Minh");
+                    ps.setTimestamp(4, created);
+                    ps.setTimestamp(5, created);
+                    ps.setString(6, status);
+                    ps.setString(7, "COD");
+                    ps.setString(8, "DELIVERED".equals(status) ? "PAID" : "UNPAID");
+                    ps.setLong(9, amount);
+                    ps.setInt(10, quantity);
+                    ps.setString(11, switch (status) {
+                        case "DELIVERED" -> "COMMITTED";
+                        case "CANCELLED" -> "RELEASED";
+                        default -> "RESERVED";
+                    });
+                    return true;
+                });
+
+        // id dòng đơn = orderId * 3 + line (thưa nhưng xác định, không cần tra cứu)
+        long firstItem = MAX_ITEMS_PER_ORDER;
+        long lastItem = config.getOrders() * MAX_ITEMS_PER_ORDER + MAX_ITEMS_PER_ORDER - 1;
+        loader.load("order_items", "INSERT INTO order_items (id, order_id, product_id, quantity, total) VALUES (?, ?, ?, ?, ?)",
+                firstItem, lastItem, (ps, itemId) -> {
+                    long orderId = itemId / MAX_ITEMS_PER_ORDER;
+                    int line = (int) (itemId % MAX_ITEMS_PER_ORDER);
+                    if (line >= itemsOf(orderId)) {
+                        return false;
+                    }
+                    long productId = productOf(orderId, line);
+                    int quantity = quantityOf(orderId, line);
+                    ps.setLong(1, itemId);
+                    ps.setLong(2, orderId);
+                    ps.setLong(3, productId);
+                    ps.setInt(4, quantity);
+                    ps.setLong(5, finalPriceOf(productId) * quantity);
+                    return true;
+                });
+
+        long reviewThreshold = (long) (config.getReviewRatio() * 1000);
+        loader.load("reviews", "INSERT INTO reviews (id, order_item_id, product_id, created_at, rating, comment) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                firstItem, lastItem, (ps, itemId) -> {
+                    long orderId = itemId / MAX_ITEMS_PER_ORDER;
+                    int line = (int) (itemId % MAX_ITEMS_PER_ORDER);
+                    long h = hash(itemId * 31);
+                    if (line >= itemsOf(orderId) || !"DELIVERED".equals(statusOf(orderId))
+                            || Math.floorMod(h, 1000) >= reviewThreshold) {
+                        return false;
+                    }
+                    ps.setLong(1, itemId);
+                    ps.setLong(2, itemId);
+                    ps.setLong(3, productOf(orderId, line));
+                    ps.setTimestamp(4, Timestamp.valueOf(now.minusDays(Math.floorMod(h >>> 9, 300))));
+                    ps.setInt(5, 1 + (int) Math.floorMod(h >>> 5, 5));
+                    ps.setString(6, words(h >>> 13, 15));
+                    return true;
+                });
+    }
+
+    /**
+     * Đẩy các sequence của Hibernate qua id lớn nhất đã seed, để dữ liệu tạo trong lúc chạy không trùng khóa
+     */
+    private void bumpSequences(DataSource dataSource) {
+        String[] tables = {"categories", "products", "roles", "users", "carts", "orders", "order_items", "reviews"};
+        try (Connection connection = dataSource.getConnection()) {
+            boolean h2 = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("h2");
+            for (String table : tables) {
+                long next = maxId(connection, table) + 1000;
+                String sequence = table + "_seq";
+                String sql = h2
+                        ? "ALTER SEQUENCE " + sequence + " RESTART WITH " + next
+                        : "UPDATE " + sequence + " SET next_val = " + next;
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.execute();
+                } catch (SQLException e) {
+                    log.warn("Could not move sequence {} past seeded ids: {}", sequence, e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to update id sequences", e);
+        }
+    }
+
+    // ---------- Hàm sinh dữ liệu xác định theo chỉ số ----------
+
+    static long priceOf(long productId) {
+        return 30_000 + Math.floorMod(hash(productId * 7), 470) * 1_000L;
+    }
+
+    static int discountOf(long productId) {
+        return (int) Math.floorMod(hash(productId * 13), 6) * 5;
+    }
+
+    static long finalPriceOf(long productId) {
+        long price = priceOf(productId);
+        return price - price * discountOf(productId) / 100;
+    }
+
+    private long productOf(long orderId, int line) {
+        // Lệch về các sản phẩm đầu danh sách để có "sản phẩm bán chạy" như dữ liệu thật
+        long h = hash(orderId * MAX_ITEMS_PER_ORDER + line);
+        long products = config.getProducts();
+        long hot = Math.max(1, products / 100);
+        return 1 + (Math.floorMod(h, 10) < 3 ? Math.floorMod(h >>> 8, hot) : Math.floorMod(h >>> 8, products));
+    }
+
+    private static int itemsOf(long orderId) {
+        return 1 + (int) Math.floorMod(hash(orderId * 17), MAX_ITEMS_PER_ORDER);
+    }
+
+    private static int quantityOf(long orderId, int line) {
+        return 1 + (int) Math.floorMod(hash(orderId * 19 + line), 3);
+    }
+
+    private static String statusOf(long orderId) {
+        return ORDER_STATUSES[(int) Math.floorMod(hash(orderId * 23), ORDER_STATUSES.length)];
+    }
+
+    private static String words(long seed, int count) {
+        StringBuilder sb = new StringBuilder();
+        long h = seed;
+        for (int i = 0; i < count; i++) {
+            h = hash(h + i);
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[(int) Math.floorMod(h, WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    // SplitMix64
+    static long hash(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long count(DataSource dataSource, String table) {
+        try (Connection connection = dataSource.getConnection()) {
+            return queryLong(connection, "SELECT COUNT(*) FROM " + table);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to count " + table, e);
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        return queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM " + table);
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
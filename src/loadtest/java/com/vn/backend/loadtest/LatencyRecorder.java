@@ -0,0 +1,117 @@
+package com.vn.backend.loadtest;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ghi nhận độ trễ từng request theo endpoint. Giữ toàn bộ mẫu (không lấy xấp xỉ) nên
+ * p50/p95/p99 là giá trị chính xác; chỉ ghi khi recording = true (bỏ qua pha warmup).
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    public void start() {
+        recording = true;
+    }
+
+    public void stop() {
+        recording = false;
+    }
+
+    public void record(String endpoint, long nanos, boolean success) {
+        if (recording) {
+            samples.computeIfAbsent(endpoint, k -> new Samples()).add(nanos, success);
+        }
+    }
+
+    /**
+     * Thống kê theo endpoint (sắp theo tên) và dòng tổng "ALL"
+     */
+    public Map<String, EndpointStats> summarize(double seconds) {
+        Map<String, EndpointStats> result = new TreeMap<>();
+        long[] all = new long[0];
+        long allErrors = 0;
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            long[] values = entry.getValue().snapshot();
+            long errors = entry.getValue().errors.sum();
+            result.put(entry.getKey(), EndpointStats.of(values, errors, seconds));
+            all = concat(all, values);
+            allErrors += errors;
+        }
+        result.put("ALL", EndpointStats.of(all, allErrors, seconds));
+        return result;
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] merged = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, merged, a.length, b.length);
+        return merged;
+    }
+
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+        final LongAdder errors = new LongAdder();
+
+        synchronized void add(long nanos, boolean success) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Số request, throughput (req/s), lỗi và các phân vị độ trễ (ms)
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static final class EndpointStats {
+        private long count;
+        private long errors;
+        private double throughput;
+        private double p50;
+        private double p95;
+        private double p99;
+        private double max;
+
+        static EndpointStats of(long[] values, long errors, double seconds) {
+            Arrays.sort(values);
+            EndpointStats stats = new EndpointStats();
+            stats.count = values.length;
+            stats.errors = errors;
+            stats.throughput = values.length / seconds;
+            stats.p50 = percentile(values, 0.50);
+            stats.p95 = percentile(values, 0.95);
+            stats.p99 = percentile(values, 0.99);
+            stats.max = values.length == 0 ? 0 : values[values.length - 1] / 1e6;
+            return stats;
+        }
+
+        // Nearest-rank trên mảng đã sắp xếp, đổi ra mili giây
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
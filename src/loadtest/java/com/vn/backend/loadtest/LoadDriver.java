@@ -0,0 +1,178 @@
+package com.vn.backend.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tải dạng vòng kín: mỗi worker là một user đã đăng nhập, lặp lại việc chọn kịch bản theo trọng số
+ * và gọi HTTP tới app đang chạy, không có think time. Mỗi worker dùng một user riêng nên giỏ hàng
+ * và đơn của các worker không tranh chấp nhau.
+ */
+@Slf4j
+public class LoadDriver {
+
+    static final int PAGE_SIZE = 20;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final String adminToken;
+    private final List<String> userTokens;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final HttpClient client;
+    private final Scenario[] scenarios;
+    private final long[] cumulativeWeights;
+
+    private volatile boolean running;
+
+    public LoadDriver(LoadTestConfig config, String baseUrl, String adminToken, List<String> userTokens) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.adminToken = adminToken;
+        this.userTokens = userTokens;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        scenarios = new Scenario[config.getMix().size()];
+        cumulativeWeights = new long[scenarios.length];
+        long total = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : config.getMix().entrySet()) {
+            scenarios[i] = Scenario.of(entry.getKey());
+            total += entry.getValue();
+            cumulativeWeights[i++] = total;
+        }
+    }
+
+    public Map<String, LatencyRecorder.EndpointStats> run() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(config.getConcurrency());
+        running = true;
+        for (int i = 0; i < config.getConcurrency(); i++) {
+            Session session = new Session(userTokens.get(i));
+            workers.submit(() -> loop(session));
+        }
+
+        log.info("Warming up for {}", config.getWarmup());
+        Thread.sleep(config.getWarmup().toMillis());
+
+        log.info("Measuring for {} with {} workers", config.getDuration(), config.getConcurrency());
+        long start = System.nanoTime();
+        recorder.start();
+        Thread.sleep(config.getDuration().toMillis());
+        recorder.stop();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(REQUEST_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        return recorder.summarize(seconds);
+    }
+
+    private void loop(Session session) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long total = cumulativeWeights[cumulativeWeights.length - 1];
+        while (running) {
+            long pick = random.nextLong(total);
+            int i = 0;
+            while (cumulativeWeights[i] <= pick) {
+                i++;
+            }
+            try {
+                scenarios[i].run(session, random);
+            } catch (RuntimeException e) {
+                log.debug("Scenario {} failed", scenarios[i], e);
+            }
+        }
+    }
+
+    /**
+     * Phiên HTTP của một worker (một user)
+     */
+    final class Session {
+        private final String token;
+
+        Session(String token) {
+            this.token = token;
+        }
+
+        int pages() {
+            return (int) Math.max(1, Math.min(500, config.getProducts() / PAGE_SIZE));
+        }
+
+        long randomProduct(ThreadLocalRandom random) {
+            return 1 + random.nextLong(config.getProducts());
+        }
+
+        boolean addToCart(ThreadLocalRandom random) {
+            return post("POST /cart/items", "/api/v1/cart/items",
+                    "{\"productId\":" + randomProduct(random) + ",\"quantity\":1}");
+        }
+
+        boolean get(String endpoint, String path) {
+            return send(endpoint, request(path, token).GET().build());
+        }
+
+        boolean getAsAdmin(String endpoint, String path) {
+            return send(endpoint, request(path, adminToken).GET().build());
+        }
+
+        boolean post(String endpoint, String path, String json) {
+            return send(endpoint, request(path, token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build());
+        }
+
+        private HttpRequest.Builder request(String path, String bearer) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Authorization", "Bearer " + bearer);
+        }
+
+        private boolean send(String endpoint, HttpRequest request) {
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() / 100 == 2;
+                if (!success) {
+                    log.debug("{} -> {}", endpoint, response.statusCode());
+                }
+            } catch (IOException e) {
+                success = false;
+                log.debug("{} failed: {}", endpoint, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            recorder.record(endpoint, System.nanoTime() - start, success);
+            return success;
+        }
+    }
+
+    static List<Long> workerUserIds(int concurrency) {
+        // User 1 là admin; mỗi worker dùng một user thường riêng
+        List<Long> ids = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            ids.add(i + 2L);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,124 @@
+package com.vn.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vn.backend.BackendApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Điểm vào của load test: khởi động app (H2 nhúng hoặc MySQL), seed dataset, đăng nhập các user ảo,
+ * chạy mix tải rồi ghi báo cáo p50/p95/p99 và throughput theo endpoint.
+ * <p>
+ * mvn -P loadtest test-compile exec:exec -Dloadtest.args="scale=medium concurrency=64 baseline=target/loadtest/baseline.json"
+ */
+@Slf4j
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        log.info("Load test: {}", config);
+
+        // Devtools khởi động lại app trên thread restartedMain sẽ bỏ qua listener seed dataset
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("loadtest")
+                .listeners(new DatasetSeeder(config))
+                .run(applicationArgs(config, args));
+        int exitCode = 0;
+        try {
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            String baseUrl = "http://localhost:" + config.getPort();
+
+            String adminToken = login(objectMapper, baseUrl, DatasetSeeder.ADMIN_EMAIL);
+            List<String> userTokens = new ArrayList<>();
+            for (Long userId : LoadDriver.workerUserIds(config.getConcurrency())) {
+                userTokens.add(login(objectMapper, baseUrl, DatasetSeeder.emailOf(userId)));
+            }
+
+            Map<String, LatencyRecorder.EndpointStats> stats =
+                    new LoadDriver(config, baseUrl, adminToken, userTokens).run();
+            LoadTestReport report = new LoadTestReport(objectMapper, config);
+            report.print(stats);
+            report.write(stats);
+            if (!config.getBaseline().isBlank()) {
+                report.compare(stats, config.getBaseline());
+            }
+        } catch (RuntimeException e) {
+            log.error("Load test failed", e);
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Truyền cấu hình dưới dạng tham số dòng lệnh (--key=value) để đè lên application.yml
+     * (spring.profiles.active: dev, ${SERVER_PORT}, ${DB_URL}...); defaultProperties có độ ưu tiên thấp nhất nên không đè được
+     */
+    private static String[] applicationArgs(LoadTestConfig config, String[] args) {
+        List<String> result = new ArrayList<>();
+        applicationProperties(config).forEach((key, value) -> result.add("--" + key + "=" + value));
+        result.addAll(List.of(args));
+        return result.toArray(String[]::new);
+    }
+
+    private static Map<String, Object> applicationProperties(LoadTestConfig config) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "loadtest");
+        properties.put("server.port", config.getPort());
+        if (config.embeddedDatabase()) {
+            // Migration Flyway viết cho MySQL; với H2 để Hibernate tạo schema từ entity
+            properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1");
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.datasource.username", "sa");
+            properties.put("spring.datasource.password", "");
+            properties.put("spring.flyway.enabled", false);
+            properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        } else {
+            properties.put("spring.datasource.url", config.getDbUrl());
+            properties.put("spring.datasource.driver-class-name", "com.mysql.cj.jdbc.Driver");
+            properties.put("spring.datasource.username", config.getDbUser());
+            properties.put("spring.datasource.password", config.getDbPassword());
+        }
+        properties.put("spring.datasource.hikari.maximum-pool-size", Math.max(10, config.getLoaderThreads() + 2));
+        return properties;
+    }
+
+    private static String login(ObjectMapper objectMapper, String baseUrl, String email) {
+        try {
+            String body = objectMapper.writeValueAsString(
+                    Map.of("email", email, "password", DatasetSeeder.PASSWORD));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = HttpClient.newHttpClient()
+                    .send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login failed for " + email + ": " + response.statusCode());
+            }
+            JsonNode json = objectMapper.readTree(response.body());
+            return json.path("data").path("accessToken").asText();
+        } catch (IOException e) {
+            throw new IllegalStateException("Login failed for " + email, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while logging in " + email, e);
+        }
+    }
+}
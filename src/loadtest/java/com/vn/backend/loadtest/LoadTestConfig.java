@@ -0,0 +1,130 @@
+package com.vn.backend.loadtest;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình một lần chạy load test, đọc từ tham số dạng key=value (hoặc -Dloadtest.key=value).
+ * scale=small|medium|full chọn sẵn kích thước dataset; products/users/orders ghi đè từng giá trị.
+ */
+@Getter
+public class LoadTestConfig {
+
+    private static final String PREFIX = "loadtest.";
+    private static final String DEFAULT_MIX =
+            "browse:30,category:10,product:20,search:15,cart:12,checkout:5,orders:5,dashboard:3";
+
+    private final String scale;
+    private final long products;
+    private final long users;
+    private final long orders;
+    private final double reviewRatio;
+    private final int loaderThreads;
+    private final int batchSize;
+
+    // Để trống: H2 nhúng (MODE=MySQL); hoặc JDBC URL của MySQL local / container
+    private final String dbUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final int port;
+
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Map<String, Integer> mix;
+    private final String reportDir;
+    private final String baseline;
+
+    private final Map<String, String> values;
+
+    private LoadTestConfig(Map<String, String> values) {
+        this.values = values;
+        this.scale = get("scale", "small");
+        long[] preset = switch (scale) {
+            case "small" -> new long[]{10_000, 2_000, 20_000};
+            case "medium" -> new long[]{100_000, 20_000, 500_000};
+            case "full" -> new long[]{1_000_000, 100_000, 5_000_000};
+            default -> throw new IllegalArgumentException("Unknown scale: " + scale);
+        };
+        this.products = Long.parseLong(get("products", String.valueOf(preset[0])));
+        this.users = Long.parseLong(get("users", String.valueOf(preset[1])));
+        this.orders = Long.parseLong(get("orders", String.valueOf(preset[2])));
+        this.reviewRatio = Double.parseDouble(get("review-ratio", "0.2"));
+        this.loaderThreads = Integer.parseInt(get("loader-threads",
+                String.valueOf(Math.max(2, Runtime.getRuntime().availableProcessors()))));
+        this.batchSize = Integer.parseInt(get("batch-size", "1000"));
+
+        this.dbUrl = get("db-url", "");
+        this.dbUser = get("db-user", "root");
+        this.dbPassword = get("db-password", "");
+        this.port = Integer.parseInt(get("port", "18080"));
+
+        this.concurrency = Integer.parseInt(get("concurrency", "32"));
+        this.warmup = Duration.parse(get("warmup", "PT15S"));
+        this.duration = Duration.parse(get("duration", "PT60S"));
+        this.mix = parseMix(get("mix", DEFAULT_MIX));
+        this.reportDir = get("report-dir", "target/loadtest");
+        this.baseline = get("baseline", "");
+
+        if (users < concurrency + 1) {
+            throw new IllegalArgumentException("users must be greater than concurrency (one user per worker + admin)");
+        }
+    }
+
+    public static LoadTestConfig fromArgs(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        System.getProperties().forEach((k, v) -> {
+            String key = k.toString();
+            if (key.startsWith(PREFIX)) {
+                values.put(key.substring(PREFIX.length()), v.toString());
+            }
+        });
+        for (String arg : args) {
+            int idx = arg.indexOf('=');
+            if (idx <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            values.put(arg.substring(0, idx).trim(), arg.substring(idx + 1).trim());
+        }
+        return new LoadTestConfig(values);
+    }
+
+    public boolean embeddedDatabase() {
+        return dbUrl.isBlank();
+    }
+
+    public long totalWeight() {
+        return mix.values().stream().mapToLong(Integer::longValue).sum();
+    }
+
+    private String get(String key, String defaultValue) {
+        String value = values.get(key);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(parts[0].trim(), weight);
+            }
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return "scale=" + scale + ", products=" + products + ", users=" + users + ", orders=" + orders
+                + ", db=" + (embeddedDatabase() ? "H2 (embedded)" : dbUrl)
+                + ", concurrency=" + concurrency + ", warmup=" + warmup + ", duration=" + duration
+                + ", mix=" + mix;
+    }
+}
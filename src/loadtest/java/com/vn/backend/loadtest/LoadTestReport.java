@@ -0,0 +1,99 @@
+package com.vn.backend.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In bảng kết quả, ghi file JSON (report-&lt;thời điểm&gt;.json và latest.json trong report-dir)
+ * và so sánh với một file baseline đã ghi trước đó.
+ */
+@Slf4j
+public class LoadTestReport {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String ROW = "%-28s %9s %7s %9s %9s %9s %9s %9s";
+
+    private final ObjectMapper objectMapper;
+    private final LoadTestConfig config;
+
+    public LoadTestReport(ObjectMapper objectMapper, LoadTestConfig config) {
+        this.objectMapper = objectMapper;
+        this.config = config;
+    }
+
+    public void print(Map<String, LatencyRecorder.EndpointStats> stats) {
+        StringBuilder sb = new StringBuilder("\n")
+                .append(String.format(ROW, "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        stats.forEach((endpoint, s) -> sb.append('\n').append(String.format(ROW, endpoint, s.getCount(), s.getErrors(),
+                format(s.getThroughput()), format(s.getP50()), format(s.getP95()), format(s.getP99()), format(s.getMax()))));
+        log.info("Results ({}):{}", config, sb);
+    }
+
+    public void write(Map<String, LatencyRecorder.EndpointStats> stats) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", LocalDateTime.now().toString());
+        report.put("config", config.toString());
+        report.put("endpoints", stats);
+
+        File dir = new File(config.getReportDir());
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IllegalStateException("Cannot create report directory " + dir);
+        }
+        try {
+            File file = new File(dir, "report-" + LocalDateTime.now().format(FILE_TIME) + ".json");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(dir, "latest.json"), report);
+            log.info("Report written to {}", file.getPath());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write load test report", e);
+        }
+    }
+
+    /**
+     * So sánh throughput và p95/p99 với baseline; phần trăm dương ở cột độ trễ nghĩa là chậm hơn
+     */
+    public void compare(Map<String, LatencyRecorder.EndpointStats> stats, String baselinePath) {
+        Map<String, LatencyRecorder.EndpointStats> baseline;
+        try {
+            JsonNode json = objectMapper.readTree(new File(baselinePath));
+            baseline = objectMapper.convertValue(json.path("endpoints"), new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read baseline " + baselinePath, e);
+        }
+
+        StringBuilder sb = new StringBuilder("\n")
+                .append(String.format("%-28s %12s %12s %12s", "endpoint", "req/s", "p95", "p99"));
+        stats.forEach((endpoint, current) -> {
+            LatencyRecorder.EndpointStats before = baseline.get(endpoint);
+            if (before == null) {
+                return;
+            }
+            sb.append('\n').append(String.format("%-28s %12s %12s %12s", endpoint,
+                    delta(before.getThroughput(), current.getThroughput()),
+                    delta(before.getP95(), current.getP95()),
+                    delta(before.getP99(), current.getP99())));
+        });
+        log.info("Compared with baseline {}:{}", baselinePath, sb);
+    }
+
+    private static String delta(double before, double after) {
+        if (before == 0) {
+            return "n/a";
+        }
+        return String.format("%+.1f%%", (after - before) * 100 / before);
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}
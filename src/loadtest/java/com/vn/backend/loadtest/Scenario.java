@@ -0,0 +1,82 @@
+package com.vn.backend.loadtest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Các hành vi người dùng trong mix tải; tên enum (viết thường) là khóa trong tham số mix
+ */
+public enum Scenario {
+
+    BROWSE {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            session.get("GET /products", "/api/v1/products?page=" + random.nextInt(session.pages())
+                    + "&size=" + LoadDriver.PAGE_SIZE);
+        }
+    },
+    CATEGORY {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            session.get("GET /products/by-category", "/api/v1/products/by-category/"
+                    + (1 + random.nextInt(DatasetSeeder.CATEGORIES)) + "?page=" + random.nextInt(10)
+                    + "&size=" + LoadDriver.PAGE_SIZE);
+        }
+    },
+    PRODUCT {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            session.get("GET /products/{id}", "/api/v1/products/" + session.randomProduct(random));
+        }
+    },
+    SEARCH {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            String keyword = DatasetSeeder.WORDS[random.nextInt(DatasetSeeder.WORDS.length)];
+            session.get("GET /products?keyword", "/api/v1/products?keyword="
+                    + URLEncoder.encode(keyword, StandardCharsets.UTF_8)
+                    + "&size=" + LoadDriver.PAGE_SIZE);
+        }
+    },
+    CART {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            session.addToCart(random);
+        }
+    },
+    CHECKOUT {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            if (session.addToCart(random)) {
+                session.post("POST /orders", "/api/v1/orders",
+                        "{\"address\":\"1 Lê Lợi, Quận 1, TP. Hồ Chí Minh\",\"methodPayment\":\"COD\"}");
+            }
+        }
+    },
+    ORDERS {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            session.get("GET /orders/my-orders", "/api/v1/orders/my-orders?page=0&size=10");
+        }
+    },
+    DASHBOARD {
+        @Override
+        void run(LoadDriver.Session session, ThreadLocalRandom random) {
+            session.getAsAdmin("GET /admin/dashboard", "/api/v1/admin/dashboard");
+        }
+    };
+
+    abstract void run(LoadDriver.Session session, ThreadLocalRandom random);
+
+    public static Scenario of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown scenario '" + name + "', expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
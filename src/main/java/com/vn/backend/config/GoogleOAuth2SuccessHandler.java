@@ -52,7 +52,7 @@ public class GoogleOAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHa
                 .toList();
         Authentication authForJwt = new UsernamePasswordAuthenticationToken(email, null, authorities);
 
-        String accessToken = jwtProvider.generateAccessToken(authForJwt);
+        String accessToken = jwtProvider.generateAccessToken(authForJwt, user.getId());
         String refreshToken = jwtProvider.generateRefreshToken(email);
         String role = authorities.stream()
                 .map(GrantedAuthority::getAuthority)
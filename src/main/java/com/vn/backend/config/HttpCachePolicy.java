@@ -0,0 +1,48 @@
+package com.vn.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache-Control cho từng loại endpoint công khai của catalog.
+ * max-age cho trình duyệt, s-maxage cho CDN; hết hạn thì revalidate bằng If-None-Match (rẻ nhờ 304).
+ */
+@Component
+public class HttpCachePolicy {
+
+    private final CacheControl productDetail;
+    private final CacheControl productList;
+    private final CacheControl category;
+
+    public HttpCachePolicy(@Value("${http.cache.product-detail.max-age:60s}") Duration productDetailMaxAge,
+                           @Value("${http.cache.product-detail.s-maxage:5m}") Duration productDetailSharedMaxAge,
+                           @Value("${http.cache.product-list.max-age:30s}") Duration productListMaxAge,
+                           @Value("${http.cache.product-list.s-maxage:60s}") Duration productListSharedMaxAge,
+                           @Value("${http.cache.category.max-age:5m}") Duration categoryMaxAge,
+                           @Value("${http.cache.category.s-maxage:30m}") Duration categorySharedMaxAge) {
+        this.productDetail = policy(productDetailMaxAge, productDetailSharedMaxAge);
+        this.productList = policy(productListMaxAge, productListSharedMaxAge);
+        this.category = policy(categoryMaxAge, categorySharedMaxAge);
+    }
+
+    public CacheControl productDetail() {
+        return productDetail;
+    }
+
+    public CacheControl productList() {
+        return productList;
+    }
+
+    public CacheControl category() {
+        return category;
+    }
+
+    private static CacheControl policy(Duration maxAge, Duration sharedMaxAge) {
+        return CacheControl.maxAge(maxAge)
+                .sMaxAge(sharedMaxAge)
+                .cachePublic();
+    }
+}
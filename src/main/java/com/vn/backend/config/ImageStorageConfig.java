@@ -0,0 +1,36 @@
+package com.vn.backend.config;
+
+import com.vn.backend.service.storage.LocalImageStorage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Phục vụ ảnh của LocalImageStorage tại storage.images.local.base-url (chỉ khi backend = local)
+ */
+@Configuration
+public class ImageStorageConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<LocalImageStorage> localImageStorage;
+
+    @Value("${storage.images.local.base-url:/uploads}")
+    private String baseUrl;
+
+    public ImageStorageConfig(ObjectProvider<LocalImageStorage> localImageStorage) {
+        this.localImageStorage = localImageStorage;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        LocalImageStorage storage = localImageStorage.getIfAvailable();
+        if (storage == null || !baseUrl.startsWith("/")) {
+            return;
+        }
+        String pattern = (baseUrl.endsWith("/") ? baseUrl : baseUrl + "/") + "**";
+        registry.addResourceHandler(pattern)
+                .addResourceLocations(storage.getRoot().toUri().toString())
+                .setCachePeriod(365 * 24 * 3600);
+    }
+}
@@ -0,0 +1,80 @@
+package com.vn.backend.config.jwt;
+
+import com.vn.backend.repository.InvalidTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lan truyền thu hồi token qua chính bảng invalid_tokens: mỗi jwt.revocation.db-poll.interval quét các dòng
+ * có created_at mới và đưa vào Bloom filter của node này. Chỉ quét khi TokenBlacklist đã đăng ký (bloom bật).
+ * Mốc quét lùi lại db-poll.lag để không sót dòng commit muộn hoặc ghi từ node lệch đồng hồ; thêm lại cùng token
+ * vào filter không có hại. Yêu cầu dựng lại không cần gửi đi: filter chưa dựng lại chỉ báo nhầm "có thể có" nhiều hơn.
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.revocation.db-poll.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class DbPollingTokenRevocationTier implements TokenRevocationTier {
+
+    private final InvalidTokenRepository invalidTokenRepository;
+    private final Duration lag;
+
+    private volatile Consumer<String> onRevoked;
+    // created_at lớn nhất đã thấy
+    private LocalDateTime watermark;
+
+    public DbPollingTokenRevocationTier(InvalidTokenRepository invalidTokenRepository,
+                                        @Value("${jwt.revocation.db-poll.lag:PT30S}") Duration lag) {
+        this.invalidTokenRepository = invalidTokenRepository;
+        this.lag = lag;
+    }
+
+    /**
+     * Dòng invalid_tokens đã được lưu trước khi gọi, các node khác sẽ thấy ở lượt quét kế tiếp
+     */
+    @Override
+    public void publishRevoked(String tokenHash) {
+    }
+
+    @Override
+    public void publishRebuild() {
+    }
+
+    @Override
+    public void subscribe(Consumer<String> onRevoked, Runnable onRebuild) {
+        this.onRevoked = onRevoked;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.db-poll.interval:PT2S}")
+    public synchronized void poll() {
+        Consumer<String> listener = onRevoked;
+        if (listener == null) {
+            return;
+        }
+        try {
+            if (watermark == null) {
+                // Lượt đầu chỉ lấy mốc: filter vừa dựng từ DB, khoảng lùi của lượt sau bao phủ phần còn lại
+                LocalDateTime last = invalidTokenRepository.findLastCreatedAt();
+                watermark = last != null ? last : LocalDateTime.of(1970, 1, 1, 0, 0);
+                return;
+            }
+            List<Object[]> revoked = invalidTokenRepository.findRevokedSince(watermark.minus(lag));
+            for (Object[] row : revoked) {
+                listener.accept(TokenBlacklist.hash((String) row[0]));
+                LocalDateTime createdAt = (LocalDateTime) row[1];
+                if (createdAt.isAfter(watermark)) {
+                    watermark = createdAt;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Token revocation poll failed, retrying next round", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.vn.backend.config.jwt;
+
+import com.vn.backend.service.CustomUserDetailsService;
+import com.vn.backend.service.cache.UserAuthorityCache;
+import com.vn.backend.util.enums.AuthorityMode;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Xác định UserDetails (quyền) cho một access token đã xác thực chữ ký.
+ * CLAIMS: tin claim "roles" do JwtProvider.generateAccessToken ghi, không truy cập DB;
+ * đổi role/khóa tài khoản chỉ có hiệu lực khi token hết hạn và không có permissions chi tiết.
+ */
+@Component
+public class JwtAuthorityResolver {
+
+    private final CustomUserDetailsService customUserDetailsService;
+    private final UserAuthorityCache userAuthorityCache;
+    private final AuthorityMode mode;
+
+    public JwtAuthorityResolver(CustomUserDetailsService customUserDetailsService,
+                                UserAuthorityCache userAuthorityCache,
+                                @Value("${jwt.authorities.mode:CACHE}") AuthorityMode mode) {
+        this.customUserDetailsService = customUserDetailsService;
+        this.userAuthorityCache = userAuthorityCache;
+        this.mode = mode;
+    }
+
+    public UserDetails resolve(Claims claims, String email) {
+        if (mode == AuthorityMode.CLAIMS) {
+            List<?> roles = claims.get("roles", List.class);
+            // Token không có claim roles (refresh token) thì dùng cache
+            if (roles != null) {
+                return User.withUsername(email)
+                        .password("")
+                        .authorities(roles.stream()
+                                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                                .toList())
+                        .build();
+            }
+        }
+        if (mode == AuthorityMode.DATABASE) {
+            // Nạp lại UserDetails từ DB (bao gồm roles + permissions)
+            return customUserDetailsService.loadUserByUsername(email);
+        }
+        return userAuthorityCache.get(email);
+    }
+}
@@ -0,0 +1,59 @@
+package com.vn.backend.config.jwt;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Giữ claims đã xác thực của token trong request hiện tại,
+ * để các bước sau (logout, refresh...) không phải kiểm tra chữ ký lần nữa.
+ */
+public final class JwtClaimsHolder {
+
+    private static final String TOKEN_ATTRIBUTE = JwtClaimsHolder.class.getName() + ".token";
+    private static final String CLAIMS_ATTRIBUTE = JwtClaimsHolder.class.getName() + ".claims";
+    private static final String AUTHENTICATED_ATTRIBUTE = JwtClaimsHolder.class.getName() + ".authenticated";
+
+    private JwtClaimsHolder() {
+    }
+
+    static void set(String token, Claims claims) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(TOKEN_ATTRIBUTE, token, RequestAttributes.SCOPE_REQUEST);
+            attributes.setAttribute(CLAIMS_ATTRIBUTE, claims, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Claims của đúng token này nếu đã được xác thực trong request hiện tại, ngược lại null
+     */
+    static Claims get(String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null || !token.equals(attributes.getAttribute(TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))) {
+            return null;
+        }
+        return (Claims) attributes.getAttribute(CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Ghi nhận claims của access token mà JwtTokenValidator đã dùng để xác thực request
+     */
+    static void setAuthenticated(Claims claims) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(AUTHENTICATED_ATTRIBUTE, claims, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Claims của access token đã xác thực request hiện tại, null nếu request không xác thực bằng JWT
+     */
+    public static Claims authenticated() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (Claims) attributes.getAttribute(AUTHENTICATED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
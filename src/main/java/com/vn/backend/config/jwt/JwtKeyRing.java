@@ -0,0 +1,150 @@
+package com.vn.backend.config.jwt;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Tập khóa ký JWT (HMAC), mỗi khóa có một "kid" ghi vào header của token.
+ * Không có file jwt.keyring.location thì chỉ có khóa mặc định lấy từ jwt.signerKey (kid là fingerprint, được log
+ * khi khởi động). Có file thì tập khóa là đúng các khóa khai báo trong file (active=&lt;kid&gt;, key.&lt;kid&gt;=&lt;secret&gt;);
+ * khóa mặc định chỉ còn hiệu lực khi được liệt kê bằng key.&lt;kid mặc định&gt;= (để trống = dùng jwt.signerKey).
+ * File được đọc lại định kỳ nên xoay khóa không cần restart: thêm khóa mới và đổi active, giữ khóa cũ cho tới khi
+ * các token cũ hết hạn rồi mới xóa; bỏ khóa mặc định khỏi file thì token không có kid (ký trước khi có key ring)
+ * cũng bị từ chối.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private static final String ACTIVE = "active";
+    private static final String KEY_PREFIX = "key.";
+
+    private final String defaultKid;
+    private final SecretKey defaultKey;
+    private final Path location;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastModified = -1;
+
+    public JwtKeyRing(@Value("${jwt.signerKey}") String secretKey,
+                      @Value("${jwt.keyring.location:}") String location) {
+        this.defaultKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.defaultKid = fingerprint(secretKey);
+        this.location = StringUtils.hasText(location) ? Path.of(location) : null;
+        this.snapshot = new Snapshot(defaultKid, Map.of(defaultKid, defaultKey));
+        log.info("JWT default signing key id: {}", defaultKid);
+        reload();
+    }
+
+    public String activeKid() {
+        return snapshot.activeKid;
+    }
+
+    public SecretKey activeKey() {
+        return snapshot.keys.get(snapshot.activeKid);
+    }
+
+    /**
+     * Chọn khóa xác thực theo kid; token cũ không có kid dùng khóa mặc định nếu khóa đó còn trong tập khóa
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            SecretKey key = snapshot.keys.get(defaultKid);
+            if (key == null) {
+                throw new SignatureException("Tokens without a key id are no longer accepted");
+            }
+            return key;
+        }
+        SecretKey key = snapshot.keys.get(kid);
+        if (key == null) {
+            throw new SignatureException("Unknown signing key id: " + kid);
+        }
+        return key;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keyring.reload-interval:PT1M}",
+            initialDelayString = "${jwt.keyring.reload-interval:PT1M}")
+    public void reload() {
+        if (location == null) {
+            return;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(location).toMillis();
+            if (modified == lastModified) {
+                return;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(location, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+
+            Map<String, SecretKey> keys = new LinkedHashMap<>();
+            for (String name : properties.stringPropertyNames()) {
+                if (name.startsWith(KEY_PREFIX)) {
+                    String kid = name.substring(KEY_PREFIX.length());
+                    String secret = properties.getProperty(name).trim();
+                    keys.put(kid, kid.equals(defaultKid) && secret.isEmpty()
+                            ? defaultKey
+                            : Keys.hmacShaKeyFor(secret.getBytes()));
+                }
+            }
+            String active = properties.getProperty(ACTIVE, defaultKid).trim();
+            if (!keys.containsKey(active)) {
+                log.error("JWT key ring {}: active key '{}' is not defined, keeping previous keys", location, active);
+                return;
+            }
+
+            snapshot = new Snapshot(active, Map.copyOf(keys));
+            lastModified = modified;
+            log.info("JWT key ring loaded from {}: {} keys, active '{}', default key {}", location, keys.size(), active,
+                    keys.containsKey(defaultKid) ? "kept" : "retired");
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load JWT key ring from {}, keeping previous keys", location, e);
+        }
+    }
+
+    /**
+     * kid của khóa mặc định: 8 byte đầu SHA-256 của secret (không lộ secret)
+     */
+    private static String fingerprint(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Snapshot {
+        final String activeKid;
+        final Map<String, SecretKey> keys;
+
+        private Snapshot(String activeKid, Map<String, SecretKey> keys) {
+            this.activeKid = activeKid;
+            this.keys = keys;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.vn.backend.config.jwt;
 
 import com.vn.backend.exception.AppException;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -10,24 +9,39 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 
+/**
+ * Ký và xác thực JWT. Khóa lấy từ JwtKeyRing (khởi tạo một lần, hỗ trợ xoay khóa theo kid);
+ * JwtParser được dựng sẵn một lần và dùng chung giữa các luồng (immutable, thread-safe).
+ */
 @Service
 public class JwtProvider {
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+
     @Value("${jwt.accessExpMs}")
     private long accessExpMs;
 
     @Value("${jwt.refreshExpMs}")
     private long refreshExpMs;
 
-    @Value("${jwt.signerKey}")
-    private String secretKey;
+    public JwtProvider(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parser().keyLocator(keyRing).build();
+    }
 
     public String generateAccessToken(Authentication auth) {
+        return generateAccessToken(auth, null);
+    }
+
+    /**
+     * Access token kèm claim "uid" (id người dùng) để CurrentUser không phải tra id theo email mỗi request
+     */
+    public String generateAccessToken(Authentication auth, Long userId) {
         String email = auth.getName();
 
         List<String> roles = auth.getAuthorities().stream()
@@ -36,30 +50,33 @@ public class JwtProvider {
                 .distinct()
                 .toList();
 
-        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes());
-
         Date now = new Date();
         Date expiry = new Date(now.getTime() + accessExpMs);
 
-        return Jwts.builder()
-                .setIssuedAt(now)
-                .setExpiration(expiry)
+        JwtBuilder builder = Jwts.builder()
+                .header().keyId(keyRing.activeKid()).and()
+                .issuedAt(now)
+                .expiration(expiry)
                 .claim("email", email)
-                .claim("roles", roles)
-                .signWith(key)
+                .claim("roles", roles);
+        if (userId != null) {
+            builder.claim("uid", userId);
+        }
+        return builder
+                .signWith(keyRing.activeKey())
                 .compact();
     }
 
     public String generateRefreshToken(String email) {
-        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes());
         Date now = new Date();
         Date expiry = new Date(now.getTime() + refreshExpMs);
 
         return Jwts.builder()
-                .setIssuedAt(now)
-                .setExpiration(expiry)
+                .header().keyId(keyRing.activeKid()).and()
+                .issuedAt(now)
+                .expiration(expiry)
                 .claim("email", email)
-                .signWith(key)
+                .signWith(keyRing.activeKey())
                 .compact();
     }
 
@@ -75,14 +92,23 @@ public class JwtProvider {
                 .toLocalDateTime();
     }
 
+    /**
+     * Xác thực chữ ký và trả về claims; token đã xác thực trong request hiện tại thì lấy lại từ JwtClaimsHolder
+     */
     public Claims getClaimsFromToken(String token) {
         try {
             if (token.startsWith("Bearer ")) {
                 token = token.substring(7);
             }
 
-            SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes());
-            return Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody();
+            Claims cached = JwtClaimsHolder.get(token);
+            if (cached != null) {
+                return cached;
+            }
+
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            JwtClaimsHolder.set(token, claims);
+            return claims;
 
         } catch (ExpiredJwtException e) {
             throw new AppException(HttpStatus.UNAUTHORIZED.value(), "Mã thông báo đã hết hạn", e);
@@ -1,15 +1,14 @@
 package com.vn.backend.config.jwt;
 
 import com.vn.backend.exception.AppException;
-import com.vn.backend.repository.InvalidTokenRepository;
-import com.vn.backend.service.CustomUserDetailsService;
 import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,20 +21,20 @@ import java.io.IOException;
 
 @Component
 public class JwtTokenValidator extends OncePerRequestFilter {
-    @Value("${jwt.signerKey}")
-    private String secretKey;
-
     @Autowired
     private JwtProvider jwtProvider;
 
     @Autowired
-    private CustomUserDetailsService customUserDetailsService;
+    private TokenBlacklist tokenBlacklist;
+
+    @Autowired
+    private JwtAuthorityResolver jwtAuthorityResolver;
 
     @Autowired
-    private InvalidTokenRepository invalidTokenRepository;
+    private MeterRegistry meterRegistry;
 
     private boolean isTokenBlacklisted(String token) {
-        return invalidTokenRepository.findById(token).isPresent();
+        return tokenBlacklist.isRevoked(token);
     }
 
     @Override
@@ -48,6 +47,22 @@ public class JwtTokenValidator extends OncePerRequestFilter {
             return;
         }
 
+        // Chỉ đo phần xác thực token, không tính thời gian xử lý của các filter/controller phía sau
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "rejected";
+        try {
+            authenticate(jwt);
+            outcome = "authenticated";
+        } finally {
+            sample.stop(Timer.builder("security.jwt.validation")
+                    .description("JWT validation and authority resolution")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(String jwt) {
         if (isTokenBlacklisted(jwt)) {
             throw new AppException(HttpStatus.UNAUTHORIZED.value(), "Invalid token");
         }
@@ -57,8 +72,8 @@ public class JwtTokenValidator extends OncePerRequestFilter {
 
         // Chỉ set auth nếu chưa có trong context
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Nạp lại UserDetails từ DB (bao gồm roles + permissions)
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
+            // Quyền lấy từ DB, cache hoặc claim tùy jwt.authorities.mode
+            UserDetails userDetails = jwtAuthorityResolver.resolve(claims, email);
 
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(
@@ -68,8 +83,8 @@ public class JwtTokenValidator extends OncePerRequestFilter {
                     );
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            JwtClaimsHolder.setAuthenticated(claims);
         }
-        filterChain.doFilter(request, response);
     }
 
     private String getJwtFromRequest(HttpServletRequest request) {
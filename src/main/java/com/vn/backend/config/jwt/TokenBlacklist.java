@@ -0,0 +1,179 @@
+package com.vn.backend.config.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vn.backend.repository.InvalidTokenRepository;
+import com.vn.backend.service.cache.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Kiểm tra token đã bị thu hồi (logout).
+ * Mặc định (jwt.revocation.bloom-enabled=false) tra invalid_tokens ở mọi request như trước.
+ * Khi bật: Bloom filter chứa hash SHA-256 của các token trong invalid_tokens, "không có" thì cho qua,
+ * chỉ khi filter báo "có thể có" mới tra cache chính xác rồi mới tới DB. Token bị thu hồi ở node khác chỉ vào
+ * filter của node này qua TokenRevocationTier, nên trong khoảng trễ của tier (db-poll.interval với tier mặc định)
+ * token đó vẫn được chấp nhận ở đây; thiếu tier thì khoảng trễ là sync-interval.
+ */
+@Component
+@Slf4j
+public class TokenBlacklist {
+
+    private final InvalidTokenRepository invalidTokenRepository;
+    private final TokenRevocationTier tier;
+    private final boolean enabled;
+    private final long expectedTokens;
+    private final double falsePositiveRate;
+
+    // hash token -> đã bị thu hồi hay chưa (cả kết quả âm khi filter báo nhầm)
+    private final Cache<String, Boolean> exact;
+    private final SingleFlight<String, Boolean> exactLoads = new SingleFlight<>();
+
+    private volatile BloomFilter filter;
+    private volatile boolean loaded;
+    // Các token bị thu hồi trong lúc đang dựng lại filter, được chép sang filter mới trước khi hoán đổi
+    private List<byte[]> revokedDuringRebuild;
+
+    public TokenBlacklist(InvalidTokenRepository invalidTokenRepository,
+                          ObjectProvider<TokenRevocationTier> tier,
+                          @Value("${jwt.revocation.bloom-enabled:false}") boolean enabled,
+                          @Value("${jwt.revocation.expected-tokens:100000}") long expectedTokens,
+                          @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                          @Value("${jwt.revocation.cache-size:10000}") long cacheSize,
+                          @Value("${jwt.revocation.cache-ttl:10m}") Duration cacheTtl) {
+        this.invalidTokenRepository = invalidTokenRepository;
+        this.tier = tier.getIfAvailable();
+        this.enabled = enabled;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.exact = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.filter = new BloomFilter(expectedTokens, falsePositiveRate);
+        if (enabled && this.tier != null) {
+            this.tier.subscribe(this::onRemoteRevoked, this::rebuild);
+        } else if (enabled) {
+            log.warn("Token revocation Bloom filter is enabled without a TokenRevocationTier: "
+                    + "tokens revoked on other nodes are accepted here until the next sync");
+        }
+    }
+
+    public boolean isRevoked(String token) {
+        if (!enabled || !loaded) {
+            return invalidTokenRepository.existsById(token);
+        }
+        byte[] digest = sha256(token);
+        if (!filter.mightContain(digest)) {
+            return false;
+        }
+        return exactLoads.get(exact, HexFormat.of().formatHex(digest), k -> invalidTokenRepository.existsById(token));
+    }
+
+    /**
+     * Ghi nhận token vừa bị thu hồi (gọi sau khi đã lưu vào invalid_tokens)
+     */
+    public void revoke(String token) {
+        byte[] digest = sha256(token);
+        String hash = HexFormat.of().formatHex(digest);
+        add(digest, hash);
+        if (tier != null) {
+            tier.publishRevoked(hash);
+        }
+    }
+
+    /**
+     * Dựng lại filter từ các token còn hạn trong DB (khi khởi động, định kỳ, sau khi dọn token hết hạn)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            revokedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<String> tokens = invalidTokenRepository.findActiveTokens(LocalDateTime.now());
+            BloomFilter next = new BloomFilter(Math.max(expectedTokens, tokens.size() * 2L), falsePositiveRate);
+            for (String token : tokens) {
+                next.put(sha256(token));
+            }
+            synchronized (this) {
+                revokedDuringRebuild.forEach(next::put);
+                filter = next;
+                revokedDuringRebuild = null;
+            }
+            exact.invalidateAll();
+            loaded = true;
+            log.info("Token blacklist filter rebuilt: {} revoked tokens in {} ms",
+                    tokens.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                revokedDuringRebuild = null;
+            }
+            log.error("Failed to rebuild token blacklist filter, keeping previous one", e);
+        }
+    }
+
+    /**
+     * Dựng lại cục bộ và yêu cầu các node khác làm tương tự
+     */
+    public void rebuildEverywhere() {
+        rebuild();
+        if (tier != null) {
+            tier.publishRebuild();
+        }
+    }
+
+    // Lưới an toàn cho nhiều node khi không có TokenRevocationTier hoặc lỡ sự kiện
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:PT10M}",
+            initialDelayString = "${jwt.revocation.sync-interval:PT10M}")
+    public void sync() {
+        rebuild();
+    }
+
+    private void onRemoteRevoked(String hash) {
+        add(HexFormat.of().parseHex(hash), hash);
+    }
+
+    private synchronized void add(byte[] digest, String hash) {
+        filter.put(digest);
+        if (revokedDuringRebuild != null) {
+            revokedDuringRebuild.add(digest);
+        }
+        // Bỏ kết quả "chưa thu hồi" của lần tra DB đang chạy (nếu có) trước khi ghi
+        exactLoads.invalidate(exact, hash);
+        exact.put(hash, Boolean.TRUE);
+    }
+
+    /**
+     * Hash dùng trong filter và trên TokenRevocationTier (SHA-256, hex)
+     */
+    static String hash(String token) {
+        return HexFormat.of().formatHex(sha256(token));
+    }
+
+    private static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
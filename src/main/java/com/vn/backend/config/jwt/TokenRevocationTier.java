@@ -0,0 +1,27 @@
+package com.vn.backend.config.jwt;
+
+import java.util.function.Consumer;
+
+/**
+ * Kênh lan truyền thu hồi token giữa các node cho Bloom filter của TokenBlacklist:
+ * thiếu kênh này thì node khác chỉ thấy token bị thu hồi sau lần dựng lại định kỳ.
+ * Mặc định là DbPollingTokenRevocationTier (trễ tối đa một chu kỳ quét); pub/sub (ví dụ Redis) cho độ trễ thấp hơn.
+ */
+public interface TokenRevocationTier {
+
+    /**
+     * Thông báo một token (đã hash SHA-256, dạng hex) vừa bị thu hồi
+     */
+    void publishRevoked(String tokenHash);
+
+    /**
+     * Yêu cầu các node dựng lại Bloom filter (sau khi job dọn token hết hạn xóa dữ liệu)
+     */
+    void publishRebuild();
+
+    /**
+     * Đăng ký nhận sự kiện từ node khác
+     */
+    default void subscribe(Consumer<String> onRevoked, Runnable onRebuild) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.vn.backend.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Phần metrics Spring Boot không tự có: số câu SQL mỗi request.
+ * Repository (spring.data.repository.invocations), HTTP server/client, Feign và pool Hikari
+ * do Actuator tự đo; service và JwtTokenValidator đo ở ServiceMetricsAspect và trong filter.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    /**
+     * Chạy ngay sau ConcurrencyLimitFilter để đếm cả truy vấn trong security filter (nạp quyền user)
+     */
+    @Bean
+    public FilterRegistrationBean<StatementMetricsFilter> statementMetricsFilter(StatementCounter statementCounter,
+                                                                                MeterRegistry meterRegistry) {
+        FilterRegistrationBean<StatementMetricsFilter> registration =
+                new FilterRegistrationBean<>(new StatementMetricsFilter(statementCounter, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
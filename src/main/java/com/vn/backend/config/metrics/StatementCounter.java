@@ -0,0 +1,31 @@
+package com.vn.backend.config.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Đếm số câu SQL Hibernate chuẩn bị trên thread hiện tại giữa start() và stop().
+ * Chỉ đếm câu lệnh chạy trên thread của request; truy vấn chạy trên pool khác (dashboard, upload...) không tính.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private final ThreadLocal<long[]> current = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = current.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public void start() {
+        current.set(new long[1]);
+    }
+
+    public long stop() {
+        long[] count = current.get();
+        current.remove();
+        return count != null ? count[0] : 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.vn.backend.config.thread;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Báo cáo virtual thread bị ghim vào carrier (block khi đang giữ monitor synchronized hoặc trong native frame).
+ * Nghe sự kiện JFR jdk.VirtualThreadPinned trong tiến trình, gom theo frame đầu tiên thuộc code của app
+ * (hoặc frame trên cùng nếu không có) và định kỳ ghi top các vị trí ghim ra log.
+ */
+@Component
+@ConditionalOnProperty(name = "virtual-threads.pinning-report.enabled", havingValue = "true")
+@Slf4j
+public class PinnedThreadMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.vn.backend.";
+
+    private final Duration threshold;
+    private final int top;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    public PinnedThreadMonitor(@Value("${virtual-threads.pinning-report.threshold:PT0.02S}") Duration threshold,
+                               @Value("${virtual-threads.pinning-report.top:10}") int top) {
+        this.threshold = threshold;
+        this.top = top;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        stream = new RecordingStream();
+        // JDK < 21 không có sự kiện này: stream vẫn chạy nhưng không nhận gì
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold {})", threshold);
+    }
+
+    @Scheduled(fixedDelayString = "${virtual-threads.pinning-report.interval:PT5M}",
+            initialDelayString = "${virtual-threads.pinning-report.interval:PT5M}")
+    public void report() {
+        if (sites.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Site>> worst = sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Site> e) -> e.getValue().totalNanos.sum()).reversed())
+                .limit(top)
+                .toList();
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Site> entry : worst) {
+            Site site = entry.getValue();
+            sb.append(String.format("%n  %6d pins, %8.1f ms total, %7.1f ms max  at %s",
+                    site.count.sum(), site.totalNanos.sum() / 1e6, site.maxNanos / 1e6, entry.getKey()));
+        }
+        log.warn("Virtual thread pinning report ({} sites):{}", sites.size(), sb);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+        report();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        Site site = sites.computeIfAbsent(siteOf(event.getStackTrace()), k -> new Site());
+        site.count.increment();
+        site.totalNanos.add(nanos);
+        synchronized (site) {
+            site.maxNanos = Math.max(site.maxNanos, nanos);
+        }
+    }
+
+    private static String siteOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<unknown>";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame site = frames.stream()
+                .filter(f -> f.getMethod().getType().getName().startsWith(APP_PACKAGE))
+                .findFirst()
+                .orElse(frames.get(0));
+        return site.getMethod().getType().getName() + "." + site.getMethod().getName()
+                + ":" + site.getLineNumber();
+    }
+
+    private static final class Site {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        long maxNanos;
+    }
+}
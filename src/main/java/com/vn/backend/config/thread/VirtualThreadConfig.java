@@ -0,0 +1,77 @@
+package com.vn.backend.config.thread;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Chế độ virtual thread (spring.threads.virtual.enabled=true, cần chạy trên JDK 21+).
+ * Spring Boot tự chuyển Tomcat, executor của @Async và scheduler của @Scheduled sang virtual thread;
+ * cấu hình này bổ sung phần mà virtual thread không tự lo: giới hạn số request đồng thời
+ * và kích thước pool Hikari, để hàng nghìn virtual thread không cùng lúc dồn vào MySQL.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    /**
+     * Cổng vào: tối đa max-concurrent-requests request chạy cùng lúc, phần còn lại chờ
+     * tối đa admission-timeout rồi nhận 503 (thay cho giới hạn server.tomcat.threads.max của thread thường)
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${virtual-threads.max-concurrent-requests:200}") int maxConcurrentRequests,
+            @Value("${virtual-threads.admission-timeout:PT5S}") Duration admissionTimeout) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, admissionTimeout));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.addUrlPatterns("/api/*");
+        log.info("Virtual thread mode: at most {} concurrent API requests, admission timeout {}",
+                maxConcurrentRequests, admissionTimeout);
+        return registration;
+    }
+
+    /**
+     * Đặt kích thước pool Hikari: virtual-threads.db.max-pool-size nếu khai báo, không thì giữ
+     * spring.datasource.hikari.maximum-pool-size nếu đã cấu hình, còn lại theo công thức (số core * 2 + 1).
+     * connection-timeout cũng chỉ đè khi spring.datasource.hikari.connection-timeout chưa cấu hình.
+     * Pool khởi tạo lười ở lần getConnection đầu tiên nên vẫn đổi được sau khi bean đã bind xong.
+     */
+    @Bean
+    public static BeanPostProcessor hikariPoolSizer(
+            @Value("${virtual-threads.db.max-pool-size:0}") int maxPoolSize,
+            @Value("${virtual-threads.db.connection-timeout:PT3S}") Duration connectionTimeout,
+            @Value("${spring.datasource.hikari.maximum-pool-size:0}") int hikariMaxPoolSize,
+            @Value("${spring.datasource.hikari.connection-timeout:}") String hikariConnectionTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof HikariDataSource dataSource) {
+                    if (maxPoolSize > 0 || hikariMaxPoolSize <= 0) {
+                        int size = maxPoolSize > 0 ? maxPoolSize : Runtime.getRuntime().availableProcessors() * 2 + 1;
+                        dataSource.setMaximumPoolSize(size);
+                        dataSource.setMinimumIdle(Math.min(dataSource.getMinimumIdle(), size));
+                        log.info("Hikari pool {} sized to {} connections for virtual threads", beanName, size);
+                    } else {
+                        log.info("Hikari pool {} keeps configured maximum-pool-size {}", beanName,
+                                dataSource.getMaximumPoolSize());
+                    }
+                    if (hikariConnectionTimeout.isBlank()) {
+                        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
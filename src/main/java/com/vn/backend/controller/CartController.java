@@ -1,6 +1,7 @@
 package com.vn.backend.controller;
 
 import com.vn.backend.dto.request.AddToCartRequest;
+import com.vn.backend.dto.request.BulkAddToCartRequest;
 import com.vn.backend.dto.request.UpdateCartItemRequest;
 import com.vn.backend.dto.response.ApiResponse;
 import com.vn.backend.dto.response.CartResponse;
@@ -67,6 +68,65 @@ public class CartController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Add many items to cart at once
+     */
+    @PostMapping("/items/bulk")
+    @Operation(summary = "Add many to cart", description = "Add several products to shopping cart in one call; fails if any product is missing or out of stock")
+    public ResponseEntity<ApiResponse<CartResponse>> addItems(
+            @Valid @RequestBody BulkAddToCartRequest request) {
+        log.info("Adding {} products to cart", request.getItems().size());
+
+        CartResponse cart = cartService.addItems(request);
+
+        ApiResponse<CartResponse> response = ApiResponse.<CartResponse>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Sách được thêm vào giỏ hàng thành công")
+                .data(cart)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Merge guest cart into user's cart
+     */
+    @PostMapping("/merge")
+    @Operation(summary = "Merge guest cart", description = "Merge items of an anonymous (guest) cart into current user's cart")
+    public ResponseEntity<ApiResponse<CartResponse>> mergeCart(
+            @Valid @RequestBody BulkAddToCartRequest request) {
+        log.info("Merging guest cart with {} products", request.getItems().size());
+
+        CartResponse cart = cartService.mergeCart(request);
+
+        ApiResponse<CartResponse> response = ApiResponse.<CartResponse>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Gộp giỏ hàng thành công")
+                .data(cart)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Re-add all items of a past order
+     */
+    @PostMapping("/reorder/{orderId}")
+    @Operation(summary = "Reorder", description = "Add all products of a past order back to shopping cart")
+    public ResponseEntity<ApiResponse<CartResponse>> reorder(@PathVariable Long orderId) {
+        log.info("Re-adding items of order {} to cart", orderId);
+
+        CartResponse cart = cartService.reorder(orderId);
+
+        ApiResponse<CartResponse> response = ApiResponse.<CartResponse>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Thêm lại sản phẩm của đơn hàng thành công")
+                .data(cart)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Update cart item quantity
      */
@@ -5,7 +5,10 @@ import com.vn.backend.dto.request.UpdateCategoryRequest;
 import com.vn.backend.dto.response.ApiResponse;
 import com.vn.backend.dto.response.CategoryResponse;
 import com.vn.backend.dto.response.PagedResponse;
+import com.vn.backend.config.HttpCachePolicy;
 import com.vn.backend.service.CategoryService;
+import com.vn.backend.service.cache.CatalogVersion;
+import com.vn.backend.util.ConditionalGet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,6 +21,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -30,21 +34,25 @@ import java.util.List;
 public class CategoryController {
 
     CategoryService categoryService;
+    CatalogVersion catalogVersion;
+    HttpCachePolicy httpCachePolicy;
 
     /**
      * Get all categories
      */
     @GetMapping
     @Operation(summary = "Get all categories", description = "Get all categories")
-    public ApiResponse<PagedResponse<CategoryResponse>> getAllCategories(
+    public ResponseEntity<ApiResponse<PagedResponse<CategoryResponse>>> getAllCategories(
             @RequestParam(required = false) String keyword,
-            Pageable pageable) {
-
-        return ApiResponse.<PagedResponse<CategoryResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .data(categoryService.getAllCategories(keyword, pageable))
-                .message("Lấy danh sách categories thành công")
-                .build();
+            Pageable pageable,
+            WebRequest request) {
+
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.category(), () ->
+                ApiResponse.<PagedResponse<CategoryResponse>>builder()
+                        .statusCode(HttpStatus.OK.value())
+                        .data(categoryService.getAllCategories(keyword, pageable))
+                        .message("Lấy danh sách categories thành công")
+                        .build());
     }
 
     /**
@@ -52,18 +60,18 @@ public class CategoryController {
      */
     @GetMapping("/root")
     @Operation(summary = "Get root categories", description = "Get categories without parent")
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getRootCategories() {
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getRootCategories(WebRequest request) {
         log.info("Getting root categories");
 
-        List<CategoryResponse> categories = categoryService.getRootCategories();
-
-        ApiResponse<List<CategoryResponse>> response = ApiResponse.<List<CategoryResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Các danh mục gốc đã được truy xuất thành công")
-                .data(categories)
-                .build();
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.category(), () -> {
+            List<CategoryResponse> categories = categoryService.getRootCategories();
 
-        return ResponseEntity.ok(response);
+            return ApiResponse.<List<CategoryResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Các danh mục gốc đã được truy xuất thành công")
+                    .data(categories)
+                    .build();
+        });
     }
 
     /**
@@ -72,18 +80,19 @@ public class CategoryController {
     @GetMapping("/children/{parentId}")
     @Operation(summary = "Get child categories", description = "Get categories by parent ID")
     public ResponseEntity<ApiResponse<List<CategoryResponse>>> getChildCategories(
-            @PathVariable Long parentId) {
+            @PathVariable Long parentId,
+            WebRequest request) {
         log.info("Getting child categories for parent id: {}", parentId);
 
-        List<CategoryResponse> categories = categoryService.getChildCategories(parentId);
-
-        ApiResponse<List<CategoryResponse>> response = ApiResponse.<List<CategoryResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Các danh mục con đã được truy xuất thành công.")
-                .data(categories)
-                .build();
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.category(), () -> {
+            List<CategoryResponse> categories = categoryService.getChildCategories(parentId);
 
-        return ResponseEntity.ok(response);
+            return ApiResponse.<List<CategoryResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Các danh mục con đã được truy xuất thành công.")
+                    .data(categories)
+                    .build();
+        });
     }
 
     /**
@@ -91,18 +100,18 @@ public class CategoryController {
      */
     @GetMapping("/{id}")
     @Operation(summary = "Get category by ID", description = "Get a single category by its ID")
-    public ResponseEntity<ApiResponse<CategoryResponse>> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<CategoryResponse>> getCategoryById(@PathVariable Long id, WebRequest request) {
         log.info("Getting category with id: {}", id);
 
-        CategoryResponse category = categoryService.getCategoryById(id);
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.category(), () -> {
+            CategoryResponse category = categoryService.getCategoryById(id);
 
-        ApiResponse<CategoryResponse> response = ApiResponse.<CategoryResponse>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Danh mục được truy xuất thành công")
-                .data(category)
-                .build();
-
-        return ResponseEntity.ok(response);
+            return ApiResponse.<CategoryResponse>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Danh mục được truy xuất thành công")
+                    .data(category)
+                    .build();
+        });
     }
 
     /**
@@ -169,14 +178,16 @@ public class CategoryController {
 
     // Search categories với keyword, page, size, sort
     @GetMapping("/search")
-    public ApiResponse<List<CategoryResponse>> searchCategories(
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> searchCategories(
             @RequestParam(required = false) String keyword,
-            Pageable pageable) {
-        return ApiResponse.<List<CategoryResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Tìm kiếm categories thành công")
-                .data(categoryService.searchCategories(keyword, pageable))
-                .build();
+            Pageable pageable,
+            WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.category(), () ->
+                ApiResponse.<List<CategoryResponse>>builder()
+                        .statusCode(HttpStatus.OK.value())
+                        .message("Tìm kiếm categories thành công")
+                        .data(categoryService.searchCategories(keyword, pageable))
+                        .build());
     }
 }
 
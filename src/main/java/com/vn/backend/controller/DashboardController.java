@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api/v1/admin/dashboard")
 @CrossOrigin(origins = "*")
@@ -21,7 +23,14 @@ public class DashboardController {
     public ResponseEntity<ApiResponse<AdminDashboardResponse>> getAdminDashboard() {
         try {
             ApiResponse<AdminDashboardResponse> res = dashboardService.getAdminDashboardData();
-            return ResponseEntity.status(res.getStatusCode()).body(res);
+            // Server-Timing: thời gian từng phần hiện trong tab Network của DevTools
+            String serverTiming = res.getData().getSections().stream()
+                    .map(section -> section.getName() + ";dur=" + section.getDurationMs()
+                            + ";desc=\"" + section.getStatus() + "\"")
+                    .collect(Collectors.joining(", "));
+            return ResponseEntity.status(res.getStatusCode())
+                    .header("Server-Timing", serverTiming)
+                    .body(res);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get admin dashboard data", e);
         }
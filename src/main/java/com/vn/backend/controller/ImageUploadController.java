@@ -2,34 +2,51 @@ package com.vn.backend.controller;
 
 import com.vn.backend.dto.response.ApiResponse;
 import com.vn.backend.dto.response.ImageUploadResponse;
-import com.vn.backend.service.CloudinaryService;
+import com.vn.backend.service.ImageUploadService;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/uploads")
 public class ImageUploadController {
 
-    private final CloudinaryService cloudinaryService;
+    private final ImageUploadService imageUploadService;
 
-    public ImageUploadController(CloudinaryService cloudinaryService) {
-        this.cloudinaryService = cloudinaryService;
+    public ImageUploadController(ImageUploadService imageUploadService) {
+        this.imageUploadService = imageUploadService;
     }
 
     @PostMapping(consumes = {"multipart/form-data"})
     public ResponseEntity<ApiResponse<ImageUploadResponse>> upload(
             @RequestPart("file") @NotNull MultipartFile file
     ) throws Exception {
-        var res = cloudinaryService.upload(file);
+        var res = imageUploadService.upload(file);
+        return ResponseEntity.status(res.getStatusCode()).body(res);
+    }
+
+    /**
+     * Tải nhiều ảnh (ví dụ toàn bộ ảnh của một sản phẩm) trong một request, các file được upload song song
+     */
+    @PostMapping(value = "/batch", consumes = {"multipart/form-data"})
+    public ResponseEntity<ApiResponse<List<ImageUploadResponse>>> uploadBatch(
+            @RequestPart("files") List<MultipartFile> files
+    ) {
+        var res = imageUploadService.uploadBatch(files);
         return ResponseEntity.status(res.getStatusCode()).body(res);
     }
 
-    @DeleteMapping("/{publicId}")
+    /**
+     * Id có thể chứa "/" (id của LocalImageStorage dạng yyyy/MM/uuid.ext, publicId Cloudinary có thư mục)
+     * nên lấy toàn bộ phần path còn lại
+     */
+    @DeleteMapping("/{*publicId}")
     public ApiResponse<?> delete(@PathVariable String publicId) throws Exception {
-        boolean ok = cloudinaryService.deleteByPublicId(publicId);
+        boolean ok = imageUploadService.delete(publicId.startsWith("/") ? publicId.substring(1) : publicId);
         return ok ?
                 ApiResponse.builder().statusCode(HttpStatus.NO_CONTENT.value()).build() :
                 ApiResponse.builder().statusCode(HttpStatus.NOT_FOUND.value()).build();
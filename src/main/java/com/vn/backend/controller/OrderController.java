@@ -42,8 +42,9 @@ public class OrderController {
     public ApiResponse<PagedResponse<OrderResponse>> getAllOrders(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
             Pageable pageable) {
-        PagedResponse<OrderResponse> orders = orderService.getAllOrders(keyword, status, pageable);
+        PagedResponse<OrderResponse> orders = orderService.getAllOrders(keyword, status, cursor, pageable);
 
         return ApiResponse.<PagedResponse<OrderResponse>>builder()
                 .statusCode(HttpStatus.OK.value())
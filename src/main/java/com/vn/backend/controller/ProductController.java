@@ -20,7 +20,10 @@ import com.vn.backend.dto.response.ApiResponse;
 import com.vn.backend.dto.response.PagedResponse;
 import com.vn.backend.dto.response.ProductResponse;
 import com.vn.backend.model.Product;
+import com.vn.backend.config.HttpCachePolicy;
 import com.vn.backend.service.ProductService;
+import com.vn.backend.service.cache.CatalogVersion;
+import com.vn.backend.util.ConditionalGet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,7 +36,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.ZoneId;
 import java.util.List;
 
 @RestController
@@ -45,40 +50,54 @@ import java.util.List;
 public class ProductController {
 
     ProductService productService;
+    CatalogVersion catalogVersion;
+    HttpCachePolicy httpCachePolicy;
 
     /**
      * Get all products with pagination
+     * Truyền cursor (rỗng cho trang đầu) để dùng phân trang keyset thay cho offset
      */
     @GetMapping
     @Operation(summary = "Get all products", description = "Get all products with pagination and sorting")
-    public ApiResponse<PagedResponse<ProductResponse>> getAllProducts(
+    public ResponseEntity<ApiResponse<PagedResponse<ProductResponse>>> getAllProducts(
             @RequestParam(required = false) String keyword,
-            Pageable pageable) {
-
-        return ApiResponse.<PagedResponse<ProductResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .data(productService.getAllProducts(keyword, pageable))
-                .message("Lấy danh sách products thành công")
-                .build();
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            WebRequest request) {
+
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.productList(), () ->
+                ApiResponse.<PagedResponse<ProductResponse>>builder()
+                        .statusCode(HttpStatus.OK.value())
+                        .data(productService.getAllProducts(keyword, cursor, pageable))
+                        .message("Lấy danh sách products thành công")
+                        .build());
     }
 
     /**
      * Get product by ID
+     * Strong ETag từ updatedAt và fingerprint của bản đã cache (rating, ảnh... không đổi updatedAt);
+     * đọc qua ProductCache nên revalidate khi cache còn nóng không chạm DB.
+     * Không gửi Last-Modified: updatedAt không đổi khi rating/ảnh đổi nên If-Modified-Since sẽ trả 304 nhầm.
+     * Độ cũ tối đa xem CatalogVersion.
      */
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID", description = "Get a single product by its ID")
-    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id, WebRequest request) {
         log.info("Getting product with id: {}", id);
 
         ProductResponse product = productService.getProductById(id);
 
-        ApiResponse<ProductResponse> response = ApiResponse.<ProductResponse>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Sản phẩm được lấy thành công")
-                .data(product)
-                .build();
-
-        return ResponseEntity.ok(response);
+        long updatedAt = product.getUpdatedAt() != null
+                ? product.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0;
+        String etag = "\"p" + id + "-" + updatedAt + "-" + Integer.toHexString(product.hashCode()) + "\"";
+
+        return ConditionalGet.respond(request, etag, httpCachePolicy.productDetail(), () ->
+                ApiResponse.<ProductResponse>builder()
+                        .statusCode(HttpStatus.OK.value())
+                        .message("Sản phẩm được lấy thành công")
+                        .data(product)
+                        .build());
     }
 
     /**
@@ -147,28 +166,35 @@ public class ProductController {
                description = "Get products filtered by star rating (1-5 stars)")
     public ResponseEntity<ApiResponse<PagedResponse<ProductResponse>>> getProductsByStars(
             @PathVariable Integer stars,
-            Pageable pageable) {
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            WebRequest request) {
         log.info("Getting products with {} stars", stars);
 
-        var products = productService.getProductsByStarRating(stars, pageable);
-
-        PagedResponse<ProductResponse> pagedResponse = PagedResponse.<ProductResponse>builder()
-                .data(products.getContent())
-                .totalElements(products.getTotalElements())
-                .totalPages(products.getTotalPages())
-                .currentPage(products.getNumber())
-                .pageSize(products.getSize())
-                .hasNext(products.hasNext())
-                .hasPrevious(products.hasPrevious())
-                .build();
-
-        ApiResponse<PagedResponse<ProductResponse>> response = ApiResponse.<PagedResponse<ProductResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Lấy danh sách sản phẩm " + stars + " sao thành công")
-                .data(pagedResponse)
-                .build();
-
-        return ResponseEntity.ok(response);
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.productList(), () -> {
+            PagedResponse<ProductResponse> pagedResponse;
+            if (cursor != null) {
+                pagedResponse = productService.getProductsByStarRating(stars, cursor, pageable);
+            } else {
+                var products = productService.getProductsByStarRating(stars, pageable);
+
+                pagedResponse = PagedResponse.<ProductResponse>builder()
+                        .data(products.getContent())
+                        .totalElements(products.getTotalElements())
+                        .totalPages(products.getTotalPages())
+                        .currentPage(products.getNumber())
+                        .pageSize(products.getSize())
+                        .hasNext(products.hasNext())
+                        .hasPrevious(products.hasPrevious())
+                        .build();
+            }
+
+            return ApiResponse.<PagedResponse<ProductResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Lấy danh sách sản phẩm " + stars + " sao thành công")
+                    .data(pagedResponse)
+                    .build();
+        });
     }
 
     /**
@@ -180,28 +206,35 @@ public class ProductController {
     public ResponseEntity<ApiResponse<PagedResponse<ProductResponse>>> getProductsByPriceRange(
             @RequestParam(required = false, defaultValue = "0") Long minPrice,
             @RequestParam(required = false, defaultValue = "1000000") Long maxPrice,
-            Pageable pageable) {
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            WebRequest request) {
         log.info("Getting products with price range: {} - {}", minPrice, maxPrice);
 
-        var products = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
-
-        PagedResponse<ProductResponse> pagedResponse = PagedResponse.<ProductResponse>builder()
-                .data(products.getContent())
-                .totalElements(products.getTotalElements())
-                .totalPages(products.getTotalPages())
-                .currentPage(products.getNumber())
-                .pageSize(products.getSize())
-                .hasNext(products.hasNext())
-                .hasPrevious(products.hasPrevious())
-                .build();
-
-        ApiResponse<PagedResponse<ProductResponse>> response = ApiResponse.<PagedResponse<ProductResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Lấy danh sách sản phẩm theo khoảng giá thành công")
-                .data(pagedResponse)
-                .build();
-
-        return ResponseEntity.ok(response);
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.productList(), () -> {
+            PagedResponse<ProductResponse> pagedResponse;
+            if (cursor != null) {
+                pagedResponse = productService.getProductsByPriceRange(minPrice, maxPrice, cursor, pageable);
+            } else {
+                var products = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
+
+                pagedResponse = PagedResponse.<ProductResponse>builder()
+                        .data(products.getContent())
+                        .totalElements(products.getTotalElements())
+                        .totalPages(products.getTotalPages())
+                        .currentPage(products.getNumber())
+                        .pageSize(products.getSize())
+                        .hasNext(products.hasNext())
+                        .hasPrevious(products.hasPrevious())
+                        .build();
+            }
+
+            return ApiResponse.<PagedResponse<ProductResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Lấy danh sách sản phẩm theo khoảng giá thành công")
+                    .data(pagedResponse)
+                    .build();
+        });
     }
 
     /**
@@ -209,64 +242,70 @@ public class ProductController {
      */
     @GetMapping("/by-category/{categoryId}")
     @Operation(summary = "Get products by category",
-               description = "Get all products filtered by category ID")
+               description = "Get all products filtered by category ID, optionally including subcategories")
     public ResponseEntity<ApiResponse<PagedResponse<ProductResponse>>> getProductsByCategory(
             @PathVariable Long categoryId,
-            Pageable pageable) {
+            @RequestParam(required = false, defaultValue = "false") boolean includeSubcategories,
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            WebRequest request) {
         log.info("Getting products by category id: {}", categoryId);
 
-        var products = productService.getProductsByCategory(categoryId, pageable);
-
-        PagedResponse<ProductResponse> pagedResponse = PagedResponse.<ProductResponse>builder()
-                .data(products.getContent())
-                .totalElements(products.getTotalElements())
-                .totalPages(products.getTotalPages())
-                .currentPage(products.getNumber())
-                .pageSize(products.getSize())
-                .hasNext(products.hasNext())
-                .hasPrevious(products.hasPrevious())
-                .build();
-
-        ApiResponse<PagedResponse<ProductResponse>> response = ApiResponse.<PagedResponse<ProductResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Lấy danh sách sản phẩm theo danh mục thành công")
-                .data(pagedResponse)
-                .build();
-
-        return ResponseEntity.ok(response);
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.productList(), () -> {
+            PagedResponse<ProductResponse> pagedResponse;
+            if (cursor != null) {
+                pagedResponse = productService.getProductsByCategory(categoryId, includeSubcategories, cursor, pageable);
+            } else {
+                var products = productService.getProductsByCategory(categoryId, includeSubcategories, pageable);
+
+                pagedResponse = PagedResponse.<ProductResponse>builder()
+                        .data(products.getContent())
+                        .totalElements(products.getTotalElements())
+                        .totalPages(products.getTotalPages())
+                        .currentPage(products.getNumber())
+                        .pageSize(products.getSize())
+                        .hasNext(products.hasNext())
+                        .hasPrevious(products.hasPrevious())
+                        .build();
+            }
+
+            return ApiResponse.<PagedResponse<ProductResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Lấy danh sách sản phẩm theo danh mục thành công")
+                    .data(pagedResponse)
+                    .build();
+        });
     }
     /**
      * Semantic search products
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> search(@RequestParam String q) {
-
-        List<ProductResponse> result = productService.searchBySemanticSimilarity(q);
-
-        ApiResponse<List<ProductResponse>> response = ApiResponse.<List<ProductResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Tìm kiếm thành công")
-                .data(result)
-                .build();
-
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> search(@RequestParam String q, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.productList(), () -> {
+            List<ProductResponse> result = productService.searchBySemanticSimilarity(q);
+
+            return ApiResponse.<List<ProductResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Tìm kiếm thành công")
+                    .data(result)
+                    .build();
+        });
     }
 
     /**
      * Get similar products by product ID
      */
     @GetMapping("/product/{id}/similar")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getSimilar(@PathVariable Long id) {
-
-        List<ProductResponse> result = productService.getSimilarBooks(id);
-
-        ApiResponse<List<ProductResponse>> response = ApiResponse.<List<ProductResponse>>builder()
-                .statusCode(HttpStatus.OK.value())
-                .message("Lấy danh sách gợi ý thành công")
-                .data(result)
-                .build();
-
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getSimilar(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersion.etag(), httpCachePolicy.productList(), () -> {
+            List<ProductResponse> result = productService.getSimilarBooks(id);
+
+            return ApiResponse.<List<ProductResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Lấy danh sách gợi ý thành công")
+                    .data(result)
+                    .build();
+        });
     }
 }
 
@@ -3,6 +3,7 @@ package com.vn.backend.controller;
 import com.vn.backend.dto.request.CreateReviewRequest;
 import com.vn.backend.dto.request.UpdateReviewRequest;
 import com.vn.backend.dto.response.ApiResponse;
+import com.vn.backend.dto.response.PagedResponse;
 import com.vn.backend.dto.response.ReviewResponse;
 import com.vn.backend.service.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -39,11 +40,12 @@ public class ReviewController {
     @GetMapping("/admin/all")
     @SecurityRequirement(name = "bearer-key")
     @Operation(summary = "Get all reviews", description = "Get all reviews with pagination (Admin only)")
-    public ResponseEntity<ApiResponse<Page<ReviewResponse>>> getAllReviews(
+    public ResponseEntity<ApiResponse<?>> getAllReviews(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor) {
 
         log.info("Admin getting all reviews - page: {}, size: {}", page, size);
 
@@ -51,6 +53,17 @@ public class ReviewController {
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
+        // Chế độ cursor (keyset): trả về PagedResponse kèm nextCursor, không có tổng số bản ghi
+        if (cursor != null) {
+            PagedResponse<ReviewResponse> reviews = reviewService.getAllReviews(cursor, PageRequest.of(0, size, sort));
+
+            return ResponseEntity.ok(ApiResponse.<PagedResponse<ReviewResponse>>builder()
+                    .statusCode(HttpStatus.OK.value())
+                    .message("Đã truy xuất thành công các bài đánh giá")
+                    .data(reviews)
+                    .build());
+        }
+
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<ReviewResponse> reviews = reviewService.getAllReviews(pageable);
 
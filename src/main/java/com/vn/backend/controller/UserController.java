@@ -22,10 +22,11 @@ public class UserController {
     public ApiResponse<PagedResponse<UserResponse>> getAllUsers(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false, defaultValue = "false") boolean activeOnly,
+            @RequestParam(required = false) String cursor,
             Pageable pageable) {
         return ApiResponse.<PagedResponse<UserResponse>>builder()
                 .statusCode(HttpStatus.OK.value())
-                .data(userService.getAllUsers(keyword, pageable, activeOnly))
+                .data(userService.getAllUsers(keyword, cursor, pageable, activeOnly))
                 .message("Lấy danh sách users thành công")
                 .build();
     }
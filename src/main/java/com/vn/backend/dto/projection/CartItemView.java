@@ -0,0 +1,19 @@
+package com.vn.backend.dto.projection;
+
+public interface CartItemView {
+    Long getId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    String getProductImage();
+
+    Long getProductPrice();
+
+    Integer getProductDiscount();
+
+    Integer getQuantity();
+
+    Long getTotal();
+}
@@ -0,0 +1,18 @@
+package com.vn.backend.dto.projection;
+
+/**
+ * Thông tin sản phẩm cần cho một dòng giỏ hàng: tên, ảnh đầu tiên, giá, giảm giá và tồn kho
+ */
+public interface CartProductView {
+    Long getId();
+
+    String getName();
+
+    String getImageUrl();
+
+    Long getPrice();
+
+    Integer getDiscount();
+
+    Integer getStockQuantity();
+}
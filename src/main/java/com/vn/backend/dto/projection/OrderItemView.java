@@ -0,0 +1,19 @@
+package com.vn.backend.dto.projection;
+
+public interface OrderItemView {
+    Long getOrderId();
+
+    Long getId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Long getProductPrice();
+
+    Integer getProductDiscount();
+
+    Integer getQuantity();
+
+    Long getTotal();
+}
@@ -0,0 +1,9 @@
+package com.vn.backend.dto.projection;
+
+public interface ProductImageView {
+    Long getProductId();
+
+    Long getId();
+
+    String getImageUrl();
+}
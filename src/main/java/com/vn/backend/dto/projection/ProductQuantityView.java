@@ -0,0 +1,7 @@
+package com.vn.backend.dto.projection;
+
+public interface ProductQuantityView {
+    Long getProductId();
+
+    Long getQuantity();
+}
@@ -0,0 +1,43 @@
+package com.vn.backend.dto.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection các cột của bảng products dùng cho danh sách sản phẩm
+ * (không hydrate entity Product và các collection EAGER)
+ */
+public interface ProductSummaryView {
+    Long getId();
+
+    Long getCategoryId();
+
+    String getName();
+
+    String getShortDescription();
+
+    String getDescription();
+
+    String getDimension();
+
+    Integer getNumberOfPages();
+
+    String getIsbn();
+
+    Integer getStockQuantity();
+
+    Long getPrice();
+
+    Integer getDiscount();
+
+    String getPublisher();
+
+    LocalDateTime getPublisherDate();
+
+    Double getRatingAvg();
+
+    Integer getRatingCount();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
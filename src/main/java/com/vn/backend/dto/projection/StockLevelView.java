@@ -0,0 +1,7 @@
+package com.vn.backend.dto.projection;
+
+public interface StockLevelView {
+    Long getId();
+
+    Integer getStockQuantity();
+}
@@ -0,0 +1,9 @@
+package com.vn.backend.dto.projection;
+
+public interface UserContactView {
+    Long getId();
+
+    String getFullName();
+
+    String getEmail();
+}
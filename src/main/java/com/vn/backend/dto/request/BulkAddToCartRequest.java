@@ -0,0 +1,22 @@
+package com.vn.backend.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkAddToCartRequest {
+    @NotEmpty(message = "Danh sách sản phẩm là bắt buộc")
+    @Size(max = 100, message = "Tối đa 100 sản phẩm mỗi lần")
+    @Valid
+    private List<AddToCartRequest> items;
+}
@@ -1,5 +1,6 @@
 package com.vn.backend.dto.request;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -31,5 +32,14 @@ public class CreateCouponRequest {
     @NotNull(message = "Giá trị chiết khấu là bắt buộc")
     @Min(value = 1, message = "Giá trị giảm giá phải tối thiểu là 1")
     private Integer discount;
+
+    // Số lần tối đa mỗi người dùng được dùng mã (bỏ trống = không giới hạn)
+    @Min(value = 1, message = "Giới hạn mỗi người dùng tối thiểu là 1")
+    private Integer perUserLimit;
+
+    // Chia tồn kho thành nhiều stripe cho mã dùng đồng thời nhiều (bỏ trống = 1)
+    @Min(value = 1, message = "Số stripe tối thiểu là 1")
+    @Max(value = 64, message = "Số stripe tối đa là 64")
+    private Integer stripes;
 }
 
@@ -25,5 +25,8 @@ public class CreateOrderRequest {
     private List<Long> selectedCartItemIds;
 
     private String shippingMethod;
+
+    // Mã giảm giá áp dụng trên tổng tiền hàng (không tính phí vận chuyển), có thể bỏ trống
+    private String couponCode;
 }
 
@@ -1,5 +1,6 @@
 package com.vn.backend.dto.request;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
@@ -22,5 +23,13 @@ public class UpdateCouponRequest {
 
     @Min(value = 1, message = "Discount value must be at least 1")
     private Integer discount;
+
+    // 0 = bỏ giới hạn số lần mỗi người dùng
+    @Min(value = 0, message = "Per-user limit must be at least 0")
+    private Integer perUserLimit;
+
+    @Min(value = 1, message = "Stripes must be at least 1")
+    @Max(value = 64, message = "Stripes must be at most 64")
+    private Integer stripes;
 }
 
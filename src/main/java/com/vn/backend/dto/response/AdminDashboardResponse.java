@@ -15,4 +15,5 @@ public class AdminDashboardResponse {
     List<MonthlyDataResponse> monthlyData;
     List<CategoryDataResponse> categoryData;
     List<RecentOrderDataResponse> recentOrdersData;
+    List<DashboardSectionResponse> sections; // thời gian và trạng thái từng phần
 }
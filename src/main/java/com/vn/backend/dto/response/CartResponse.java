@@ -1,5 +1,6 @@
 package com.vn.backend.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,5 +18,9 @@ public class CartResponse {
     private List<CartItemResponse> items;
     private Long total;
     private Integer totalItems;
+    private Long version;
+    // Sản phẩm không thêm được khi gộp giỏ/mua lại (đã xóa hoặc hết hàng)
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<Long> unavailableProductIds;
 }
 
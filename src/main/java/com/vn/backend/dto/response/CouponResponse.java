@@ -18,6 +18,8 @@ public class CouponResponse {
     private Integer stockQuantity;
     private String discountType;
     private Integer discount;
+    private Integer perUserLimit;
+    private Integer stripes;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
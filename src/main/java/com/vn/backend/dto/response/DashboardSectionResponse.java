@@ -0,0 +1,15 @@
+package com.vn.backend.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DashboardSectionResponse {
+    String name; // stats, monthly, category, recentOrders
+    String status; // OK, TIMEOUT, ERROR
+    Long durationMs;
+}
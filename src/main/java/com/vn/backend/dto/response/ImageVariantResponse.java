@@ -0,0 +1,14 @@
+package com.vn.backend.dto.response;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageVariantResponse {
+    private int width;
+    private String format;
+    private String url;
+}
@@ -18,4 +18,6 @@ public class PagedResponse<T> {
     int pageSize;
     boolean hasNext;
     boolean hasPrevious;
+    // Chỉ có ở chế độ cursor (keyset); gửi lại qua tham số cursor để lấy trang kế tiếp
+    String nextCursor;
 }
@@ -1,7 +1,10 @@
 package com.vn.backend.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
+import java.util.List;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -10,4 +13,8 @@ import lombok.*;
 public class ProductImageResponse {
     private Long id;
     private String imageUrl;
+
+    // Bản thu nhỏ theo bề rộng tăng dần (rỗng nếu ảnh chưa/không có variant)
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<ImageVariantResponse> variants;
 }
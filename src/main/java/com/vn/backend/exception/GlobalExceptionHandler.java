@@ -5,6 +5,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -168,6 +169,12 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.UNAUTHORIZED, message, request);
     }
 
+    /* -------- Xung đột ghi đồng thời (optimistic lock, ví dụ giỏ hàng sửa ở hai tab) -------- */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLocking(OptimisticLockingFailureException ex, HttpServletRequest request) {
+        return build(HttpStatus.CONFLICT, "Dữ liệu vừa được cập nhật ở nơi khác, vui lòng tải lại và thử lại", request);
+    }
+
     /* -------------------- Fallback -------------------- */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleAll(Exception ex, HttpServletRequest request) {
@@ -0,0 +1,34 @@
+package com.vn.backend.exception;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Không đủ tồn kho cho một hoặc nhiều dòng của đơn hàng.
+ * Liệt kê toàn bộ các dòng thiếu thay vì dừng ở dòng đầu tiên.
+ */
+@Getter
+public class InsufficientStockException extends AppException {
+
+    private final List<StockShortfall> shortfalls;
+
+    public InsufficientStockException(List<StockShortfall> shortfalls) {
+        super(HttpStatus.BAD_REQUEST.value(), "Không đủ tồn kho - " + shortfalls.stream()
+                .map(s -> "product " + s.getProductId() + ": requested " + s.getRequested()
+                        + ", available " + s.getAvailable())
+                .collect(Collectors.joining("; ")));
+        this.shortfalls = List.copyOf(shortfalls);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StockShortfall {
+        private final Long productId;
+        private final int requested;
+        private final int available;
+    }
+}
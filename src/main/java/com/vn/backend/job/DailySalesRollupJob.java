@@ -0,0 +1,43 @@
+package com.vn.backend.job;
+
+import com.vn.backend.service.DailySalesRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@Component
+@Slf4j
+public class DailySalesRollupJob {
+    @Autowired
+    private DailySalesRollupService dailySalesRollupService;
+
+    @Value("${jobs.rollup.reconcile-days:7}")
+    private int reconcileDays;
+
+    @Value("${jobs.rollup.zone}")
+    private String zone;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            dailySalesRollupService.backfillIfEmpty();
+        } catch (RuntimeException e) {
+            log.error("Failed to backfill daily sales rollup", e);
+        }
+    }
+
+    // Đối soát lại các ngày gần đây (đơn đổi trạng thái nhiều ngày sau khi tạo, dữ liệu bị xóa...)
+    @Scheduled(cron = "${jobs.rollup.cron}", zone = "${jobs.rollup.zone}")
+    public void reconcileRecentDays() {
+        // Cùng múi giờ với cron, không theo múi giờ mặc định của JVM
+        LocalDate today = LocalDate.now(ZoneId.of(zone));
+        dailySalesRollupService.reconcile(today.minusDays(reconcileDays), today);
+    }
+}
@@ -0,0 +1,152 @@
+package com.vn.backend.job;
+
+import com.vn.backend.model.EmailOutbox;
+import com.vn.backend.repository.EmailOutboxRepository;
+import com.vn.backend.service.EmailOutboxService;
+import com.vn.backend.service.EmailService;
+import com.vn.backend.util.enums.EmailStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gửi nền các email trong email_outbox.
+ * Mỗi lượt nhận tối đa batch-size * connections email đến hạn, chia thành các lô và gửi song song
+ * trên tối đa "connections" kết nối SMTP (mỗi lô một kết nối); lặp lại tới khi hết email đến hạn.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxService emailOutboxService;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final int batchSize;
+    private final int connections;
+    private final Duration lease;
+    private final Duration retention;
+
+    private final ExecutorService senders;
+    // Đánh thức sau commit chạy trên thread riêng để không giữ request
+    private final ExecutorService trigger = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "email-outbox-trigger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean pendingWakeUp = new AtomicBoolean();
+
+    public EmailOutboxDispatcher(EmailOutboxService emailOutboxService,
+                                 EmailOutboxRepository emailOutboxRepository,
+                                 EmailService emailService,
+                                 @Value("${email.outbox.batch-size:50}") int batchSize,
+                                 @Value("${email.outbox.connections:2}") int connections,
+                                 @Value("${email.outbox.lease:PT5M}") Duration lease,
+                                 @Value("${email.outbox.retention:P30D}") Duration retention) {
+        this.emailOutboxService = emailOutboxService;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.batchSize = batchSize;
+        this.connections = connections;
+        this.lease = lease;
+        this.retention = retention;
+        this.senders = Executors.newFixedThreadPool(connections, r -> {
+            Thread thread = new Thread(r, "email-outbox-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Yêu cầu một lượt gửi ngay (gọi sau khi transaction ghi email commit)
+     */
+    public void wakeUp() {
+        if (pendingWakeUp.compareAndSet(false, true)) {
+            trigger.execute(() -> {
+                pendingWakeUp.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:PT5S}")
+    public void dispatch() {
+        // Một lượt tại một thời điểm trên mỗi node; node khác được tách bằng SKIP LOCKED
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<EmailOutbox> due;
+            do {
+                due = emailOutboxService.claimDue(batchSize * connections, lease);
+                if (!due.isEmpty()) {
+                    send(due);
+                }
+            } while (due.size() == batchSize * connections);
+        } catch (RuntimeException e) {
+            log.error("Email outbox dispatch failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void send(List<EmailOutbox> emails) {
+        List<CompletableFuture<Map<Long, Exception>>> batches = new ArrayList<>();
+        for (int from = 0; from < emails.size(); from += batchSize) {
+            List<EmailOutbox> batch = emails.subList(from, Math.min(emails.size(), from + batchSize));
+            batches.add(CompletableFuture.supplyAsync(() -> emailService.sendBatch(batch), senders));
+        }
+
+        Map<Long, Exception> failures = new HashMap<>();
+        for (int i = 0; i < batches.size(); i++) {
+            try {
+                failures.putAll(batches.get(i).join());
+            } catch (RuntimeException e) {
+                int from = i * batchSize;
+                emails.subList(from, Math.min(emails.size(), from + batchSize))
+                        .forEach(email -> failures.put(email.getId(), e));
+            }
+        }
+
+        List<Long> sent = emails.stream()
+                .map(EmailOutbox::getId)
+                .filter(id -> !failures.containsKey(id))
+                .toList();
+        emailOutboxService.markSent(sent);
+        if (!failures.isEmpty()) {
+            emailOutboxService.markFailed(failures);
+        }
+        log.info("Email outbox: sent {}, failed {}", sent.size(), failures.size());
+    }
+
+    @Scheduled(cron = "${jobs.cleanup.cron}", zone = "${jobs.cleanup.zone}")
+    public void purgeSent() {
+        int deleted = emailOutboxRepository.deleteSentBefore(EmailStatus.SENT, LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} sent emails older than {}", deleted, retention);
+        }
+        long dead = emailOutboxRepository.countByStatus(EmailStatus.DEAD);
+        if (dead > 0) {
+            log.warn("Email outbox has {} dead-lettered emails", dead);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        trigger.shutdownNow();
+        senders.shutdown();
+    }
+}
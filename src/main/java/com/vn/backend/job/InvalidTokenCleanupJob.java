@@ -1,5 +1,6 @@
 package com.vn.backend.job;
 
+import com.vn.backend.config.jwt.TokenBlacklist;
 import com.vn.backend.repository.InvalidTokenRepository;
 import com.vn.backend.repository.RefreshTokenRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,9 @@ public class InvalidTokenCleanupJob {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Autowired
+    private TokenBlacklist tokenBlacklist;
+
     @Scheduled(cron = "${jobs.cleanup.cron}", zone = "${jobs.cleanup.zone}")
     public void cleanExpiredTokens() {
         LocalDateTime now = LocalDateTime.now();
@@ -25,6 +29,8 @@ public class InvalidTokenCleanupJob {
         long deletedCount2 = refreshTokenRepository.deleteExpired(now);
 
         if (deletedCount1 > 0) {
+            // Bloom filter không xóa được phần tử: dựng lại từ các token còn lại
+            tokenBlacklist.rebuildEverywhere();
             log.info("Cleaned InvalidToken: {}, RefreshToken: {} expired tokens at {}", deletedCount1, deletedCount2, now);
         } else {
             log.debug("No expired tokens to clean at {}", now);
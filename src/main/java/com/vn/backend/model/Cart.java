@@ -17,10 +17,18 @@ public class Cart {
     @Column(name = "id")
     Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     User customer;
 
+    // Tổng tiền và tổng số lượng các item, cập nhật bằng delta cùng lúc với item
     @Column(name = "total")
     Long total;
+
+    @Column(name = "item_count", nullable = false)
+    int itemCount;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    Long version;
 }
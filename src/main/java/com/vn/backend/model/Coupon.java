@@ -40,6 +40,15 @@ public class Coupon {
     @Column(name = "discount", nullable = false)
     int discount;
 
+    // Số lần tối đa mỗi người dùng được dùng mã; null = không giới hạn
+    @Column(name = "per_user_limit")
+    Integer perUserLimit;
+
+    // > 1: tồn kho chia vào coupon_stock_stripes, stock_quantity chỉ là tổng đồng bộ định kỳ để hiển thị
+    @Builder.Default
+    @Column(name = "stripes", nullable = false)
+    int stripes = 1;
+
     @PrePersist
     public void prePersist() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,46 @@
+package com.vn.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Một phần tồn kho của mã giảm giá có stripes > 1; lượt dùng trừ trên một stripe bất kỳ còn hàng
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "coupon_stock_stripes", uniqueConstraints = @UniqueConstraint(
+        name = "uc_coupon_stock_stripes", columnNames = {"coupon_id", "stripe"}))
+public class CouponStockStripe {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "coupon_id", nullable = false)
+    Coupon coupon;
+
+    @Column(name = "stripe", nullable = false)
+    int stripe;
+
+    @Column(name = "remaining", nullable = false)
+    int remaining;
+}
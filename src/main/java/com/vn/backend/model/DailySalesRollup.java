@@ -0,0 +1,88 @@
+package com.vn.backend.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.vn.backend.util.enums.OrderStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Số liệu tổng hợp một ngày: số đơn, doanh thu theo trạng thái đơn, user mới và sản phẩm mới
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "daily_sales_rollup")
+public class DailySalesRollup {
+    @Id
+    @Column(name = "sale_date")
+    LocalDate saleDate;
+
+    @Column(name = "order_count", nullable = false)
+    long orderCount;
+
+    @Column(name = "pending_revenue", nullable = false)
+    long pendingRevenue;
+
+    @Column(name = "confirmed_revenue", nullable = false)
+    long confirmedRevenue;
+
+    @Column(name = "processing_revenue", nullable = false)
+    long processingRevenue;
+
+    @Column(name = "shipping_revenue", nullable = false)
+    long shippingRevenue;
+
+    @Column(name = "delivered_revenue", nullable = false)
+    long deliveredRevenue;
+
+    @Column(name = "cancelled_revenue", nullable = false)
+    long cancelledRevenue;
+
+    @Column(name = "new_users", nullable = false)
+    long newUsers;
+
+    @Column(name = "new_products", nullable = false)
+    long newProducts;
+
+    @Column(name = "updated_at", nullable = false)
+    LocalDateTime updatedAt;
+
+    /**
+     * Cộng doanh thu vào cột tương ứng với trạng thái đơn
+     */
+    public void addRevenue(OrderStatus status, long amount) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case PENDING -> pendingRevenue += amount;
+            case CONFIRMED -> confirmedRevenue += amount;
+            case PROCESSING -> processingRevenue += amount;
+            case SHIPPING -> shippingRevenue += amount;
+            case DELIVERED -> deliveredRevenue += amount;
+            case CANCELLED -> cancelledRevenue += amount;
+        }
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+}
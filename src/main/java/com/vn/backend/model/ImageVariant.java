@@ -0,0 +1,66 @@
+package com.vn.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Một bản thu nhỏ (bề rộng cố định, một định dạng) của ảnh gốc có URL sourceUrl
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "image_variants", uniqueConstraints = @UniqueConstraint(
+        name = "uc_image_variants_source", columnNames = {"source_url", "width", "format"}))
+public class ImageVariant {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    Long id;
+
+    @Column(name = "source_url", nullable = false)
+    String sourceUrl;
+
+    // Null với variant sinh trước V12
+    @Column(name = "source_storage_id")
+    String sourceStorageId;
+
+    @Column(name = "width", nullable = false)
+    int width;
+
+    @Column(name = "format", nullable = false, length = 10)
+    String format;
+
+    @Column(name = "url", nullable = false)
+    String url;
+
+    @Column(name = "storage_id", nullable = false)
+    String storageId;
+
+    @Column(name = "bytes", nullable = false)
+    long bytes;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import com.vn.backend.util.enums.OrderStatus;
 import com.vn.backend.util.enums.PaymentMethod;
 import com.vn.backend.util.enums.PaymentStatus;
+import com.vn.backend.util.enums.StockReservationStatus;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -70,6 +71,10 @@ public class Order {
     @Column(name = "total_item")
     int totalItem;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stock_status")
+    StockReservationStatus stockStatus;
+
     @PrePersist
     public void prePersist() {
         createdAt = LocalDateTime.now();
@@ -10,7 +10,8 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @Builder(toBuilder = true)
 @FieldDefaults(level = AccessLevel.PRIVATE)
-@Table(name = "order_coupons")
+@Table(name = "order_coupons", uniqueConstraints = @UniqueConstraint(
+        name = "uc_order_coupons_order", columnNames = "order_id"))
 public class OrderCoupon {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -24,4 +25,16 @@ public class OrderCoupon {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "coupon_id", nullable = false)
     Coupon coupon;
+
+    // Người dùng mã, để đếm giới hạn mỗi người mà không cần join orders
+    @Column(name = "user_id")
+    Long userId;
+
+    // Stripe tồn kho đã trừ khi dùng mã (-1 = trừ thẳng trên coupons), hoàn trả đúng chỗ khi hủy đơn
+    @Builder.Default
+    @Column(name = "stripe", nullable = false)
+    int stripe = -1;
+
+    @Column(name = "discount_amount", nullable = false)
+    long discountAmount;
 }
@@ -1,9 +1,17 @@
 package com.vn.backend.repository;
 
+import com.vn.backend.dto.projection.AuthorView;
 import com.vn.backend.model.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
+    @Query("SELECT a.product.id AS productId, a.id AS id, a.name AS name FROM Author a WHERE a.product.id IN :productIds ORDER BY a.id")
+    List<AuthorView> findViewsByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
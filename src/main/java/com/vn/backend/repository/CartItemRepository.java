@@ -1,9 +1,13 @@
 package com.vn.backend.repository;
 
+import com.vn.backend.dto.projection.CartItemView;
 import com.vn.backend.model.Cart;
 import com.vn.backend.model.CartItem;
 import com.vn.backend.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,5 +20,17 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
     void deleteByCartId(Long cartId);
+
+    // Các item của giỏ kèm thông tin tóm tắt sản phẩm và ảnh đầu tiên trong một truy vấn (không hydrate Product)
+    @Query("SELECT ci.id AS id, p.id AS productId, p.name AS productName, " +
+            "(SELECT i.imageUrl FROM ProductImage i WHERE i.id = " +
+            "(SELECT MIN(i2.id) FROM ProductImage i2 WHERE i2.product.id = p.id)) AS productImage, " +
+            "p.price AS productPrice, p.discount AS productDiscount, ci.quantity AS quantity, ci.total AS total " +
+            "FROM CartItem ci JOIN ci.product p WHERE ci.cart.id = :cartId ORDER BY ci.id")
+    List<CartItemView> findViewsByCartId(@Param("cartId") Long cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int deleteAllByCartId(@Param("cartId") Long cartId);
 }
 
@@ -1,7 +1,12 @@
 package com.vn.backend.repository;
 
 import com.vn.backend.model.Coupon;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -14,5 +19,28 @@ public interface CouponRepository extends JpaRepository<Coupon, Long> {
     boolean existsByCode(String code);
     List<Coupon> findByStockQuantityGreaterThan(int quantity);
     List<Coupon> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
-}
 
+    // Khóa dòng mã (admin sửa mã): chặn lượt trừ tồn kho trực tiếp và đọc stock_quantity mới nhất
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Coupon c WHERE c.id = :id")
+    Optional<Coupon> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT c.stockQuantity FROM Coupon c WHERE c.id = :id")
+    Optional<Integer> findStockQuantityById(@Param("id") Long id);
+
+    // Trừ một lượt có điều kiện còn hàng; trả về 0 nếu mã đã hết
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Coupon c SET c.stockQuantity = c.stockQuantity - 1 WHERE c.id = :id AND c.stockQuantity > 0")
+    int decrementStock(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Coupon c SET c.stockQuantity = c.stockQuantity + 1 WHERE c.id = :id")
+    int incrementStock(@Param("id") Long id);
+
+    // Đồng bộ stock_quantity (chỉ để hiển thị/lọc mã còn hàng) của các mã chia stripe từ tổng các stripe
+    @Modifying
+    @Query("UPDATE Coupon c SET c.stockQuantity = " +
+            "(SELECT COALESCE(SUM(s.remaining), 0) FROM CouponStockStripe s WHERE s.coupon.id = c.id) " +
+            "WHERE c.stripes > 1")
+    int syncStripedStock();
+}
@@ -0,0 +1,39 @@
+package com.vn.backend.repository;
+
+import com.vn.backend.model.CouponStockStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CouponStockStripeRepository extends JpaRepository<CouponStockStripe, Long> {
+
+    // Khóa các stripe của một mã theo thứ tự stripe: lượt dùng đang chờ không trừ được cho tới khi chia lại xong
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CouponStockStripe s WHERE s.coupon.id = :couponId ORDER BY s.stripe")
+    List<CouponStockStripe> lockByCouponId(@Param("couponId") Long couponId);
+
+    @Query("SELECT COALESCE(SUM(s.remaining), 0) FROM CouponStockStripe s WHERE s.coupon.id = :couponId")
+    int sumRemaining(@Param("couponId") Long couponId);
+
+    // Trừ một lượt trên một stripe có điều kiện còn hàng; trả về 0 nếu stripe đã hết
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CouponStockStripe s SET s.remaining = s.remaining - 1 " +
+            "WHERE s.coupon.id = :couponId AND s.stripe = :stripe AND s.remaining > 0")
+    int decrement(@Param("couponId") Long couponId, @Param("stripe") int stripe);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CouponStockStripe s SET s.remaining = s.remaining + 1 " +
+            "WHERE s.coupon.id = :couponId AND s.stripe = :stripe")
+    int increment(@Param("couponId") Long couponId, @Param("stripe") int stripe);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CouponStockStripe s WHERE s.coupon.id = :couponId")
+    int deleteByCouponId(@Param("couponId") Long couponId);
+}
@@ -0,0 +1,62 @@
+package com.vn.backend.repository;
+
+import com.vn.backend.model.DailySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, LocalDate> {
+
+    List<DailySalesRollup> findBySaleDateBetweenOrderBySaleDate(LocalDate from, LocalDate to);
+
+    // Tổng toàn thời gian: [số đơn, doanh thu DELIVERED, user, sản phẩm]
+    @Query("SELECT COALESCE(SUM(r.orderCount), 0), COALESCE(SUM(r.deliveredRevenue), 0), " +
+            "COALESCE(SUM(r.newUsers), 0), COALESCE(SUM(r.newProducts), 0) FROM DailySalesRollup r")
+    List<Object[]> sumTotals();
+
+    // Tổng theo tháng trong [from, to]: [năm, tháng, số đơn, doanh thu DELIVERED, user, sản phẩm]
+    @Query("SELECT YEAR(r.saleDate), MONTH(r.saleDate), SUM(r.orderCount), SUM(r.deliveredRevenue), " +
+            "SUM(r.newUsers), SUM(r.newProducts) FROM DailySalesRollup r " +
+            "WHERE r.saleDate BETWEEN :from AND :to " +
+            "GROUP BY YEAR(r.saleDate), MONTH(r.saleDate)")
+    List<Object[]> sumByMonth(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(r.newProducts), 0) FROM DailySalesRollup r WHERE r.saleDate < :before")
+    long sumNewProductsBefore(@Param("before") LocalDate before);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.saleDate BETWEEN :from AND :to")
+    int deleteBySaleDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Cộng dồn delta vào dòng của một ngày (tạo dòng nếu chưa có) trong một câu lệnh.
+     * Chạy trong transaction riêng vì được gọi sau khi transaction nghiệp vụ đã commit.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sale_date, order_count, pending_revenue, confirmed_revenue, " +
+            "processing_revenue, shipping_revenue, delivered_revenue, cancelled_revenue, new_users, new_products, updated_at) " +
+            "VALUES (:#{#d.saleDate}, :#{#d.orderCount}, :#{#d.pendingRevenue}, :#{#d.confirmedRevenue}, " +
+            ":#{#d.processingRevenue}, :#{#d.shippingRevenue}, :#{#d.deliveredRevenue}, :#{#d.cancelledRevenue}, " +
+            ":#{#d.newUsers}, :#{#d.newProducts}, :now) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "pending_revenue = pending_revenue + VALUES(pending_revenue), " +
+            "confirmed_revenue = confirmed_revenue + VALUES(confirmed_revenue), " +
+            "processing_revenue = processing_revenue + VALUES(processing_revenue), " +
+            "shipping_revenue = shipping_revenue + VALUES(shipping_revenue), " +
+            "delivered_revenue = delivered_revenue + VALUES(delivered_revenue), " +
+            "cancelled_revenue = cancelled_revenue + VALUES(cancelled_revenue), " +
+            "new_users = new_users + VALUES(new_users), " +
+            "new_products = new_products + VALUES(new_products), " +
+            "updated_at = VALUES(updated_at)", nativeQuery = true)
+    int increment(@Param("d") DailySalesRollup delta, @Param("now") LocalDateTime now);
+}
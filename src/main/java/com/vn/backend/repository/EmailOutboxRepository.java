@@ -0,0 +1,44 @@
+package com.vn.backend.repository;
+
+import com.vn.backend.model.EmailOutbox;
+import com.vn.backend.util.enums.EmailStatus;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Khóa các email đến hạn gửi (PENDING, hoặc SENDING đã hết hạn nhận do dispatcher chết giữa chừng).
+     * SKIP LOCKED để nhiều node cùng chạy dispatcher không nhận trùng dòng.
+     */
+    @Query(value = "SELECT id FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.nextAttemptAt = :leaseUntil WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("status") EmailStatus status,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.sentAt = :now, e.attempts = e.attempts + 1, " +
+            "e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("status") EmailStatus status,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = :status AND e.sentAt < :time")
+    int deleteSentBefore(@Param("status") EmailStatus status, @Param("time") LocalDateTime time);
+
+    long countByStatus(EmailStatus status);
+}
@@ -0,0 +1,16 @@
+package com.vn.backend.repository;
+
+import com.vn.backend.model.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+
+    List<ImageVariant> findBySourceUrlInOrderByWidth(Collection<String> sourceUrls);
+
+    List<ImageVariant> findBySourceStorageId(String sourceStorageId);
+}
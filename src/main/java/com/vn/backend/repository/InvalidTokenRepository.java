@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface InvalidTokenRepository extends JpaRepository<InvalidTokens, String> {
@@ -16,4 +17,14 @@ public interface InvalidTokenRepository extends JpaRepository<InvalidTokens, Str
     @Transactional
     @Query("DELETE FROM InvalidTokens t WHERE t.expiredAt < :time")
     int deleteExpired(@Param("time") LocalDateTime time);
+
+    @Query("SELECT t.token FROM InvalidTokens t WHERE t.expiredAt IS NULL OR t.expiredAt >= :time")
+    List<String> findActiveTokens(@Param("time") LocalDateTime time);
+
+    // Token bị thu hồi từ thời điểm since: [token, createdAt]
+    @Query("SELECT t.token, t.createdAt FROM InvalidTokens t WHERE t.createdAt >= :since ORDER BY t.createdAt")
+    List<Object[]> findRevokedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT MAX(t.createdAt) FROM InvalidTokens t")
+    LocalDateTime findLastCreatedAt();
 }
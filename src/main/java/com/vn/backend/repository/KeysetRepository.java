@@ -0,0 +1,127 @@
+package com.vn.backend.repository;
+
+import com.vn.backend.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Phân trang keyset (seek) dùng chung cho các entity có khóa chính "id".
+ * Truy vấn dạng WHERE (key, id) > (:lastKey, :lastId) ORDER BY key, id LIMIT size + 1,
+ * không cần OFFSET và không chạy COUNT(*).
+ * Khóa NULL xếp như MySQL: đầu tiên khi tăng dần, cuối cùng khi giảm dần.
+ */
+@Repository
+public class KeysetRepository {
+
+    private static final String ID = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Lấy một trang entity sau vị trí cursor
+     */
+    public <T> KeysetSlice<T> findSlice(Class<T> type, Specification<T> filter,
+                                        Sort.Order order, KeysetCursor after, int size) {
+        return seek(type, filter, order, after, size, root -> root, type);
+    }
+
+    /**
+     * Chỉ lấy ID của một trang sau vị trí cursor (dùng khi đã có read model riêng)
+     */
+    public <T> KeysetSlice<Long> findIdSlice(Class<T> type, Specification<T> filter,
+                                             Sort.Order order, KeysetCursor after, int size) {
+        return seek(type, filter, order, after, size, root -> root.<Long>get(ID), Long.class);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T, R> KeysetSlice<R> seek(Class<T> type, Specification<T> filter, Sort.Order order,
+                                       KeysetCursor after, int size,
+                                       Function<Root<T>, Selection<?>> selection, Class<R> resultType) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+
+        Path<Comparable> key = root.get(order.getProperty());
+        Path<Comparable> id = root.get(ID);
+        boolean ascending = order.isAscending();
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (after != null) {
+            Comparable lastId = after.getLastId();
+            Predicate idAfter = after(cb, id, lastId, ascending);
+            if (ID.equals(order.getProperty())) {
+                predicates.add(idAfter);
+            } else {
+                Comparable lastValue = (Comparable) after.lastValueAs(key.getJavaType());
+                predicates.add(afterKey(cb, key, lastValue, idAfter, ascending));
+            }
+        }
+
+        query.multiselect(selection.apply(root), key, id)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(id) : cb.desc(id));
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > size;
+        List<Tuple> page = hasNext ? rows.subList(0, size) : rows;
+
+        List<R> content = new ArrayList<>(page.size());
+        for (Tuple row : page) {
+            content.add(row.get(0, resultType));
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = page.get(page.size() - 1);
+            nextCursor = KeysetCursor.of(order, last.get(1), last.get(2, Long.class)).encode();
+        }
+        return new KeysetSlice<>(content, nextCursor);
+    }
+
+    /**
+     * Bản ghi đứng sau (lastValue, lastId): so sánh trên khóa không NULL, cộng nhánh IS NULL cho các khóa NULL
+     * (chưa tới khi giảm dần; khi tăng dần thì mọi khóa không NULL đều đứng sau khóa NULL)
+     */
+    @SuppressWarnings("rawtypes")
+    private static Predicate afterKey(CriteriaBuilder cb, Path<Comparable> key, Comparable lastValue,
+                                      Predicate idAfter, boolean ascending) {
+        if (lastValue == null) {
+            Predicate nullsAfter = cb.and(cb.isNull(key), idAfter);
+            return ascending ? cb.or(nullsAfter, cb.isNotNull(key)) : nullsAfter;
+        }
+        Predicate valuesAfter = cb.or(
+                after(cb, key, lastValue, ascending),
+                cb.and(cb.equal(key, lastValue), idAfter));
+        return ascending ? valuesAfter : cb.or(valuesAfter, cb.isNull(key));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Expression<Comparable> path, Comparable value, boolean ascending) {
+        return ascending ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+}
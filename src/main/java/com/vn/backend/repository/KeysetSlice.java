@@ -0,0 +1,23 @@
+package com.vn.backend.repository;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả của phân trang keyset (không có tổng số bản ghi)
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class KeysetSlice<T> {
+    List<T> content;
+    String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
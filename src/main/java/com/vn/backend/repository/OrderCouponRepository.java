@@ -0,0 +1,29 @@
+package com.vn.backend.repository;
+
+import com.vn.backend.model.OrderCoupon;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderCouponRepository extends JpaRepository<OrderCoupon, Long> {
+
+    // Đọc khóa (bản đã commit mới nhất, không theo snapshot của transaction) các lượt dùng mã của một người
+    @Query(value = "SELECT id FROM order_coupons WHERE coupon_id = :couponId AND user_id = :userId FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockRedemptionIds(@Param("couponId") Long couponId, @Param("userId") Long userId);
+
+    boolean existsByCouponId(Long couponId);
+
+    Optional<OrderCoupon> findByOrderId(Long orderId);
+
+    // Xóa có điều kiện để hai luồng hủy đơn chạy song song chỉ hoàn trả lượt dùng một lần
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM OrderCoupon oc WHERE oc.id = :id")
+    int deleteRedemption(@Param("id") Long id);
+}
@@ -1,10 +1,15 @@
 package com.vn.backend.repository;
 
+import com.vn.backend.dto.projection.OrderItemView;
+import com.vn.backend.dto.projection.ProductQuantityView;
 import com.vn.backend.model.Order;
 import com.vn.backend.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,5 +17,16 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder(Order order);
     List<OrderItem> findByOrderId(Long orderId);
     void deleteByOrderId(Long orderId);
+
+    // Tổng số lượng theo từng sản phẩm của một đơn (dùng khi hoàn trả tồn kho)
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS quantity FROM OrderItem oi " +
+            "WHERE oi.order.id = :orderId GROUP BY oi.product.id")
+    List<ProductQuantityView> sumQuantityByProduct(@Param("orderId") Long orderId);
+
+    // Nạp theo lô các dòng của nhiều đơn cùng thông tin sản phẩm (không hydrate Product và các collection EAGER)
+    @Query("SELECT oi.order.id AS orderId, oi.id AS id, p.id AS productId, p.name AS productName, " +
+            "p.price AS productPrice, p.discount AS productDiscount, oi.quantity AS quantity, oi.total AS total " +
+            "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemView> findViewsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
 
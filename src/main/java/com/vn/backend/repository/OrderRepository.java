@@ -3,9 +3,11 @@ package com.vn.backend.repository;
 import com.vn.backend.model.Order;
 import com.vn.backend.model.User;
 import com.vn.backend.util.enums.OrderStatus;
+import com.vn.backend.util.enums.StockReservationStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,6 +21,8 @@ import java.util.Optional;
 public interface OrderRepository extends JpaRepository<Order, Long> {
     Page<Order> findByUser(User user, Pageable pageable);
 
+    Page<Order> findByUserId(Long userId, Pageable pageable);
+
     List<Order> findByUser(User user);
 
     List<Order> findByStatus(OrderStatus status);
@@ -27,6 +31,10 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Optional<Order> findByIdAndUser(Long id, User user);
 
+    Optional<Order> findByIdAndUserId(Long id, Long userId);
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status = :status")
     BigDecimal getTotalRevenue(@Param("status") OrderStatus status);
 
@@ -53,6 +61,15 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
     List<Object[]> countOrdersByStatus();
 
+    // Tổng hợp theo ngày tạo và trạng thái: [ngày, trạng thái, số đơn, doanh thu]
+    @Query("SELECT CAST(o.createdAt AS LocalDate), o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
+            "WHERE o.createdAt >= :start AND o.createdAt < :end " +
+            "GROUP BY CAST(o.createdAt AS LocalDate), o.status")
+    List<Object[]> summarizeByDayAndStatus(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(o.createdAt) FROM Order o")
+    LocalDateTime findFirstCreatedAt();
+
     @Query("SELECT o FROM Order o JOIN o.user u WHERE " +
             "(:keyword IS NULL OR :keyword = '' OR LOWER(u.fullName) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
             "(:status IS NULL OR o.status = :status)")
@@ -61,5 +78,18 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             @Param("status") OrderStatus status,
             Pageable pageable
     );
+
+    // Chuyển trạng thái giữ tồn kho có điều kiện; trả về 0 nếu đơn không ở trạng thái "from"
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.stockStatus = :to WHERE o.id = :orderId AND o.stockStatus = :from")
+    int transitionStockStatus(@Param("orderId") Long orderId,
+                              @Param("from") StockReservationStatus from,
+                              @Param("to") StockReservationStatus to);
+
+    // Đơn tạo trước khi có cột stock_status (NULL) được coi như đang giữ tồn kho
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.stockStatus = :to WHERE o.id = :orderId " +
+            "AND (o.stockStatus IS NULL OR o.stockStatus = com.vn.backend.util.enums.StockReservationStatus.RESERVED)")
+    int transitionReservedStock(@Param("orderId") Long orderId, @Param("to") StockReservationStatus to);
 }
 
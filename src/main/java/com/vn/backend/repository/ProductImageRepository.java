@@ -1,9 +1,20 @@
 package com.vn.backend.repository;
 
+import com.vn.backend.dto.projection.ProductImageView;
 import com.vn.backend.model.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+    @Query("SELECT i.product.id AS productId, i.id AS id, i.imageUrl AS imageUrl FROM ProductImage i WHERE i.product.id IN :productIds ORDER BY i.id")
+    List<ProductImageView> findViewsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT DISTINCT i.product.id FROM ProductImage i WHERE i.imageUrl = :imageUrl")
+    List<Long> findProductIdsByImageUrl(@Param("imageUrl") String imageUrl);
 }
@@ -7,9 +7,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.vn.backend.dto.projection.CartProductView;
+import com.vn.backend.dto.projection.ProductSummaryView;
+import com.vn.backend.dto.projection.StockLevelView;
 import com.vn.backend.model.Category;
 import com.vn.backend.model.Product;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
@@ -47,5 +54,95 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT c FROM Product c WHERE " +
             "c.name LIKE %:keyword%")
     Page<Product> findByKeyword(@Param("keyword") String keyword, Pageable pageable);
-}
 
+    // ---------- Projection cho danh sách sản phẩm (không hydrate entity) ----------
+
+    String SUMMARY_SELECT = "SELECT p.id AS id, p.category.id AS categoryId, p.name AS name, " +
+            "p.shortDescription AS shortDescription, p.description AS description, p.dimension AS dimension, " +
+            "p.numberOfPages AS numberOfPages, p.isbn AS isbn, p.stockQuanity AS stockQuantity, " +
+            "p.price AS price, p.discount AS discount, p.publisher AS publisher, " +
+            "p.publisherDate AS publisherDate, p.ratingAvg AS ratingAvg, p.ratingCount AS ratingCount, " +
+            "p.createdAt AS createdAt, p.updatedAt AS updatedAt ";
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p",
+            countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummaryView> findAllSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "FROM Product p WHERE p.id IN :ids")
+    List<ProductSummaryView> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE p.category.id = :categoryId",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId")
+    Page<ProductSummaryView> findSummariesByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    // Lọc theo cả cây danh mục (danh mục và các danh mục con cháu)
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE p.category.id IN :categoryIds",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.id IN :categoryIds")
+    Page<ProductSummaryView> findSummariesByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds,
+                                                         Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice")
+    Page<ProductSummaryView> findSummariesByPriceBetween(@Param("minPrice") Long minPrice,
+                                                         @Param("maxPrice") Long maxPrice,
+                                                         Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE p.stockQuanity > :minStock",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.stockQuanity > :minStock")
+    Page<ProductSummaryView> findSummariesByStockGreaterThan(@Param("minStock") Integer minStock, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE p.ratingAvg >= :minRating",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.ratingAvg >= :minRating")
+    Page<ProductSummaryView> findSummariesByRatingAtLeast(@Param("minRating") Double minRating, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE p.ratingAvg BETWEEN :minRating AND :maxRating",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.ratingAvg BETWEEN :minRating AND :maxRating")
+    Page<ProductSummaryView> findSummariesByRatingBetween(@Param("minRating") Double minRating,
+                                                          @Param("maxRating") Double maxRating,
+                                                          Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    Page<ProductSummaryView> findSummariesByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    // Số sản phẩm mới theo ngày: [ngày, số lượng]
+    @Query("SELECT CAST(p.createdAt AS LocalDate), COUNT(p) FROM Product p " +
+            "WHERE p.createdAt >= :start AND p.createdAt < :end GROUP BY CAST(p.createdAt AS LocalDate)")
+    List<Object[]> countByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(p.createdAt) FROM Product p")
+    LocalDateTime findFirstCreatedAt();
+
+    // Sản phẩm được tạo/sửa từ thời điểm since: [id, updatedAt]
+    @Query("SELECT p.id, p.updatedAt FROM Product p WHERE p.updatedAt >= :since ORDER BY p.updatedAt")
+    List<Object[]> findUpdatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    LocalDateTime findLastUpdatedAt();
+
+    @Query("SELECT p.id AS id, p.name AS name, " +
+            "(SELECT i.imageUrl FROM ProductImage i WHERE i.id = " +
+            "(SELECT MIN(i2.id) FROM ProductImage i2 WHERE i2.product.id = p.id)) AS imageUrl, " +
+            "p.price AS price, p.discount AS discount, p.stockQuanity AS stockQuantity " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<CartProductView> findCartProductsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Khóa các dòng tồn kho theo thứ tự id tăng dần (tránh deadlock giữa các đơn đặt cùng lúc)
+    @Query(value = "SELECT id AS id, stock_quantity AS stockQuantity FROM products " +
+            "WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<StockLevelView> lockStockLevels(@Param("ids") Collection<Long> ids);
+
+    @Query(value = SUMMARY_SELECT + "FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+            "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
+            "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.price <= :maxPrice)",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+                    "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
+                    "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+                    "AND (:maxPrice IS NULL OR p.price <= :maxPrice)")
+    Page<ProductSummaryView> searchSummaries(@Param("keyword") String keyword,
+                                             @Param("categoryId") Long categoryId,
+                                             @Param("minPrice") Long minPrice,
+                                             @Param("maxPrice") Long maxPrice,
+                                             Pageable pageable);
+}
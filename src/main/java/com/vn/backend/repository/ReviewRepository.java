@@ -25,12 +25,18 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT r FROM Review r WHERE r.orderItem.order.user = :user")
     Page<Review> findByUser(User user, Pageable pageable);
 
+    @Query("SELECT r FROM Review r WHERE r.orderItem.order.user.id = :userId")
+    Page<Review> findByUserId(Long userId, Pageable pageable);
+
     List<Review> findByRating(int rating);
     Page<Review> findByRating(int rating, Pageable pageable);
 
     @Query("SELECT r FROM Review r WHERE r.product.id = :productId AND r.orderItem.order.user = :user")
     Optional<Review> findByProductIdAndUser(Long productId, User user);
 
+    @Query("SELECT COUNT(r) > 0 FROM Review r WHERE r.product.id = :productId AND r.orderItem.order.user.id = :userId")
+    boolean existsByProductIdAndUserId(Long productId, Long userId);
+
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.id = :productId")
     Double getAverageRatingByProductId(Long productId);
 
@@ -1,5 +1,6 @@
 package com.vn.backend.repository;
 
+import com.vn.backend.dto.projection.UserContactView;
 import com.vn.backend.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +11,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -27,6 +30,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
+    // Chỉ id, không nạp entity (CurrentUser dùng khi token cũ chưa có claim uid)
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
+    // Khóa dòng user tới hết transaction: tuần tự hóa các lần dùng mã giảm giá của cùng một người
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
     @EntityGraph(attributePaths = "roles")
     Optional<User> findByGoogleId(String googleId);
 
@@ -57,4 +68,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Lấy tất cả users active
     @Query("SELECT u FROM User u WHERE u.isActive = true")
     Page<User> findAllActiveUsers(Pageable pageable);
+
+    // Số user mới theo ngày: [ngày, số lượng]
+    @Query("SELECT CAST(u.createdAt AS LocalDate), COUNT(u) FROM User u " +
+            "WHERE u.createdAt >= :start AND u.createdAt < :end GROUP BY CAST(u.createdAt AS LocalDate)")
+    List<Object[]> countByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(u.createdAt) FROM User u")
+    LocalDateTime findFirstCreatedAt();
+
+    // Thông tin liên hệ của nhiều user theo lô (dùng cho danh sách đơn hàng)
+    @Query("SELECT u.id AS id, u.fullName AS fullName, u.email AS email FROM User u WHERE u.id IN :ids")
+    List<UserContactView> findContactsByIdIn(@Param("ids") Collection<Long> ids);
 }
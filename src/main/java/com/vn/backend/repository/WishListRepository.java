@@ -16,7 +16,9 @@ public interface WishListRepository extends JpaRepository<WishList, Long> {
     Optional<WishList> findByUserAndProduct(User user, Product product);
     Optional<WishList> findByUserIdAndProductId(Long userId, Long productId);
     boolean existsByUserAndProduct(User user, Product product);
+    boolean existsByUserIdAndProductId(Long userId, Long productId);
     void deleteByUserIdAndProductId(Long userId, Long productId);
     long countByUser(User user);
+    long countByUserId(Long userId);
 }
 
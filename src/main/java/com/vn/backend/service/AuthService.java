@@ -1,6 +1,7 @@
 package com.vn.backend.service;
 
 import com.vn.backend.config.jwt.JwtProvider;
+import com.vn.backend.config.jwt.TokenBlacklist;
 import com.vn.backend.dto.request.*;
 import com.vn.backend.dto.response.ApiResponse;
 import com.vn.backend.dto.response.LoginResponse;
@@ -21,7 +22,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -59,7 +59,16 @@ public class AuthService {
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
     @Autowired
-    private EmailService emailService;
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private DailySalesRollupService dailySalesRollupService;
+
+    @Autowired
+    private TokenBlacklist tokenBlacklist;
+
+    @Autowired
+    private CurrentUser currentUser;
 
     @Value("${resetUrl}")
     private String resetUrl;
@@ -83,7 +92,7 @@ public class AuthService {
             userRepository.save(user);
 
             // 4. Sinh JWT như cũ
-            String accessToken = jwtProvider.generateAccessToken(authentication);
+            String accessToken = jwtProvider.generateAccessToken(authentication, user.getId());
             String refreshToken = jwtProvider.generateRefreshToken(request.getEmail());
 
             String role = authentication.getAuthorities().stream()
@@ -145,6 +154,7 @@ public class AuthService {
             newUser.getRoles().add(userRole);
 
             userRepository.save(newUser);
+            dailySalesRollupService.recordUserCreated(newUser);
 
             return ApiResponse.<String>builder()
                     .statusCode(HttpStatus.CREATED.value())
@@ -168,7 +178,8 @@ public class AuthService {
         LocalDateTime expiredAt = jwtProvider.getExpiredAt(jwt);
 
         // Lưu vào blacklist
-        invalidTokenRepository.save(new InvalidTokens(jwt, expiredAt));
+        invalidTokenRepository.save(InvalidTokens.builder().token(jwt).expiredAt(expiredAt).build());
+        tokenBlacklist.revoke(jwt);
 
         return ApiResponse.<String>builder()
                 .statusCode(HttpStatus.OK.value())
@@ -211,7 +222,7 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(user.getEmail(), null, authorities);
 
         // Dùng lại generateAccessToken(Authentication auth)
-        String newAccess = jwtProvider.generateAccessToken(authentication);
+        String newAccess = jwtProvider.generateAccessToken(authentication, user.getId());
         String newRefresh = jwtProvider.generateRefreshToken(email);
 
         refreshTokenRepository.save(RefreshToken.builder()
@@ -241,6 +252,7 @@ public class AuthService {
 
     }
 
+    @Transactional
     public ApiResponse<String> fotgotPassword(ForgotPasswordRequest req) {
         userRepository.findByEmail(req.getEmail()).ifPresent(user -> {
 
@@ -262,7 +274,8 @@ public class AuthService {
 
             String url = resetUrl + rawToken;
 
-            emailService.sendResetPassword(
+            // Ghi vào outbox cùng transaction; EmailOutboxDispatcher gửi nền
+            emailOutboxService.enqueueResetPassword(
                     user.getEmail(),
                     url
             );
@@ -304,7 +317,7 @@ public class AuthService {
 
     @Transactional(readOnly = true)
     public ApiResponse<UserResponse> getCurrentUserInfo() {
-        User user = getCurrentUser();
+        User user = currentUser.load();
 
         UserResponse userResponse = UserResponse.builder()
                 .id(user.getId())
@@ -336,11 +349,4 @@ public class AuthService {
     private long getRefreshExpSeconds() {
         return Long.getLong("jwt.refreshExpMs", 604800000) / 1000L;
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) return null;
-        String emails = authentication.getName();
-        return userRepository.findByEmail(emails).orElse(null);
-    }
 }
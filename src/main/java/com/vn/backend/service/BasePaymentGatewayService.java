@@ -1,5 +1,7 @@
 package com.vn.backend.service;
 
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
@@ -44,6 +46,15 @@ public abstract class BasePaymentGatewayService {
         return mapper;
     }
 
+    /**
+     * Gắn observation để mỗi lời gọi ra cổng thanh toán được đo vào http.client.requests
+     * (RestTemplate tự tạo nên không qua RestTemplateBuilder của Spring Boot)
+     */
+    @Autowired(required = false)
+    public void setObservationRegistry(ObservationRegistry observationRegistry) {
+        this.restTemplate.setObservationRegistry(observationRegistry);
+    }
+
     /**
      * Cho phép custom RestTemplate nếu cần
      */
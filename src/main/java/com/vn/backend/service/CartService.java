@@ -1,28 +1,34 @@
 package com.vn.backend.service;
 
+import com.vn.backend.dto.projection.CartProductView;
+import com.vn.backend.dto.projection.ProductQuantityView;
 import com.vn.backend.dto.request.AddToCartRequest;
+import com.vn.backend.dto.request.BulkAddToCartRequest;
 import com.vn.backend.dto.request.UpdateCartItemRequest;
 import com.vn.backend.dto.response.CartItemResponse;
 import com.vn.backend.dto.response.CartResponse;
 import com.vn.backend.exception.AppException;
-import com.vn.backend.model.Cart;
-import com.vn.backend.model.CartItem;
 import com.vn.backend.model.Product;
-import com.vn.backend.model.User;
-import com.vn.backend.repository.CartItemRepository;
-import com.vn.backend.repository.CartRepository;
+import com.vn.backend.repository.OrderItemRepository;
+import com.vn.backend.repository.OrderRepository;
 import com.vn.backend.repository.ProductRepository;
-import com.vn.backend.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.vn.backend.service.cart.CartLine;
+import com.vn.backend.service.cart.CartState;
+import com.vn.backend.service.cart.CartStore;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,95 +37,125 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CartService {
 
-    CartRepository cartRepository;
-    CartItemRepository cartItemRepository;
+    // Bề rộng tối thiểu của ảnh thu nhỏ trong giỏ hàng
+    private static final int THUMBNAIL_WIDTH = 128;
+
+    CartStore cartStore;
     ProductRepository productRepository;
-    UserRepository userRepository;
+    CurrentUser currentUser;
+    OrderRepository orderRepository;
+    OrderItemRepository orderItemRepository;
+    ImageVariantService imageVariantService;
 
     /**
-     * Get current authenticated user
+     * Tên, ảnh, giá, giảm giá và tồn kho của sản phẩm (projection, không nạp ảnh/tác giả của Product)
      */
-    private User getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "User not found"));
+    private CartProductView getProduct(Long productId) {
+        List<CartProductView> products = productRepository.findCartProductsByIdIn(List.of(productId));
+        if (products.isEmpty()) {
+            throw new AppException(HttpStatus.NOT_FOUND.value(), "Product not found");
+        }
+        return products.get(0);
     }
 
     /**
-     * Get or create cart for user
+     * Thông tin của nhiều sản phẩm trong một truy vấn, theo id
      */
-    private Cart getOrCreateCart(User user) {
-        return cartRepository.findByCustomer(user)
-                .orElseGet(() -> {
-                    Cart newCart = Cart.builder()
-                            .customer(user)
-                            .total(0L)
-                            .build();
-                    return cartRepository.save(newCart);
-                });
+    private Map<Long, CartProductView> getProducts(Collection<Long> productIds) {
+        return productRepository.findCartProductsByIdIn(productIds).stream()
+                .collect(Collectors.toMap(CartProductView::getId, Function.identity()));
+    }
+
+    /**
+     * Gộp số lượng theo sản phẩm (một sản phẩm có thể xuất hiện nhiều lần trong request)
+     */
+    private static Map<Long, Integer> sumByProduct(List<AddToCartRequest> items) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (AddToCartRequest item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
     }
 
     /**
-     * Calculate cart total
+     * Dòng giỏ cho sản phẩm với số lượng mới, thành tiền tính theo giá hiện tại
      */
-    private Long calculateCartTotal(Cart cart) {
-        List<CartItem> items = cartItemRepository.findByCart(cart);
-        return items.stream()
-                .mapToLong(CartItem::getTotal)
-                .sum();
+    private static CartLine toCartLine(CartProductView product, int quantity) {
+        return CartLine.builder()
+                .productId(product.getId())
+                .productName(product.getName())
+                .productImage(product.getImageUrl())
+                .productPrice(product.getPrice())
+                .productDiscount(product.getDiscount())
+                .quantity(quantity)
+                .total(calculateItemTotal(product.getPrice(), product.getDiscount(), quantity))
+                .build();
     }
 
     /**
-     * Calculate item total based on product price, discount and quantity
+     * Dòng của giỏ theo id; id không thuộc giỏ của user cũng coi như không tồn tại
      */
-    private Long calculateItemTotal(Product product, int quantity) {
-        long originalPrice = product.getPrice();
-        int discount = product.getDiscount();
+    private static CartLine getOwnedLine(CartState cart, Long itemId) {
+        CartLine line = cart.lineById(itemId);
+        if (line == null) {
+            throw new AppException(HttpStatus.NOT_FOUND.value(), "Cart item not found");
+        }
+        return line;
+    }
+
+    /**
+     * Tính thành tiền của dòng theo giá, giảm giá và số lượng; để phạm vi package để benchmark JMH gọi trực tiếp
+     */
+    static Long calculateItemTotal(Product product, int quantity) {
+        return calculateItemTotal(product.getPrice(), product.getDiscount(), quantity);
+    }
+
+    static Long calculateItemTotal(long originalPrice, int discount, int quantity) {
         long finalPrice = originalPrice - (originalPrice * discount / 100);
         return finalPrice * quantity;
     }
 
     /**
-     * Convert CartItem to CartItemResponse
+     * Convert CartLine to CartItemResponse
      */
-    private CartItemResponse toCartItemResponse(CartItem cartItem) {
-        Product product = cartItem.getProduct();
-
-        String productImage = null;
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            productImage = product.getImages().get(0).getImageUrl();
+    private CartItemResponse toCartItemResponse(CartLine item, Map<String, String> thumbnails) {
+        // Ảnh thu nhỏ (variant) thay cho ảnh gốc nếu đã có
+        String productImage = item.getProductImage();
+        if (productImage != null) {
+            productImage = thumbnails.getOrDefault(productImage, productImage);
         }
 
         return CartItemResponse.builder()
-                .id(cartItem.getId())
-                .productId(product.getId())
-                .productName(product.getName())
+                .id(item.getId())
+                .productId(item.getProductId())
+                .productName(item.getProductName())
                 .productImage(productImage)
-                .productPrice(product.getPrice())
-                .productDiscount(product.getDiscount())
-                .quantity(cartItem.getQuantity())
-                .total(cartItem.getTotal())
+                .productPrice(item.getProductPrice())
+                .productDiscount(item.getProductDiscount())
+                .quantity(item.getQuantity())
+                .total(item.getTotal())
                 .build();
     }
 
     /**
-     * Convert Cart to CartResponse
+     * Convert CartState to CartResponse: tổng và các dòng lấy từ CartStore, không truy vấn thêm
      */
-    private CartResponse toCartResponse(Cart cart, List<CartItem> items) {
-        List<CartItemResponse> itemResponses = items.stream()
-                .map(this::toCartItemResponse)
+    private CartResponse toCartResponse(CartState cart) {
+        Map<String, String> thumbnails = imageVariantService.thumbnails(cart.lines().stream()
+                .map(CartLine::getProductImage)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()), THUMBNAIL_WIDTH);
+        List<CartItemResponse> itemResponses = cart.lines().stream()
+                .map(item -> toCartItemResponse(item, thumbnails))
                 .collect(Collectors.toList());
 
-        int totalItems = items.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-
         return CartResponse.builder()
-                .id(cart.getId())
-                .customerId(cart.getCustomer().getId())
+                .id(cart.getCartId())
+                .customerId(cart.getUserId())
                 .items(itemResponses)
                 .total(cart.getTotal())
-                .totalItems(totalItems)
+                .totalItems(cart.getItemCount())
+                .version(cart.getVersion())
                 .build();
     }
 
@@ -127,134 +163,155 @@ public class CartService {
      * Get user cart
      */
     public CartResponse getCart() {
-        User currentUser = getCurrentUser();
-        Cart cart = getOrCreateCart(currentUser);
-        List<CartItem> items = cartItemRepository.findByCart(cart);
-        return toCartResponse(cart, items);
+        return toCartResponse(cartStore.get(currentUser.id()));
     }
 
     /**
      * Add item to cart
      */
-    @Transactional
     public CartResponse addToCart(AddToCartRequest request) {
-        User currentUser = getCurrentUser();
-        Cart cart = getOrCreateCart(currentUser);
 
         // Check if product exists
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Product not found"));
+        CartProductView product = getProduct(request.getProductId());
 
-        // Check stock availability
-        if (product.getStockQuanity() < request.getQuantity()) {
-            throw new AppException(HttpStatus.BAD_REQUEST.value(), "Not enough stock available");
-        }
+        CartState cart = cartStore.mutate(currentUser.id(), state -> {
+            // Check if item already exists in cart
+            CartLine line = state.line(product.getId());
+            int newQuantity = (line != null ? line.getQuantity() : 0) + request.getQuantity();
+
+            // Check stock availability
+            if (product.getStockQuantity() < newQuantity) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(), "Not enough stock available");
+            }
+            state.put(toCartLine(product, newQuantity));
+        });
 
-        // Check if item already exists in cart
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .map(existingItem -> {
-                    int newQuantity = existingItem.getQuantity() + request.getQuantity();
-                    if (product.getStockQuanity() < newQuantity) {
-                        throw new AppException(HttpStatus.BAD_REQUEST.value(), "Not enough stock available");
-                    }
-                    existingItem.setQuantity(newQuantity);
-                    existingItem.setTotal(calculateItemTotal(product, newQuantity));
-                    return existingItem;
-                })
-                .orElseGet(() -> {
-                    Long itemTotal = calculateItemTotal(product, request.getQuantity());
-                    return CartItem.builder()
-                            .cart(cart)
-                            .product(product)
-                            .quantity(request.getQuantity())
-                            .total(itemTotal)
-                            .build();
-                });
-
-        cartItemRepository.save(cartItem);
-
-        // Update cart total
-        cart.setTotal(calculateCartTotal(cart));
-        cartRepository.save(cart);
-
-        List<CartItem> items = cartItemRepository.findByCart(cart);
-        return toCartResponse(cart, items);
+        return toCartResponse(cart);
     }
 
     /**
      * Update cart item quantity
      */
-    @Transactional
     public CartResponse updateCartItem(Long itemId, UpdateCartItemRequest request) {
-        User currentUser = getCurrentUser();
-        Cart cart = getOrCreateCart(currentUser);
 
-        CartItem cartItem = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Cart item not found"));
+        CartState cart = cartStore.mutate(currentUser.id(), state -> {
+            CartLine line = getOwnedLine(state, itemId);
 
-        // Verify item belongs to user's cart
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new AppException(HttpStatus.FORBIDDEN.value(), "This item does not belong to your cart");
-        }
-
-        Product product = cartItem.getProduct();
-
-        // Check stock availability
-        if (product.getStockQuanity() < request.getQuantity()) {
-            throw new AppException(HttpStatus.BAD_REQUEST.value(), "Not enough stock available");
-        }
+            // Check stock availability
+            CartProductView product = getProduct(line.getProductId());
+            if (product.getStockQuantity() < request.getQuantity()) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(), "Not enough stock available");
+            }
 
-        // Update quantity and total
-        cartItem.setQuantity(request.getQuantity());
-        cartItem.setTotal(calculateItemTotal(product, request.getQuantity()));
-        cartItemRepository.save(cartItem);
+            // Update quantity and total
+            state.put(toCartLine(product, request.getQuantity()));
+        });
 
-        // Update cart total
-        cart.setTotal(calculateCartTotal(cart));
-        cartRepository.save(cart);
-
-        List<CartItem> items = cartItemRepository.findByCart(cart);
-        return toCartResponse(cart, items);
+        return toCartResponse(cart);
     }
 
     /**
      * Remove item from cart
      */
-    @Transactional
     public CartResponse removeCartItem(Long itemId) {
-        User currentUser = getCurrentUser();
-        Cart cart = getOrCreateCart(currentUser);
 
-        CartItem cartItem = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Cart item not found"));
+        CartState cart = cartStore.mutate(currentUser.id(),
+                state -> state.remove(getOwnedLine(state, itemId).getProductId()));
+
+        return toCartResponse(cart);
+    }
 
-        // Verify item belongs to user's cart
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new AppException(HttpStatus.FORBIDDEN.value(), "This item does not belong to your cart");
+    /**
+     * Thêm nhiều sản phẩm một lần; sản phẩm nào không tồn tại hoặc không đủ hàng thì không thêm gì cả
+     */
+    public CartResponse addItems(BulkAddToCartRequest request) {
+        Map<Long, Integer> quantities = sumByProduct(request.getItems());
+        Map<Long, CartProductView> products = getProducts(quantities.keySet());
+        for (Long productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new AppException(HttpStatus.NOT_FOUND.value(), "Product not found: " + productId);
+            }
         }
 
-        cartItemRepository.delete(cartItem);
+        CartState cart = cartStore.mutate(currentUser.id(), state -> quantities.forEach((productId, quantity) -> {
+            CartProductView product = products.get(productId);
+            CartLine line = state.line(productId);
+            int newQuantity = (line != null ? line.getQuantity() : 0) + quantity;
+            if (product.getStockQuantity() < newQuantity) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(),
+                        "Not enough stock available for product " + productId);
+            }
+            state.put(toCartLine(product, newQuantity));
+        }));
+
+        return toCartResponse(cart);
+    }
+
+    /**
+     * Gộp giỏ của khách chưa đăng nhập vào giỏ của user: mỗi sản phẩm lấy số lượng lớn hơn giữa hai giỏ
+     * (gộp lại lần nữa không nhân đôi), giới hạn theo tồn kho; sản phẩm đã xóa/hết hàng bị bỏ qua
+     */
+    public CartResponse mergeCart(BulkAddToCartRequest request) {
+        return addAvailable(currentUser.id(), sumByProduct(request.getItems()), true);
+    }
+
+    /**
+     * Thêm lại toàn bộ sản phẩm của một đơn cũ vào giỏ (cộng thêm), giới hạn theo tồn kho hiện tại
+     */
+    public CartResponse reorder(Long orderId) {
+        Long userId = currentUser.id();
+        if (!orderRepository.existsByIdAndUserId(orderId, userId)) {
+            throw new AppException(HttpStatus.NOT_FOUND.value(), "Order not found");
+        }
 
-        // Update cart total
-        cart.setTotal(calculateCartTotal(cart));
-        cartRepository.save(cart);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (ProductQuantityView item : orderItemRepository.sumQuantityByProduct(orderId)) {
+            quantities.put(item.getProductId(), item.getQuantity().intValue());
+        }
+        if (quantities.isEmpty()) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(), "Order has no items");
+        }
+        return addAvailable(userId, quantities, false);
+    }
 
-        List<CartItem> items = cartItemRepository.findByCart(cart);
-        return toCartResponse(cart, items);
+    /**
+     * Thêm theo lô kiểu "cố gắng hết sức": số lượng bị cắt theo tồn kho (không giảm dòng đang có),
+     * sản phẩm không còn hoặc hết hàng trả về trong unavailableProductIds
+     */
+    private CartResponse addAvailable(Long userId, Map<Long, Integer> quantities, boolean keepLarger) {
+        Map<Long, CartProductView> products = getProducts(quantities.keySet());
+        List<Long> unavailable = new ArrayList<>();
+
+        CartState cart = cartStore.mutate(userId, state -> {
+            unavailable.clear();
+            quantities.forEach((productId, quantity) -> {
+                CartProductView product = products.get(productId);
+                if (product == null || product.getStockQuantity() <= 0) {
+                    unavailable.add(productId);
+                    return;
+                }
+                CartLine line = state.line(productId);
+                int current = line != null ? line.getQuantity() : 0;
+                int wanted = keepLarger ? Math.max(current, quantity) : current + quantity;
+                int newQuantity = Math.max(current, Math.min(wanted, product.getStockQuantity()));
+                if (newQuantity != current) {
+                    state.put(toCartLine(product, newQuantity));
+                }
+            });
+        });
+
+        if (!unavailable.isEmpty()) {
+            log.info("Skipped unavailable products {} for user {}", unavailable, userId);
+        }
+        CartResponse response = toCartResponse(cart);
+        response.setUnavailableProductIds(unavailable);
+        return response;
     }
 
     /**
      * Clear all items from cart
      */
-    @Transactional
     public void clearCart() {
-        User currentUser = getCurrentUser();
-        Cart cart = cartRepository.findByCustomer(currentUser)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Cart not found"));
-
-        cartItemRepository.deleteByCartId(cart.getId());
-
-        cart.setTotal(0L);
-        cartRepository.save(cart);
+        cartStore.mutate(currentUser.id(), CartState::clear);
     }
 }
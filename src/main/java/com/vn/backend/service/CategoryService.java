@@ -14,6 +14,7 @@ import com.vn.backend.dto.response.PagedResponse;
 import com.vn.backend.exception.AppException;
 import com.vn.backend.model.Category;
 import com.vn.backend.repository.CategoryRepository;
+import com.vn.backend.service.cache.CategoryTree;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -32,24 +33,18 @@ import org.springframework.data.domain.Sort;
 public class CategoryService {
 
     CategoryRepository categoryRepository;
+    CategoryTree categoryTree;
 
     /**
      * Chuyển đổi Category entity sang CategoryResponse DTO
-     * Bao gồm cả tên danh mục cha nếu có
+     * Bao gồm cả tên danh mục cha nếu có (tra từ CategoryTree, không truy vấn DB)
      */
     private CategoryResponse toCategoryResponse(Category category) {
-        String parentName = null;
-        if (category.getParentId() != null) {
-            parentName = categoryRepository.findById(category.getParentId())
-                    .map(Category::getName)
-                    .orElse(null);
-        }
-
         return CategoryResponse.builder()
                 .id(category.getId())
                 .name(category.getName())
                 .parentId(category.getParentId())
-                .parentName(parentName)
+                .parentName(categoryTree.nameOf(category.getParentId()))
                 .build();
     }
 
@@ -99,7 +94,7 @@ public class CategoryService {
      */
     public List<CategoryResponse> getRootCategories() {
         log.info("Getting root categories");
-        return categoryRepository.findByParentIdIsNull().stream()
+        return categoryTree.roots().stream()
                 .map(this::toCategoryResponse)
                 .collect(Collectors.toList());
     }
@@ -114,11 +109,11 @@ public class CategoryService {
         log.info("Getting child categories for parent id: {}", parentId);
 
         // Verify parent exists
-        if (!categoryRepository.existsById(parentId)) {
+        if (!categoryTree.contains(parentId)) {
             throw new AppException(HttpStatus.NOT_FOUND.value(), "Parent category not found");
         }
 
-        return categoryRepository.findByParentId(parentId).stream()
+        return categoryTree.childrenOf(parentId).stream()
                 .map(this::toCategoryResponse)
                 .collect(Collectors.toList());
     }
@@ -159,6 +154,7 @@ public class CategoryService {
                 .build();
 
         category = categoryRepository.save(category);
+        categoryTree.rebuildAfterCommit();
         log.info("Category created successfully with id: {}", category.getId());
 
         return toCategoryResponse(category);
@@ -191,6 +187,11 @@ public class CategoryService {
             if (!categoryRepository.existsById(request.getParentId())) {
                 throw new AppException(HttpStatus.NOT_FOUND.value(), "Parent category not found");
             }
+
+            // Không cho phép chọn danh mục con cháu làm cha (tạo vòng lặp)
+            if (categoryTree.subtreeIds(id).contains(request.getParentId())) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(), "Category cannot be moved under its own subcategory");
+            }
         }
 
         // Cập nhật các trường nếu được cung cấp
@@ -202,6 +203,7 @@ public class CategoryService {
         }
 
         category = categoryRepository.save(category);
+        categoryTree.rebuildAfterCommit();
         log.info("Category updated successfully with id: {}", category.getId());
 
         return toCategoryResponse(category);
@@ -229,6 +231,7 @@ public class CategoryService {
         }
 
         categoryRepository.delete(category);
+        categoryTree.rebuildAfterCommit();
         log.info("Category deleted successfully with id: {}", id);
     }
 
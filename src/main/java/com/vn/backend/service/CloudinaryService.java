@@ -2,51 +2,60 @@ package com.vn.backend.service;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
-import com.vn.backend.dto.response.ApiResponse;
 import com.vn.backend.dto.response.ImageUploadResponse;
+import com.vn.backend.service.storage.ImageStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Lưu ảnh lên Cloudinary. File được stream từ đĩa; file lớn hơn chunk-size
+ * được tải theo từng phần (upload_large) thay vì một request duy nhất.
+ */
 @Service
-public class CloudinaryService {
+@ConditionalOnProperty(name = "storage.images.backend", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryService implements ImageStorage {
 
     private final Cloudinary cloudinary;
+    private final long chunkSize;
 
-    public CloudinaryService(Cloudinary cloudinary) {
+    public CloudinaryService(Cloudinary cloudinary,
+                             @Value("${storage.images.cloudinary.chunk-size:6291456}") long chunkSize) {
         this.cloudinary = cloudinary;
+        this.chunkSize = chunkSize;
     }
 
-    public ApiResponse<ImageUploadResponse> upload(MultipartFile file) throws Exception {
-        // kiểm tra content-type cơ bản
-        String ct = file.getContentType();
-        if (ct == null || !(ct.startsWith("image/") || ct.startsWith("video/") || ct.equals("application/pdf"))) {
-            throw new IllegalArgumentException("Unsupported file type: " + ct);
-        }
-
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
+    @Override
+    public ImageUploadResponse store(Path file, String filename, String contentType) throws IOException {
+        Map<String, Object> options = new HashMap<>(Map.of(
                 "resource_type", "auto",
                 "overwrite", false,
                 "use_filename", true,
+                "filename", filename,
                 "unique_filename", true
         ));
 
-        Map<String, String> result = new HashMap<>();
-        result.put("url", uploadResult.get("secure_url").toString());
-        result.put("id", uploadResult.get("public_id").toString());
-
-        ImageUploadResponse response = new ImageUploadResponse(result.get("url"), result.get("id"));
+        Map<?, ?> uploadResult;
+        if (Files.size(file) > chunkSize) {
+            options.put("chunk_size", (int) chunkSize);
+            uploadResult = cloudinary.uploader().uploadLarge(file.toFile(), options);
+        } else {
+            uploadResult = cloudinary.uploader().upload(file.toFile(), options);
+        }
 
-        return ApiResponse.<ImageUploadResponse>builder()
-                .message("Tải lên thành công")
-                .data(response)
-                .build();
+        return new ImageUploadResponse(uploadResult.get("secure_url").toString(),
+                uploadResult.get("public_id").toString());
     }
 
-    public boolean deleteByPublicId(String publicId) throws Exception {
+    @Override
+    public boolean delete(String publicId) throws IOException {
         Map<?, ?> res = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-        return res.get("result").equals("ok");
+        return "ok".equals(res.get("result"));
     }
 }
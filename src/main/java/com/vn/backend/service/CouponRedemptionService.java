@@ -0,0 +1,221 @@
+package com.vn.backend.service;
+
+import com.vn.backend.exception.AppException;
+import com.vn.backend.model.Coupon;
+import com.vn.backend.model.CouponStockStripe;
+import com.vn.backend.model.Order;
+import com.vn.backend.model.OrderCoupon;
+import com.vn.backend.repository.CouponRepository;
+import com.vn.backend.repository.CouponStockStripeRepository;
+import com.vn.backend.repository.OrderCouponRepository;
+import com.vn.backend.repository.UserRepository;
+import com.vn.backend.service.cache.CouponCache;
+import com.vn.backend.service.cache.CouponDefinition;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Dùng / hoàn trả lượt của mã giảm giá khi đặt / hủy đơn.
+ * Định nghĩa mã đọc từ CouponCache; tồn kho trừ bằng một câu UPDATE có điều kiện còn hàng (không đọc-rồi-ghi),
+ * với mã chia stripe thì trừ trên một stripe ngẫu nhiên, hết thì thử lần lượt các stripe còn lại.
+ * Giới hạn mỗi người dùng được kiểm tra sau khi khóa dòng user nên hai đơn song song của cùng một người
+ * không cùng lọt qua; người dùng khác nhau không chờ nhau.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class CouponRedemptionService {
+
+    CouponRepository couponRepository;
+    CouponStockStripeRepository couponStockStripeRepository;
+    OrderCouponRepository orderCouponRepository;
+    UserRepository userRepository;
+    CouponCache couponCache;
+
+    /**
+     * Giữ một lượt dùng mã cho userId và tính số tiền giảm trên tổng tiền hàng itemTotal.
+     * Phải gọi trong transaction đặt đơn và gọi record sau khi lưu đơn; rollback thì lượt dùng được trả lại.
+     */
+    @Transactional
+    public CouponRedemption reserve(String code, Long userId, long itemTotal) {
+        CouponDefinition coupon = couponCache.find(code)
+                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Coupon code is invalid"));
+
+        if (coupon.getPerUserLimit() != null) {
+            // Khóa user trước (không có dòng order_coupons nào thì không có gì để khóa), rồi đếm bằng đọc khóa
+            // vì snapshot của transaction đặt đơn có thể đã mở trước khi đơn song song kia commit
+            userRepository.lockById(userId);
+            if (orderCouponRepository.lockRedemptionIds(coupon.getId(), userId).size() >= coupon.getPerUserLimit()) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(),
+                        "You have reached the usage limit for this coupon");
+            }
+        }
+
+        int stripe = consume(coupon);
+        return new CouponRedemption(coupon.getId(), userId, stripe, coupon.discountFor(itemTotal));
+    }
+
+    /**
+     * Ghi lượt dùng đã giữ vào order_coupons
+     */
+    @Transactional
+    public void record(CouponRedemption redemption, Order order) {
+        orderCouponRepository.save(OrderCoupon.builder()
+                .order(order)
+                .coupon(couponRepository.getReferenceById(redemption.getCouponId()))
+                .userId(redemption.getUserId())
+                .stripe(redemption.getStripe())
+                .discountAmount(redemption.getDiscountAmount())
+                .build());
+    }
+
+    /**
+     * Trừ một lượt trên tồn kho của mã; trả về stripe đã trừ (-1 nếu mã không chia stripe)
+     */
+    @Transactional
+    public int consume(CouponDefinition coupon) {
+        if (!coupon.isStriped()) {
+            if (couponRepository.decrementStock(coupon.getId()) == 1) {
+                return -1;
+            }
+        } else {
+            int stripes = coupon.getStripes();
+            int start = ThreadLocalRandom.current().nextInt(stripes);
+            for (int i = 0; i < stripes; i++) {
+                int stripe = (start + i) % stripes;
+                if (couponStockStripeRepository.decrement(coupon.getId(), stripe) == 1) {
+                    return stripe;
+                }
+            }
+        }
+        throw new AppException(HttpStatus.BAD_REQUEST.value(), "This coupon has been used up");
+    }
+
+    /**
+     * Hoàn trả lượt dùng mã của đơn bị hủy; trả về false nếu đơn không dùng mã hoặc đã hoàn trả
+     */
+    @Transactional
+    public boolean release(Order order) {
+        Optional<OrderCoupon> redemption = orderCouponRepository.findByOrderId(order.getId());
+        if (redemption.isEmpty() || orderCouponRepository.deleteRedemption(redemption.get().getId()) == 0) {
+            return false;
+        }
+
+        Coupon coupon = redemption.get().getCoupon();
+        int stripe = redemption.get().getStripe();
+        if (coupon.getStripes() > 1) {
+            // Số stripe có thể đã đổi từ lúc dùng mã: trả vào stripe 0 nếu stripe cũ không còn
+            int target = stripe >= 0 && stripe < coupon.getStripes() ? stripe : 0;
+            couponStockStripeRepository.increment(coupon.getId(), target);
+        } else {
+            couponRepository.incrementStock(coupon.getId());
+        }
+        log.info("Released coupon {} of order {}", coupon.getCode(), order.getId());
+        return true;
+    }
+
+    /**
+     * Số lượt còn lại của mã (cộng các stripe nếu mã chia stripe)
+     */
+    public int remaining(Long couponId, int stripes) {
+        if (stripes > 1) {
+            return couponStockStripeRepository.sumRemaining(couponId);
+        }
+        return couponRepository.findStockQuantityById(couponId).orElse(0);
+    }
+
+    /**
+     * Khóa mã để admin sửa: khóa các stripe trước rồi mới tới dòng coupons, cùng thứ tự với lượt dùng mã
+     * (trừ trên stripe, sau đó mới chạm tới coupons) nên không deadlock với các lượt đang dùng mã
+     */
+    @Transactional
+    public Optional<Coupon> lockForUpdate(Long couponId) {
+        couponStockStripeRepository.lockByCouponId(couponId);
+        return couponRepository.findByIdForUpdate(couponId);
+    }
+
+    /**
+     * Chia coupon.stockQuantity vào các stripe theo coupon.stripes; gọi sau khi admin tạo mã
+     */
+    @Transactional
+    public void resetStripes(Coupon coupon) {
+        rebalance(coupon, couponStockStripeRepository.lockByCouponId(coupon.getId()));
+    }
+
+    /**
+     * Đổi tồn kho (stockQuantity, null = giữ số lượt còn lại hiện tại) và/hoặc số stripe của mã.
+     * coupon phải được nạp bằng lockForUpdate trong cùng transaction: các stripe đã bị khóa trước khi đếm số lượt
+     * còn lại nên lượt dùng đã commit không bị ghi đè, lượt đang chờ khóa sẽ trừ sau khi chia xong.
+     */
+    @Transactional
+    public void restock(Coupon coupon, Integer stockQuantity, Integer stripes) {
+        List<CouponStockStripe> rows = couponStockStripeRepository.lockByCouponId(coupon.getId());
+        if (stockQuantity != null) {
+            coupon.setStockQuantity(stockQuantity);
+        } else if (coupon.getStripes() > 1) {
+            coupon.setStockQuantity(rows.stream().mapToInt(CouponStockStripe::getRemaining).sum());
+        }
+        if (stripes != null) {
+            coupon.setStripes(stripes);
+        }
+        rebalance(coupon, rows);
+    }
+
+    /**
+     * Cập nhật tại chỗ các stripe đã khóa theo tồn kho mới (thêm stripe thiếu, xóa stripe thừa)
+     * thay vì xóa rồi tạo lại, để lượt dùng đang chờ khóa vẫn thấy đúng dòng sau khi transaction này commit
+     */
+    private void rebalance(Coupon coupon, List<CouponStockStripe> rows) {
+        int stripes = coupon.getStripes() > 1 ? coupon.getStripes() : 0;
+        int stock = coupon.getStockQuantity();
+        Map<Integer, CouponStockStripe> existing = new HashMap<>();
+        for (CouponStockStripe row : rows) {
+            existing.put(row.getStripe(), row);
+        }
+        List<CouponStockStripe> updated = new ArrayList<>(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            CouponStockStripe row = existing.remove(stripe);
+            if (row == null) {
+                row = CouponStockStripe.builder().coupon(coupon).stripe(stripe).build();
+            }
+            row.setRemaining(stock / stripes + (stripe < stock % stripes ? 1 : 0));
+            updated.add(row);
+        }
+        couponStockStripeRepository.saveAll(updated);
+        couponStockStripeRepository.deleteAll(existing.values());
+    }
+
+    /**
+     * Cập nhật stock_quantity của các mã chia stripe để danh sách mã còn hàng / trang admin không lệch lâu
+     */
+    @Scheduled(fixedDelayString = "${coupon.stripes.sync-interval:PT5S}",
+            initialDelayString = "${coupon.stripes.sync-interval:PT5S}")
+    @Transactional
+    public void syncStripedStock() {
+        couponRepository.syncStripedStock();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class CouponRedemption {
+        private final Long couponId;
+        private final Long userId;
+        private final int stripe;
+        private final long discountAmount;
+    }
+}
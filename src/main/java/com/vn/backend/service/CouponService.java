@@ -6,6 +6,10 @@ import com.vn.backend.dto.response.CouponResponse;
 import com.vn.backend.exception.AppException;
 import com.vn.backend.model.Coupon;
 import com.vn.backend.repository.CouponRepository;
+import com.vn.backend.repository.CouponStockStripeRepository;
+import com.vn.backend.repository.OrderCouponRepository;
+import com.vn.backend.service.cache.CouponCache;
+import com.vn.backend.service.cache.CouponDefinition;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -26,6 +30,10 @@ import java.util.stream.Collectors;
 public class CouponService {
 
     CouponRepository couponRepository;
+    CouponStockStripeRepository couponStockStripeRepository;
+    OrderCouponRepository orderCouponRepository;
+    CouponRedemptionService couponRedemptionService;
+    CouponCache couponCache;
 
     /**
      * Convert Coupon to CouponResponse
@@ -38,6 +46,26 @@ public class CouponService {
                 .stockQuantity(coupon.getStockQuantity())
                 .discountType(coupon.getDiscountType())
                 .discount(coupon.getDiscount())
+                .perUserLimit(coupon.getPerUserLimit())
+                .stripes(coupon.getStripes())
+                .createdAt(coupon.getCreatedAt())
+                .updatedAt(coupon.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Convert cached CouponDefinition (+ current stock) to CouponResponse
+     */
+    private CouponResponse toCouponResponse(CouponDefinition coupon, int stockQuantity) {
+        return CouponResponse.builder()
+                .id(coupon.getId())
+                .code(coupon.getCode())
+                .description(coupon.getDescription())
+                .stockQuantity(stockQuantity)
+                .discountType(coupon.getDiscountType())
+                .discount(coupon.getDiscount())
+                .perUserLimit(coupon.getPerUserLimit())
+                .stripes(coupon.getStripes())
                 .createdAt(coupon.getCreatedAt())
                 .updatedAt(coupon.getUpdatedAt())
                 .build();
@@ -102,17 +130,19 @@ public class CouponService {
     public CouponResponse validateCoupon(String code) {
         log.info("Validating coupon: {}", code);
 
-        Coupon coupon = couponRepository.findByCode(code.toUpperCase())
+        // Định nghĩa mã lấy từ cache, chỉ tồn kho là đọc DB
+        CouponDefinition coupon = couponCache.find(code)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(),
                     "Coupon code is invalid"));
 
-        if (coupon.getStockQuantity() <= 0) {
+        int stockQuantity = couponRedemptionService.remaining(coupon.getId(), coupon.getStripes());
+        if (stockQuantity <= 0) {
             throw new AppException(HttpStatus.BAD_REQUEST.value(),
                 "This coupon has been used up");
         }
 
         log.info("Coupon {} is valid", code);
-        return toCouponResponse(coupon);
+        return toCouponResponse(coupon, stockQuantity);
     }
 
     /**
@@ -137,9 +167,14 @@ public class CouponService {
                 .stockQuantity(request.getStockQuantity())
                 .discountType(request.getDiscountType().toUpperCase())
                 .discount(request.getDiscount())
+                .perUserLimit(request.getPerUserLimit())
+                .stripes(request.getStripes() != null ? request.getStripes() : 1)
                 .build();
 
         coupon = couponRepository.save(coupon);
+        couponRedemptionService.resetStripes(coupon);
+        // Có thể đã cache "không tồn tại" cho mã này
+        couponCache.evictAfterCommit(coupon.getCode());
         log.info("Coupon created successfully with id: {}", coupon.getId());
 
         return toCouponResponse(coupon);
@@ -152,15 +187,21 @@ public class CouponService {
     public CouponResponse updateCoupon(Long id, UpdateCouponRequest request) {
         log.info("Updating coupon with id: {}", id);
 
-        Coupon coupon = couponRepository.findById(id)
+        // Khóa mã (cả các stripe): lượt dùng mã chờ tới khi sửa xong nên save / chia lại stripe không ghi đè chúng
+        Coupon coupon = couponRedemptionService.lockForUpdate(id)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Coupon not found"));
 
         // Update fields if provided
         if (request.getDescription() != null) {
             coupon.setDescription(request.getDescription());
         }
-        if (request.getStockQuantity() != null) {
-            coupon.setStockQuantity(request.getStockQuantity());
+        if (request.getPerUserLimit() != null) {
+            coupon.setPerUserLimit(request.getPerUserLimit() > 0 ? request.getPerUserLimit() : null);
+        }
+
+        // Đổi tồn kho hoặc số stripe thì chia lại tồn kho; chỉ đổi số stripe thì giữ số lượt còn lại hiện tại
+        if (request.getStockQuantity() != null || request.getStripes() != null) {
+            couponRedemptionService.restock(coupon, request.getStockQuantity(), request.getStripes());
         }
         if (request.getDiscountType() != null) {
             coupon.setDiscountType(request.getDiscountType().toUpperCase());
@@ -175,6 +216,7 @@ public class CouponService {
         }
 
         coupon = couponRepository.save(coupon);
+        couponCache.evictAfterCommit(coupon.getCode());
         log.info("Coupon updated successfully with id: {}", coupon.getId());
 
         return toCouponResponse(coupon);
@@ -190,29 +232,29 @@ public class CouponService {
         Coupon coupon = couponRepository.findById(id)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Coupon not found"));
 
+        if (orderCouponRepository.existsByCouponId(id)) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(),
+                "Coupon has been used in orders and cannot be deleted");
+        }
+
+        couponStockStripeRepository.deleteByCouponId(id);
         couponRepository.delete(coupon);
+        couponCache.evictAfterCommit(coupon.getCode());
         log.info("Coupon deleted successfully with id: {}", id);
     }
 
     /**
-     * Use coupon (decrease stock by 1)
+     * Use coupon (decrease stock by 1, atomically)
      */
     @Transactional
     public void useCoupon(String code) {
         log.info("Using coupon: {}", code);
 
-        Coupon coupon = couponRepository.findByCode(code.toUpperCase())
+        CouponDefinition coupon = couponCache.find(code)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Coupon not found"));
 
-        if (coupon.getStockQuantity() <= 0) {
-            throw new AppException(HttpStatus.BAD_REQUEST.value(),
-                "This coupon has been used up");
-        }
-
-        coupon.setStockQuantity(coupon.getStockQuantity() - 1);
-        couponRepository.save(coupon);
-
-        log.info("Coupon {} used. Remaining stock: {}", code, coupon.getStockQuantity());
+        couponRedemptionService.consume(coupon);
+        log.info("Coupon {} used", code);
     }
 
     /**
@@ -221,20 +263,11 @@ public class CouponService {
     public Long calculateDiscount(String code, Long originalAmount) {
         log.info("Calculating discount for coupon: {} with amount: {}", code, originalAmount);
 
-        Coupon coupon = couponRepository.findByCode(code.toUpperCase())
+        // Chỉ tính giá từ định nghĩa đã cache; tồn kho được kiểm tra khi đặt đơn
+        CouponDefinition coupon = couponCache.find(code)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Coupon not found"));
 
-        if (coupon.getStockQuantity() <= 0) {
-            throw new AppException(HttpStatus.BAD_REQUEST.value(),
-                "This coupon has been used up");
-        }
-
-        Long discountAmount;
-        if ("PERCENTAGE".equals(coupon.getDiscountType())) {
-            discountAmount = (originalAmount * coupon.getDiscount()) / 100;
-        } else { // FIXED
-            discountAmount = Long.valueOf(coupon.getDiscount());
-        }
+        Long discountAmount = coupon.discountFor(originalAmount);
 
         log.info("Discount amount calculated: {}", discountAmount);
         return discountAmount;
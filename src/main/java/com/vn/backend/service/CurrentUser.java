@@ -0,0 +1,103 @@
+package com.vn.backend.service;
+
+import com.vn.backend.config.jwt.JwtClaimsHolder;
+import com.vn.backend.exception.AppException;
+import com.vn.backend.model.User;
+import com.vn.backend.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * Người dùng đang đăng nhập của request hiện tại, dùng chung cho các service.
+ * Id lấy từ claim "uid" của access token đã xác thực, token cũ chưa có claim thì một truy vấn id theo email;
+ * kết quả giữ trong request attribute nên mỗi request xác định tối đa một lần.
+ * Service truy vấn theo id(); cần gán quan hệ thì dùng reference() (không SELECT), cần đủ dữ liệu thì load().
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CurrentUser {
+
+    private static final String ATTRIBUTE = CurrentUser.class.getName() + ".id";
+
+    UserRepository userRepository;
+
+    /**
+     * Email của người dùng đang đăng nhập, null nếu request chưa xác thực
+     */
+    public String email() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Id người dùng đang đăng nhập nếu có
+     */
+    public Optional<Long> findId() {
+        String email = email();
+        if (email == null) {
+            return Optional.empty();
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object cached = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached instanceof Long id) {
+                return Optional.of(id);
+            }
+        }
+
+        Optional<Long> id = fromClaims(email).or(() -> userRepository.findIdByEmail(email));
+        if (attributes != null) {
+            id.ifPresent(value -> attributes.setAttribute(ATTRIBUTE, value, RequestAttributes.SCOPE_REQUEST));
+        }
+        return id;
+    }
+
+    public Long id() {
+        return findId().orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "User not found"));
+    }
+
+    /**
+     * Proxy của User chỉ mang id, dùng để gán quan hệ hoặc truyền vào repository; đọc trường khác sẽ nạp entity
+     */
+    public User reference() {
+        return userRepository.getReferenceById(id());
+    }
+
+    /**
+     * Nạp đầy đủ User (kèm roles)
+     */
+    public User load() {
+        String email = email();
+        if (email == null) {
+            throw new AppException(HttpStatus.UNAUTHORIZED.value(), "Unauthenticated");
+        }
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "User not found"));
+    }
+
+    private static Optional<Long> fromClaims(String email) {
+        Claims claims = JwtClaimsHolder.authenticated();
+        if (claims == null || !email.equals(claims.get("email", String.class))) {
+            return Optional.empty();
+        }
+        Number uid = claims.get("uid", Number.class);
+        return uid != null ? Optional.of(uid.longValue()) : Optional.empty();
+    }
+}
@@ -25,6 +25,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private DailySalesRollupService dailySalesRollupService;
+
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         OAuth2User oAuth2User = super.loadUser(userRequest);
@@ -56,7 +59,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                     .otpConsumed(true)
                     .roles(Set.of(role))
                     .build();
-            return userRepository.save(newUser);
+            User savedUser = userRepository.save(newUser);
+            dailySalesRollupService.recordUserCreated(savedUser);
+            return savedUser;
         });
 
         // (tuỳ chọn) cập nhật avatar/name mỗi lần login
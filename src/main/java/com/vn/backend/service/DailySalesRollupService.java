@@ -0,0 +1,223 @@
+package com.vn.backend.service;
+
+import com.vn.backend.model.DailySalesRollup;
+import com.vn.backend.model.Order;
+import com.vn.backend.model.Product;
+import com.vn.backend.model.User;
+import com.vn.backend.repository.DailySalesRollupRepository;
+import com.vn.backend.repository.OrderRepository;
+import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.repository.UserRepository;
+import com.vn.backend.util.TransactionUtil;
+import com.vn.backend.util.enums.OrderStatus;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Duy trì bảng daily_sales_rollup cho dashboard.
+ * Mỗi sự kiện (tạo đơn, đổi trạng thái, user/sản phẩm mới) cộng delta vào dòng của ngày tạo sau khi commit;
+ * job hằng đêm tính lại các ngày gần đây từ bảng gốc để sửa sai lệch (delta bị lỡ, xóa dữ liệu...).
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class DailySalesRollupService {
+
+    DailySalesRollupRepository rollupRepository;
+    OrderRepository orderRepository;
+    UserRepository userRepository;
+    ProductRepository productRepository;
+    // Múi giờ của job đối soát (jobs.rollup.zone), để "hôm nay" của backfill/đối soát khớp với lịch chạy
+    ZoneId zone;
+
+    public DailySalesRollupService(DailySalesRollupRepository rollupRepository,
+                                   OrderRepository orderRepository,
+                                   UserRepository userRepository,
+                                   ProductRepository productRepository,
+                                   @Value("${jobs.rollup.zone:Asia/Ho_Chi_Minh}") String zone) {
+        this.rollupRepository = rollupRepository;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.zone = ZoneId.of(zone);
+    }
+
+    public void recordOrderCreated(Order order) {
+        DailySalesRollup delta = empty(dayOf(order.getCreatedAt()));
+        delta.setOrderCount(1);
+        delta.addRevenue(order.getStatus(), amountOf(order));
+        incrementAfterCommit(delta);
+    }
+
+    /**
+     * Chuyển doanh thu của đơn từ cột trạng thái cũ sang cột trạng thái mới (trên ngày tạo đơn)
+     */
+    public void recordOrderStatusChange(Order order, OrderStatus previousStatus) {
+        if (previousStatus == order.getStatus()) {
+            return;
+        }
+        DailySalesRollup delta = empty(dayOf(order.getCreatedAt()));
+        delta.addRevenue(previousStatus, -amountOf(order));
+        delta.addRevenue(order.getStatus(), amountOf(order));
+        incrementAfterCommit(delta);
+    }
+
+    public void recordOrderDeleted(Order order) {
+        DailySalesRollup delta = empty(dayOf(order.getCreatedAt()));
+        delta.setOrderCount(-1);
+        delta.addRevenue(order.getStatus(), -amountOf(order));
+        incrementAfterCommit(delta);
+    }
+
+    public void recordUserCreated(User user) {
+        DailySalesRollup delta = empty(dayOf(user.getCreatedAt()));
+        delta.setNewUsers(1);
+        incrementAfterCommit(delta);
+    }
+
+    /**
+     * User bị xóa hẳn: trừ khỏi ngày tạo để tổng user không chỉ tăng (user bị xóa mềm vẫn còn trong bảng nên vẫn đếm)
+     */
+    public void recordUserDeleted(User user) {
+        DailySalesRollup delta = empty(dayOf(user.getCreatedAt()));
+        delta.setNewUsers(-1);
+        incrementAfterCommit(delta);
+    }
+
+    public void recordProductCreated(Product product) {
+        DailySalesRollup delta = empty(dayOf(product.getCreatedAt()));
+        delta.setNewProducts(1);
+        incrementAfterCommit(delta);
+    }
+
+    public void recordProductDeleted(Product product) {
+        DailySalesRollup delta = empty(dayOf(product.getCreatedAt()));
+        delta.setNewProducts(-1);
+        incrementAfterCommit(delta);
+    }
+
+    /**
+     * Các dòng tổng hợp trong khoảng ngày [from, to], sắp xếp theo ngày
+     */
+    public List<DailySalesRollup> findRange(LocalDate from, LocalDate to) {
+        return rollupRepository.findBySaleDateBetweenOrderBySaleDate(from, to);
+    }
+
+    /**
+     * Tổng theo tháng trong [from, to] (một truy vấn GROUP BY); saleDate của mỗi dòng là ngày đầu tháng
+     */
+    public List<DailySalesRollup> sumByMonth(LocalDate from, LocalDate to) {
+        return rollupRepository.sumByMonth(from, to).stream()
+                .map(row -> DailySalesRollup.builder()
+                        .saleDate(LocalDate.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(), 1))
+                        .orderCount(((Number) row[2]).longValue())
+                        .deliveredRevenue(((Number) row[3]).longValue())
+                        .newUsers(((Number) row[4]).longValue())
+                        .newProducts(((Number) row[5]).longValue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Số sản phẩm tạo trước ngày before
+     */
+    public long newProductsBefore(LocalDate before) {
+        return rollupRepository.sumNewProductsBefore(before);
+    }
+
+    /**
+     * Tổng toàn thời gian: [số đơn, doanh thu DELIVERED, user, sản phẩm]
+     */
+    public long[] totals() {
+        List<Object[]> rows = rollupRepository.sumTotals();
+        long[] totals = new long[4];
+        if (!rows.isEmpty()) {
+            Object[] row = rows.get(0);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] = row[i] != null ? ((Number) row[i]).longValue() : 0L;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Tính lại các ngày trong [from, to] từ bảng orders, users, products bằng truy vấn GROUP BY ngày
+     */
+    @Transactional
+    public int reconcile(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Map<LocalDate, DailySalesRollup> rows = new TreeMap<>();
+
+        for (Object[] row : orderRepository.summarizeByDayAndStatus(start, end)) {
+            DailySalesRollup rollup = rows.computeIfAbsent((LocalDate) row[0], DailySalesRollupService::empty);
+            rollup.setOrderCount(rollup.getOrderCount() + ((Number) row[2]).longValue());
+            rollup.addRevenue((OrderStatus) row[1], ((Number) row[3]).longValue());
+        }
+        for (Object[] row : userRepository.countByDay(start, end)) {
+            rows.computeIfAbsent((LocalDate) row[0], DailySalesRollupService::empty)
+                    .setNewUsers(((Number) row[1]).longValue());
+        }
+        for (Object[] row : productRepository.countByDay(start, end)) {
+            rows.computeIfAbsent((LocalDate) row[0], DailySalesRollupService::empty)
+                    .setNewProducts(((Number) row[1]).longValue());
+        }
+
+        rollupRepository.deleteBySaleDateBetween(from, to);
+        rollupRepository.flush();
+        rollupRepository.saveAll(rows.values());
+        log.info("Reconciled daily sales rollup {}..{}: {} days with data", from, to, rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Dựng toàn bộ lịch sử nếu bảng còn trống (lần chạy đầu sau khi thêm bảng)
+     */
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        Stream.of(orderRepository.findFirstCreatedAt(), userRepository.findFirstCreatedAt(),
+                        productRepository.findFirstCreatedAt())
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .ifPresent(first -> reconcile(first.toLocalDate(), LocalDate.now(zone)));
+    }
+
+    private void incrementAfterCommit(DailySalesRollup delta) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                rollupRepository.increment(delta, LocalDateTime.now());
+            } catch (RuntimeException e) {
+                // Không làm hỏng nghiệp vụ chính; job đối soát hằng đêm sẽ sửa lại
+                log.warn("Failed to update daily sales rollup for {}: {}", delta.getSaleDate(), e.getMessage());
+            }
+        });
+    }
+
+    private static DailySalesRollup empty(LocalDate day) {
+        return DailySalesRollup.builder().saleDate(day).build();
+    }
+
+    private LocalDate dayOf(LocalDateTime time) {
+        return time != null ? time.toLocalDate() : LocalDate.now(zone);
+    }
+
+    private static long amountOf(Order order) {
+        return order.getTotalAmount() != null ? order.getTotalAmount() : 0L;
+    }
+}
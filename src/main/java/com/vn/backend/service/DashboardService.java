@@ -1,120 +1,185 @@
 package com.vn.backend.service;
 
 import com.vn.backend.dto.response.*;
+import com.vn.backend.model.DailySalesRollup;
 import com.vn.backend.repository.CategoryRepository;
-import com.vn.backend.repository.OrderRepository;
-import com.vn.backend.repository.ProductRepository;
-import com.vn.backend.repository.UserRepository;
-import com.vn.backend.util.enums.OrderStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Dựng dữ liệu dashboard admin từ 4 phần độc lập (thống kê, theo tháng, danh mục, 7 ngày gần đây).
+ * Ở chế độ song song các phần chạy đồng thời trên pool giới hạn dashboard.parallelism; phần nào quá
+ * timeout hoặc lỗi thì trả giá trị rỗng thay vì làm hỏng cả dashboard. Thời gian từng phần trả trong "sections".
+ */
 @Service
+@Slf4j
 public class DashboardService {
     @Autowired
-    private UserRepository userRepository;
+    private DailySalesRollupService dailySalesRollupService;
 
     @Autowired
-    private ProductRepository productRepository;
+    private CategoryRepository categoryRepository;
 
-    @Autowired
-    private OrderRepository orderRepository;
+    @Value("${dashboard.parallel:true}")
+    private boolean parallel;
 
-    @Autowired
-    private CategoryRepository categoryRepository;
+    @Value("${dashboard.parallelism:4}")
+    private int parallelism;
+
+    @Value("${dashboard.timeout.stats:PT2S}")
+    private Duration statsTimeout;
+
+    @Value("${dashboard.timeout.monthly:PT3S}")
+    private Duration monthlyTimeout;
+
+    @Value("${dashboard.timeout.category:PT2S}")
+    private Duration categoryTimeout;
+
+    @Value("${dashboard.timeout.recent-orders:PT2S}")
+    private Duration recentOrdersTimeout;
+
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    void init() {
+        pool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(parallelism * 8), r -> {
+            Thread thread = new Thread(r, "dashboard");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+    }
 
     public ApiResponse<AdminDashboardResponse> getAdminDashboardData() {
-        // 1. Lấy thống kê tổng quan
-        DashboardStatsResponse statsData = getDashboardStats();
+        LocalDate today = LocalDate.now();
+        // Chế độ tuần tự chạy từng phần ngay trên thread gọi (vẫn đo thời gian từng phần)
+        Executor executor = parallel ? pool : Runnable::run;
+        Map<String, DashboardSectionResponse> timings = new HashMap<>();
+
+        // 1. Thống kê tổng quan
+        CompletableFuture<DashboardStatsResponse> stats = section("stats", () -> getDashboardStats(today),
+                DashboardStatsResponse.builder().build(), statsTimeout, executor, timings);
 
-        // 2. Lấy dữ liệu theo tháng (8 tháng gần nhất)
-        List<MonthlyDataResponse> monthlyData = getMonthlyData();
+        // 2. Dữ liệu theo tháng (8 tháng gần nhất)
+        CompletableFuture<List<MonthlyDataResponse>> monthly = section("monthly", () -> getMonthlyData(today),
+                List.of(), monthlyTimeout, executor, timings);
 
-        // 3. Lấy dữ liệu phân bố danh mục
-        List<CategoryDataResponse> categoryData = getCategoryData();
+        // 3. Phân bố danh mục
+        CompletableFuture<List<CategoryDataResponse>> category = section("category", this::getCategoryData,
+                List.of(), categoryTimeout, executor, timings);
 
-        // 4. Lấy dữ liệu đơn hàng 7 ngày gần đây
-        List<RecentOrderDataResponse> recentOrdersData = getRecentOrdersData();
+        // 4. Đơn hàng 7 ngày gần đây
+        CompletableFuture<List<RecentOrderDataResponse>> recentOrders = section("recentOrders",
+                () -> getRecentOrdersData(today), List.of(), recentOrdersTimeout, executor, timings);
 
         AdminDashboardResponse response = AdminDashboardResponse.builder()
-                .statsData(statsData)
-                .monthlyData(monthlyData)
-                .categoryData(categoryData)
-                .recentOrdersData(recentOrdersData)
+                .statsData(stats.join())
+                .monthlyData(monthly.join())
+                .categoryData(category.join())
+                .recentOrdersData(recentOrders.join())
                 .build();
 
+        List<DashboardSectionResponse> sections = new ArrayList<>();
+        synchronized (timings) {
+            for (String name : List.of("stats", "monthly", "category", "recentOrders")) {
+                sections.add(timings.get(name));
+            }
+        }
+        response.setSections(sections);
+        boolean partial = sections.stream().anyMatch(s -> !"OK".equals(s.getStatus()));
+
         return ApiResponse.<AdminDashboardResponse>builder()
                 .statusCode(HttpStatus.OK.value())
-                .message("Lấy thông tin người dùng thành công")
+                .message(partial ? "Lấy dữ liệu dashboard thành công một phần" : "Lấy thông tin người dùng thành công")
                 .data(response)
                 .build();
     }
 
-    private DashboardStatsResponse getDashboardStats() {
-        // Get statistics
-        Long totalUsers = userRepository.count();
-        Long totalProducts = productRepository.count();
-        Long totalOrders = orderRepository.count();
-        BigDecimal totalRevenueBigDecimal = orderRepository.getTotalRevenue(OrderStatus.DELIVERED);
-        Double totalRevenue = totalRevenueBigDecimal != null ? totalRevenueBigDecimal.doubleValue() : 0.0;
+    /**
+     * Chạy một phần của dashboard trên executor với timeout riêng; lỗi/timeout thì trả fallback.
+     * Timeout không hủy truy vấn đang chạy, chỉ để response không phải chờ nó.
+     */
+    private <T> CompletableFuture<T> section(String name, Supplier<T> loader, T fallback, Duration timeout,
+                                             Executor executor, Map<String, DashboardSectionResponse> timings) {
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(loader, executor)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((value, error) -> {
+                    long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    String status = "OK";
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        status = cause instanceof TimeoutException ? "TIMEOUT" : "ERROR";
+                        log.warn("Dashboard section {} {} after {} ms: {}", name, status, durationMs, cause.toString());
+                    } else {
+                        log.debug("Dashboard section {} took {} ms", name, durationMs);
+                    }
+                    synchronized (timings) {
+                        timings.put(name, DashboardSectionResponse.builder()
+                                .name(name)
+                                .status(status)
+                                .durationMs(durationMs)
+                                .build());
+                    }
+                    return error == null ? value : fallback;
+                });
+    }
 
-        // Đơn hàng hôm nay
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(23, 59, 59);
-        Long todayOrders = orderRepository.countOrdersByDateRange(startOfDay, endOfDay);
+    private DashboardStatsResponse getDashboardStats(LocalDate today) {
+        long[] totals = dailySalesRollupService.totals();
+        List<DailySalesRollup> todayRows = dailySalesRollupService.findRange(today, today);
 
         return DashboardStatsResponse.builder()
-                .totalUsers(totalUsers)
-                .totalProducts(totalProducts)
-                .totalOrders(totalOrders)
-                .totalRevenue(totalRevenue)
-                .todayOrders(todayOrders)
+                .totalUsers(totals[2])
+                .totalProducts(totals[3])
+                .totalOrders(totals[0])
+                .totalRevenue((double) totals[1])
+                .todayOrders(todayRows.isEmpty() ? 0L : todayRows.get(0).getOrderCount())
                 .build();
     }
 
-    private List<MonthlyDataResponse> getMonthlyData() {
-        List<MonthlyDataResponse> monthlyData = new ArrayList<>();
-
-        // Lấy 8 tháng gần nhất
-        for (int i = 7; i >= 0; i--) {
-            LocalDate monthStart = LocalDate.now().minusMonths(i).withDayOfMonth(1);
-            LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
-
-            String monthName = "T" + (8 - i);
-
-            // Query data cho mỗi tháng (có thể cần implement custom query)
-            Long users = userRepository.countUsersByDateRange(
-                    monthStart.atStartOfDay(),
-                    monthEnd.atTime(23, 59, 59)
-            );
-
-            Long orders = orderRepository.countOrdersByDateRange(
-                    monthStart.atStartOfDay(),
-                    monthEnd.atTime(23, 59, 59)
-            );
+    private List<MonthlyDataResponse> getMonthlyData(LocalDate today) {
+        LocalDate firstMonth = today.withDayOfMonth(1).minusMonths(7);
+        Map<LocalDate, DailySalesRollup> months = new HashMap<>();
+        for (DailySalesRollup month : dailySalesRollupService.sumByMonth(firstMonth, today)) {
+            months.put(month.getSaleDate(), month);
+        }
 
-            BigDecimal revenueBigDecimal = orderRepository.getRevenueByDateRange(
-                    monthStart.atStartOfDay(),
-                    monthEnd.atTime(23, 59, 59),
-                    OrderStatus.DELIVERED
-            );
-            Double revenue = revenueBigDecimal != null ? revenueBigDecimal.doubleValue() : 0.0;
+        // Số sản phẩm tính đến cuối mỗi tháng = sản phẩm tạo trước tháng đầu + cộng dồn theo tháng
+        long books = dailySalesRollupService.newProductsBefore(firstMonth);
 
-            // Product entity doesn't have createdAt, so use total count
-            Long books = productRepository.count();
+        List<MonthlyDataResponse> monthlyData = new ArrayList<>();
+        for (int i = 0; i <= 7; i++) {
+            DailySalesRollup month = months.get(firstMonth.plusMonths(i));
+            books += month != null ? month.getNewProducts() : 0L;
 
             monthlyData.add(MonthlyDataResponse.builder()
-                    .name(monthName)
-                    .users(users)
-                    .orders(orders)
-                    .revenue(revenue)
+                    .name("T" + (i + 1))
+                    .users(month != null ? month.getNewUsers() : 0L)
+                    .orders(month != null ? month.getOrderCount() : 0L)
+                    .revenue(month != null ? (double) month.getDeliveredRevenue() : 0.0)
                     .books(books)
                     .build());
         }
@@ -139,28 +204,32 @@ public class DashboardService {
         return categoryData;
     }
 
-    private List<RecentOrderDataResponse> getRecentOrdersData() {
+    private List<RecentOrderDataResponse> getRecentOrdersData(LocalDate today) {
+        Map<LocalDate, DailySalesRollup> days = new HashMap<>();
+        for (DailySalesRollup row : dailySalesRollupService.findRange(today.minusDays(6), today)) {
+            days.put(row.getSaleDate(), row);
+        }
+
         List<RecentOrderDataResponse> recentData = new ArrayList<>();
 
         String[] dayNames = {"Hôm nay", "Hôm qua", "2 ngày trước", "3 ngày trước",
                 "4 ngày trước", "5 ngày trước", "6 ngày trước"};
 
         for (int i = 0; i < 7; i++) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(23, 59, 59);
-
-            Long orders = orderRepository.countOrdersByDateRange(startOfDay, endOfDay);
-            BigDecimal revenueBigDecimal = orderRepository.getRevenueByDateRange(startOfDay, endOfDay, OrderStatus.DELIVERED);
-            Double revenue = revenueBigDecimal != null ? revenueBigDecimal.doubleValue() : 0.0;
+            DailySalesRollup day = days.get(today.minusDays(i));
 
             recentData.add(RecentOrderDataResponse.builder()
                     .name(dayNames[i])
-                    .orders(orders)
-                    .revenue(revenue)
+                    .orders(day != null ? day.getOrderCount() : 0L)
+                    .revenue(day != null ? (double) day.getDeliveredRevenue() : 0.0)
                     .build());
         }
 
         return recentData;
     }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
 }
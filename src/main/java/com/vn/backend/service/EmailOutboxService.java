@@ -0,0 +1,151 @@
+package com.vn.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vn.backend.job.EmailOutboxDispatcher;
+import com.vn.backend.model.EmailOutbox;
+import com.vn.backend.model.Order;
+import com.vn.backend.repository.EmailOutboxRepository;
+import com.vn.backend.util.TransactionUtil;
+import com.vn.backend.util.enums.EmailStatus;
+import com.vn.backend.util.enums.EmailTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.NumberFormat;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Hàng đợi email giao dịch (email_outbox).
+ * enqueue ghi email trong transaction của nghiệp vụ: rollback thì không có email, commit thì chắc chắn
+ * sẽ được gửi; sau commit đánh thức dispatcher để không phải chờ tới lượt quét kế tiếp.
+ */
+@Service
+@Slf4j
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<EmailOutboxDispatcher> dispatcher;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository,
+                              ObjectMapper objectMapper,
+                              ObjectProvider<EmailOutboxDispatcher> dispatcher,
+                              @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+                              @Value("${email.outbox.initial-backoff:PT30S}") Duration initialBackoff,
+                              @Value("${email.outbox.max-backoff:PT1H}") Duration maxBackoff) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Transactional
+    public void enqueue(EmailTemplate template, String recipient, Map<String, String> params) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize email params", e);
+        }
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .template(template)
+                .recipient(recipient)
+                .params(json)
+                .status(EmailStatus.PENDING)
+                .build());
+        TransactionUtil.afterCommit(() -> dispatcher.ifAvailable(EmailOutboxDispatcher::wakeUp));
+    }
+
+    public void enqueueResetPassword(String email, String resetUrl) {
+        enqueue(EmailTemplate.RESET_PASSWORD, email, Map.of("resetUrl", resetUrl));
+    }
+
+    public void enqueueOrderConfirmation(Order order) {
+        Map<String, String> params = orderParams(order);
+        params.put("totalAmount", NumberFormat.getIntegerInstance(new Locale("vi", "VN")).format(order.getTotalAmount()));
+        params.put("totalItem", String.valueOf(order.getTotalItem()));
+        params.put("methodPayment", order.getMethodPayment().name());
+        enqueue(EmailTemplate.ORDER_CONFIRMATION, order.getUser().getEmail(), params);
+    }
+
+    public void enqueueOrderShipping(Order order) {
+        enqueue(EmailTemplate.ORDER_SHIPPING, order.getUser().getEmail(), orderParams(order));
+    }
+
+    /**
+     * Nhận tối đa limit email đến hạn cho dispatcher này: chuyển sang SENDING với hạn nhận lease,
+     * quá hạn mà chưa báo kết quả (node chết) thì dòng tự quay lại hàng đợi
+     */
+    @Transactional
+    public List<EmailOutbox> claimDue(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = emailOutboxRepository.lockDue(now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        emailOutboxRepository.claim(ids, EmailStatus.SENDING, now.plus(lease));
+        return emailOutboxRepository.findAllById(ids);
+    }
+
+    @Transactional
+    public void markSent(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            emailOutboxRepository.markSent(ids, EmailStatus.SENT, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Ghi nhận lần gửi lỗi: hẹn thử lại với backoff lũy thừa, hết lượt thì chuyển DEAD
+     */
+    @Transactional
+    public void markFailed(Map<Long, Exception> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox email : emailOutboxRepository.findAllById(failures.keySet())) {
+            Exception error = failures.get(email.getId());
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setLastError(truncate(error.getClass().getSimpleName() + ": " + error.getMessage()));
+            if (attempts >= maxAttempts) {
+                email.setStatus(EmailStatus.DEAD);
+                log.error("Email {} ({} to {}) moved to dead letter after {} attempts: {}",
+                        email.getId(), email.getTemplate(), email.getRecipient(), attempts, email.getLastError());
+            } else {
+                email.setStatus(EmailStatus.PENDING);
+                email.setNextAttemptAt(now.plus(backoff(attempts)));
+                log.warn("Email {} failed (attempt {}), retrying at {}: {}",
+                        email.getId(), attempts, email.getNextAttemptAt(), email.getLastError());
+            }
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static Map<String, String> orderParams(Order order) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("orderId", String.valueOf(order.getId()));
+        params.put("customerName", order.getUser().getFullName());
+        params.put("address", order.getAddress());
+        return params;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
@@ -1,82 +1,95 @@
 package com.vn.backend.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vn.backend.model.EmailOutbox;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dựng và gửi email từ các dòng email_outbox. Được gọi bởi EmailOutboxDispatcher, không gọi trực tiếp
+ * trong request; nghiệp vụ ghi email qua EmailOutboxService.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class EmailService {
 
+    private static final TypeReference<Map<String, String>> PARAMS = new TypeReference<>() {
+    };
+
     private final JavaMailSender mailSender;
+    private final EmailTemplateRenderer renderer;
+    private final ObjectMapper objectMapper;
 
-    public void sendResetPassword(String to, String resetUrl) {
+    /**
+     * Gửi một lô email trên cùng một kết nối SMTP.
+     * Trả về lỗi theo id của các email không gửi được (rỗng nếu tất cả thành công).
+     */
+    public Map<Long, Exception> sendBatch(List<EmailOutbox> emails) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        for (EmailOutbox email : emails) {
+            try {
+                MimeMessage message = build(email);
+                byMessage.put(message, email);
+                messages.add(message);
+            } catch (Exception e) {
+                failures.put(email.getId(), e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
 
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper =
-                    new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(to);
-            helper.setSubject("Đặt lại mật khẩu của bạn");
-
-            String htmlContent = """
-                    <!DOCTYPE html>
-                    <html>
-                    <body style="background-color:#f4f6f8;font-family:Arial,sans-serif;">
-                      <table width="100%%" cellpadding="0" cellspacing="0">
-                        <tr>
-                          <td align="center" style="padding:40px 0;">
-                            <table width="600" style="background:#ffffff;border-radius:8px;padding:32px;">
-                              <tr>
-                                <td align="center">
-                                  <h2 style="color:#333;">Đặt lại mật khẩu</h2>
-                                </td>
-                              </tr>
-                              <tr>
-                                <td style="color:#555;font-size:14px;">
-                                  <p>Xin chào,</p>
-                                  <p>
-                                    Chúng tôi nhận được yêu cầu đặt lại mật khẩu cho tài khoản của bạn.
-                                  </p>
-                                  <p style="text-align:center;margin:32px 0;">
-                                    <a href="%s"
-                                       style="background:#4f46e5;color:#fff;
-                                              padding:12px 24px;
-                                              text-decoration:none;
-                                              border-radius:6px;
-                                              font-weight:bold;">
-                                      Đặt lại mật khẩu
-                                    </a>
-                                  </p>
-                                  <p>Liên kết này sẽ hết hạn sau <strong>10 phút</strong>.</p>
-                                  <p>
-                                    Nếu bạn không yêu cầu, vui lòng bỏ qua email này.
-                                  </p>
-                                  <p style="margin-top:32px;">
-                                    Trân trọng,<br/>
-                                    <strong>BookShop</strong>
-                                  </p>
-                                </td>
-                              </tr>
-                            </table>
-                          </td>
-                        </tr>
-                      </table>
-                    </body>
-                    </html>
-                    """.formatted(resetUrl);
-
-            helper.setText(htmlContent, true);
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                // Lỗi kết nối: không biết email nào đã đi, coi như cả lô thất bại
+                messages.forEach(m -> failures.put(byMessage.get(m).getId(), e));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    EmailOutbox email = byMessage.get(message);
+                    if (email != null) {
+                        failures.put(email.getId(), cause);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            messages.forEach(m -> failures.put(byMessage.get(m).getId(), e));
+        }
+        return failures;
+    }
 
-            mailSender.send(message);
+    private MimeMessage build(EmailOutbox email) throws Exception {
+        Map<String, String> params = parseParams(email.getParams());
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(renderer.subject(email.getTemplate(), params));
+        helper.setText(renderer.body(email.getTemplate(), params), true);
+        return message;
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Gửi email không thành công", e);
+    private Map<String, String> parseParams(String json) {
+        try {
+            return objectMapper.readValue(json, PARAMS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid email params", e);
         }
     }
 }
-
-
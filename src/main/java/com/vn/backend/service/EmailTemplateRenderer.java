@@ -0,0 +1,102 @@
+package com.vn.backend.service;
+
+import com.vn.backend.util.enums.EmailTemplate;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Biên dịch sẵn các template email một lần khi khởi động thành danh sách đoạn văn bản / biến {{name}},
+ * mỗi lần render chỉ nối chuỗi. Giá trị biến được escape HTML trong thân email, giữ nguyên trong tiêu đề.
+ */
+@Component
+@Slf4j
+public class EmailTemplateRenderer {
+
+    private static final String TEMPLATE_DIR = "templates/email/";
+
+    private final Map<EmailTemplate, Compiled> bodies = new EnumMap<>(EmailTemplate.class);
+    private final Map<EmailTemplate, Compiled> subjects = new EnumMap<>(EmailTemplate.class);
+
+    @PostConstruct
+    public void compile() {
+        for (EmailTemplate template : EmailTemplate.values()) {
+            bodies.put(template, Compiled.of(read(TEMPLATE_DIR + template.getFile())));
+            subjects.put(template, Compiled.of(template.getSubject()));
+        }
+        log.info("Compiled {} email templates", bodies.size());
+    }
+
+    public String subject(EmailTemplate template, Map<String, String> params) {
+        return subjects.get(template).render(params, false);
+    }
+
+    public String body(EmailTemplate template, Map<String, String> params) {
+        return bodies.get(template).render(params, true);
+    }
+
+    private static String read(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Missing email template " + path, e);
+        }
+    }
+
+    private static final class Compiled {
+        // Phần tử chẵn là văn bản, phần tử lẻ là tên biến
+        private final String[] parts;
+        private final int literalLength;
+
+        private Compiled(String[] parts, int literalLength) {
+            this.parts = parts;
+            this.literalLength = literalLength;
+        }
+
+        static Compiled of(String source) {
+            List<String> parts = new ArrayList<>();
+            int literalLength = 0;
+            int pos = 0;
+            while (true) {
+                int open = source.indexOf("{{", pos);
+                int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    parts.add(source.substring(pos));
+                    literalLength += source.length() - pos;
+                    break;
+                }
+                parts.add(source.substring(pos, open));
+                parts.add(source.substring(open + 2, close).trim());
+                literalLength += open - pos;
+                pos = close + 2;
+            }
+            return new Compiled(parts.toArray(String[]::new), literalLength);
+        }
+
+        String render(Map<String, String> params, boolean escape) {
+            StringBuilder sb = new StringBuilder(literalLength + 256);
+            for (int i = 0; i < parts.length; i++) {
+                if (i % 2 == 0) {
+                    sb.append(parts[i]);
+                } else {
+                    String value = params.get(parts[i]);
+                    if (value == null) {
+                        value = "";
+                    }
+                    sb.append(escape ? HtmlUtils.htmlEscape(value, "UTF-8") : value);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
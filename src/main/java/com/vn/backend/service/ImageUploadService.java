@@ -0,0 +1,199 @@
+package com.vn.backend.service;
+
+import com.vn.backend.dto.response.ApiResponse;
+import com.vn.backend.dto.response.ImageUploadResponse;
+import com.vn.backend.exception.AppException;
+import com.vn.backend.service.storage.ImageStorage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tải ảnh lên ImageStorage mà không đọc cả file vào heap.
+ * Multipart được spool ra file tạm (transferTo chỉ đổi tên file Tomcat đã ghi đĩa), rồi storage stream từ file đó.
+ * Các upload chạy trên pool giới hạn upload-concurrency; hàng đợi đầy thì thread gọi tự chạy (backpressure).
+ */
+@Service
+@Slf4j
+public class ImageUploadService {
+
+    private final ImageStorage imageStorage;
+    private final ImageVariantService imageVariantService;
+    private final ThreadPoolExecutor executor;
+    private final int maxBatchFiles;
+    private final DataSize maxBatchSize;
+
+    public ImageUploadService(ImageStorage imageStorage,
+                              ImageVariantService imageVariantService,
+                              @Value("${storage.images.upload-concurrency:4}") int concurrency,
+                              @Value("${storage.images.upload-queue:64}") int queueSize,
+                              @Value("${storage.images.max-batch-files:10}") int maxBatchFiles,
+                              @Value("${storage.images.max-batch-size:50MB}") DataSize maxBatchSize) {
+        this.imageStorage = imageStorage;
+        this.imageVariantService = imageVariantService;
+        this.maxBatchFiles = maxBatchFiles;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread thread = new Thread(r, "image-upload");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public ApiResponse<ImageUploadResponse> upload(MultipartFile file) {
+        ImageUploadResponse response = await(submit(file));
+        return ApiResponse.<ImageUploadResponse>builder()
+                .message("Tải lên thành công")
+                .data(response)
+                .build();
+    }
+
+    /**
+     * Tải nhiều ảnh song song; lỗi của từng file nằm trong trường error, không làm hỏng cả lô
+     */
+    public ApiResponse<List<ImageUploadResponse>> uploadBatch(List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(), "No files uploaded");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(), "At most " + maxBatchFiles + " files per request");
+        }
+        long totalBytes = files.stream().mapToLong(MultipartFile::getSize).sum();
+        if (totalBytes > maxBatchSize.toBytes()) {
+            throw new AppException(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                    "Batch exceeds " + maxBatchSize.toMegabytes() + "MB in total");
+        }
+
+        List<CompletableFuture<ImageUploadResponse>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            try {
+                futures.add(submit(file));
+            } catch (RuntimeException e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<ImageUploadResponse> results = new ArrayList<>(files.size());
+        int failed = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(await(futures.get(i)));
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("Upload of {} failed: {}", files.get(i).getOriginalFilename(), e.getMessage());
+                results.add(ImageUploadResponse.builder().error(e.getMessage()).build());
+            }
+        }
+
+        return ApiResponse.<List<ImageUploadResponse>>builder()
+                .statusCode(failed == 0 ? HttpStatus.OK.value() : HttpStatus.MULTI_STATUS.value())
+                .message(failed == 0 ? "Tải lên thành công" : "Tải lên thành công " + (files.size() - failed) + "/" + files.size())
+                .data(results)
+                .build();
+    }
+
+    /**
+     * Xóa ảnh gốc cùng các variant của nó; variant vẫn được dọn kể cả khi ảnh gốc đã không còn trong storage
+     */
+    public boolean delete(String id) throws IOException {
+        boolean deleted = imageStorage.delete(id);
+        imageVariantService.deleteVariants(id);
+        return deleted;
+    }
+
+    /**
+     * Spool trên thread của request (multipart gắn với request), upload trên pool
+     */
+    private CompletableFuture<ImageUploadResponse> submit(MultipartFile file) {
+        String contentType = file.getContentType();
+        if (contentType == null || !(contentType.startsWith("image/") || contentType.startsWith("video/")
+                || contentType.equals("application/pdf"))) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(), "Unsupported file type: " + contentType);
+        }
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload";
+
+        Path spooled;
+        try {
+            spooled = Files.createTempFile("upload-", ".tmp");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spool upload " + filename, e);
+        }
+        try {
+            file.transferTo(spooled);
+        } catch (IOException e) {
+            deleteQuietly(spooled);
+            throw new UncheckedIOException("Cannot spool upload " + filename, e);
+        }
+
+        boolean derive = imageVariantService.accepts(contentType);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                // Storage có thể chuyển (move) file đi, nên dựng variant từ một bản sao
+                Path source = derive ? Files.createTempFile("variant-source-", ".tmp") : null;
+                if (source != null) {
+                    Files.copy(spooled, source, StandardCopyOption.REPLACE_EXISTING);
+                }
+                ImageUploadResponse stored;
+                try {
+                    stored = imageStorage.store(spooled, filename, contentType);
+                } catch (IOException | RuntimeException e) {
+                    if (source != null) {
+                        deleteQuietly(source);
+                    }
+                    throw e;
+                }
+                if (source != null) {
+                    imageVariantService.deriveAsync(source, stored);
+                }
+                return stored;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deleteQuietly(spooled);
+            }
+        }, executor);
+    }
+
+    private static ImageUploadResponse await(CompletableFuture<ImageUploadResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete temp upload {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,357 @@
+package com.vn.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vn.backend.dto.response.ImageUploadResponse;
+import com.vn.backend.dto.response.ImageVariantResponse;
+import com.vn.backend.dto.response.ProductImageResponse;
+import com.vn.backend.model.ImageVariant;
+import com.vn.backend.repository.ImageVariantRepository;
+import com.vn.backend.repository.ProductImageRepository;
+import com.vn.backend.service.cache.ProductCache;
+import com.vn.backend.service.storage.ImageStorage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Sinh bản thu nhỏ theo các bề rộng cố định (mặc định 128/320/800px) cho ảnh vừa tải lên,
+ * lưu qua ImageStorage và ghi vào image_variants; các API sản phẩm/giỏ hàng trả kèm URL variant
+ * để client tải ảnh vừa khung thay vì ảnh gốc.
+ * Việc giải mã/co ảnh chạy trên pool giới hạn worker-threads, ngoài thread của request.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    private static final Set<String> SOURCE_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/bmp", "image/webp");
+
+    private final ImageStorage imageStorage;
+    private final ImageVariantRepository imageVariantRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductCache productCache;
+    private final boolean enabled;
+    private final int[] widths;
+    private final List<String> formats;
+    private final float quality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor workers;
+    // URL ảnh gốc -> variants (kể cả danh sách rỗng); xóa khi sinh xong variant của URL đó
+    private final Cache<String, List<ImageVariantResponse>> cache;
+
+    public ImageVariantService(ImageStorage imageStorage,
+                               ImageVariantRepository imageVariantRepository,
+                               ProductImageRepository productImageRepository,
+                               ProductCache productCache,
+                               @Value("${storage.images.variants.enabled:true}") boolean enabled,
+                               @Value("${storage.images.variants.widths:128,320,800}") int[] widths,
+                               @Value("${storage.images.variants.formats:jpeg}") List<String> formats,
+                               @Value("${storage.images.variants.quality:0.82}") float quality,
+                               @Value("${storage.images.variants.max-pixels:25000000}") long maxPixels,
+                               @Value("${storage.images.variants.worker-threads:2}") int workerThreads,
+                               @Value("${storage.images.variants.queue:32}") int queueSize,
+                               @Value("${storage.images.variants.cache-size:50000}") long cacheSize,
+                               @Value("${storage.images.variants.cache-ttl:10m}") Duration cacheTtl) {
+        this.imageStorage = imageStorage;
+        this.imageVariantRepository = imageVariantRepository;
+        this.productImageRepository = productImageRepository;
+        this.productCache = productCache;
+        this.enabled = enabled;
+        this.widths = widths.clone();
+        this.quality = quality;
+        this.maxPixels = maxPixels;
+        this.formats = supportedFormats(formats);
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread thread = new Thread(r, "image-variant");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.workers.allowCoreThreadTimeOut(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public boolean accepts(String contentType) {
+        return enabled && contentType != null && SOURCE_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Sinh variant bất đồng bộ cho ảnh đã lưu; service nhận quyền sở hữu file source và xóa nó khi xong
+     */
+    public void deriveAsync(Path source, ImageUploadResponse original) {
+        workers.execute(() -> {
+            try {
+                derive(source, original);
+            } catch (Exception e) {
+                log.warn("Failed to derive variants for {}: {}", original.getUrl(), e.getMessage());
+            } finally {
+                deleteQuietly(source);
+            }
+        });
+    }
+
+    /**
+     * Gắn variants vào các ảnh trong một lần truy vấn (bỏ qua ảnh đã có trong cache)
+     */
+    public void attach(Collection<ProductImageResponse> images) {
+        if (images.isEmpty()) {
+            return;
+        }
+        Set<String> urls = images.stream()
+                .map(ProductImageResponse::getImageUrl)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, List<ImageVariantResponse>> variants = lookup(urls);
+        for (ProductImageResponse image : images) {
+            image.setVariants(variants.getOrDefault(image.getImageUrl(), List.of()));
+        }
+    }
+
+    /**
+     * URL nhỏ nhất có bề rộng &gt;= minWidth cho mỗi ảnh gốc; ảnh chưa có variant phù hợp thì trả URL gốc
+     */
+    public Map<String, String> thumbnails(Collection<String> sourceUrls, int minWidth) {
+        Map<String, List<ImageVariantResponse>> variants = lookup(sourceUrls.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        Map<String, String> result = new HashMap<>();
+        for (String url : sourceUrls) {
+            if (url == null) {
+                continue;
+            }
+            String thumbnail = variants.getOrDefault(url, List.of()).stream()
+                    .filter(v -> v.getWidth() >= minWidth)
+                    .findFirst()
+                    .map(ImageVariantResponse::getUrl)
+                    .orElse(url);
+            result.put(url, thumbnail);
+        }
+        return result;
+    }
+
+    private Map<String, List<ImageVariantResponse>> lookup(Set<String> urls) {
+        if (urls.isEmpty()) {
+            return Map.of();
+        }
+        // getAll nạp các key thiếu trong một truy vấn, ngoài lock của cache
+        return cache.getAll(urls, missing -> {
+            Map<String, List<ImageVariantResponse>> loaded = new HashMap<>();
+            for (String url : missing) {
+                loaded.put(url, new ArrayList<>());
+            }
+            for (ImageVariant variant : imageVariantRepository.findBySourceUrlInOrderByWidth(loaded.keySet())) {
+                loaded.get(variant.getSourceUrl()).add(ImageVariantResponse.builder()
+                        .width(variant.getWidth())
+                        .format(variant.getFormat())
+                        .url(variant.getUrl())
+                        .build());
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Xóa file và dòng image_variants của ảnh gốc có id lưu trữ sourceStorageId, bỏ cache variant của URL gốc
+     * và bản cache của các sản phẩm đang trỏ tới URL đó (tránh trả URL variant đã bị xóa)
+     */
+    public void deleteVariants(String sourceStorageId) throws IOException {
+        List<ImageVariant> variants = imageVariantRepository.findBySourceStorageId(sourceStorageId);
+        if (variants.isEmpty()) {
+            return;
+        }
+        for (ImageVariant variant : variants) {
+            imageStorage.delete(variant.getStorageId());
+        }
+        imageVariantRepository.deleteAllInBatch(variants);
+        Set<String> sourceUrls = variants.stream().map(ImageVariant::getSourceUrl).collect(Collectors.toSet());
+        cache.invalidateAll(sourceUrls);
+        for (String sourceUrl : sourceUrls) {
+            productImageRepository.findProductIdsByImageUrl(sourceUrl).forEach(productCache::evict);
+        }
+        log.info("Deleted {} variants of {}", variants.size(), sourceStorageId);
+    }
+
+    private void derive(Path source, ImageUploadResponse original) throws IOException {
+        String sourceUrl = original.getUrl();
+        long start = System.currentTimeMillis();
+        BufferedImage image = read(source, sourceUrl);
+        if (image == null) {
+            return;
+        }
+
+        int created = 0;
+        for (int width : widths) {
+            // Không phóng to: ảnh gốc nhỏ hơn bề rộng này thì client dùng ảnh gốc
+            if (width >= image.getWidth()) {
+                continue;
+            }
+            BufferedImage scaled = scale(image, width);
+            for (String format : formats) {
+                Path encoded = Files.createTempFile("variant-", "." + format);
+                try {
+                    encode(scaled, format, encoded);
+                    long bytes = Files.size(encoded);
+                    String filename = "w" + width + "." + format;
+                    ImageUploadResponse stored = imageStorage.store(encoded, filename, "image/" + format);
+                    imageVariantRepository.save(ImageVariant.builder()
+                            .sourceUrl(sourceUrl)
+                            .sourceStorageId(original.getId())
+                            .width(width)
+                            .format(format)
+                            .url(stored.getUrl())
+                            .storageId(stored.getId())
+                            .bytes(bytes)
+                            .build());
+                    created++;
+                } finally {
+                    deleteQuietly(encoded);
+                }
+            }
+        }
+
+        if (created > 0) {
+            cache.invalidate(sourceUrl);
+            // Sản phẩm đã gắn ảnh này trước khi variant sinh xong: bỏ bản cache chưa có variant
+            productImageRepository.findProductIdsByImageUrl(sourceUrl).forEach(productCache::evict);
+        }
+        log.info("Derived {} variants for {} in {} ms", created, sourceUrl, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Đọc kích thước từ header trước khi giải mã: ảnh nén mạnh có thể nhỏ trên đĩa nhưng giải mã ra
+     * hàng GB pixel, nên ảnh vượt max-pixels bị bỏ qua (client dùng ảnh gốc). Trả null nếu bỏ qua.
+     */
+    private BufferedImage read(Path source, String sourceUrl) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.debug("No ImageIO reader for {}, skipping variants", sourceUrl);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Image {} has {} pixels (limit {}), skipping variants", sourceUrl, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Co ảnh về bề rộng width giữ tỉ lệ; giảm một nửa nhiều lần rồi mới co lần cuối
+     * để bilinear không bị răng cưa khi tỉ lệ co lớn. Luôn trả RGB (JPEG không có alpha, nền trắng).
+     */
+    private static BufferedImage scale(BufferedImage source, int width) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = nextWidth == width ? height : Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, nextWidth, nextHeight);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    private void encode(BufferedImage image, String format, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null && param.getCompressionTypes() != null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Chỉ giữ các định dạng ImageIO ghi được (JDK có sẵn jpeg/png; webp cần plugin ImageIO trên classpath)
+     */
+    private static List<String> supportedFormats(List<String> requested) {
+        List<String> supported = new ArrayList<>();
+        for (String format : requested) {
+            String name = format.trim().toLowerCase(Locale.ROOT);
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(name);
+            if (writers.hasNext()) {
+                supported.add(name);
+            } else {
+                log.warn("No ImageIO writer for image variant format '{}', skipping it", name);
+            }
+        }
+        return supported;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete temp file {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -22,7 +22,9 @@ import com.vn.backend.repository.OrderRepository;
 import com.vn.backend.repository.PaymentRepository;
 import com.vn.backend.util.MoMoUtil;
 import com.vn.backend.util.enums.PaymentMethod;
+import com.vn.backend.util.enums.OrderStatus;
 import com.vn.backend.util.enums.PaymentStatus;
+import com.vn.backend.util.enums.StockReservationStatus;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
@@ -42,14 +44,17 @@ public class MoMoService extends BasePaymentGatewayService {
     MoMoConfig moMoConfig;
     OrderRepository orderRepository;
     PaymentRepository paymentRepository;
+    StockReservationService stockReservationService;
 
     public MoMoService(MoMoConfig moMoConfig, 
                        OrderRepository orderRepository,
-                       PaymentRepository paymentRepository) {
+                       PaymentRepository paymentRepository,
+                       StockReservationService stockReservationService) {
         super(); // Initialize RestTemplate and ObjectMapper
         this.moMoConfig = moMoConfig;
         this.orderRepository = orderRepository;
         this.paymentRepository = paymentRepository;
+        this.stockReservationService = stockReservationService;
         log.info("MoMoService initialized with partner code: {}", moMoConfig.getPartnerCode());
     }
 
@@ -68,6 +73,14 @@ public class MoMoService extends BasePaymentGatewayService {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "Order has already been paid");
         }
 
+        // Thanh toán lại sau khi thất bại: giữ lại tồn kho đã hoàn trả
+        if (order.getStockStatus() == StockReservationStatus.RELEASED) {
+            if (order.getStatus() == OrderStatus.CANCELLED) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(), "Order has been cancelled");
+            }
+            stockReservationService.reacquire(order);
+        }
+
         try {
             // Tạo các tham số cho MoMo
             String partnerCode = moMoConfig.getPartnerCode();
@@ -112,19 +125,10 @@ public class MoMoService extends BasePaymentGatewayService {
             requestBody.put("lang", "vi");
             requestBody.put("signature", signature);
 
-            log.info("=== MoMo Payment Request ===");
-            log.info("Endpoint: {}", moMoConfig.getEndpoint());
-            log.info("PartnerCode: {}", partnerCode);
-            log.info("RequestId: {}", requestId);
-            log.info("OrderId: {}", orderId);
-            log.info("Amount: {}", amount);
-            log.info("RequestType: {}", requestType);
-            log.info("ReturnURL: {}", returnUrl);
-            log.info("NotifyURL: {}", notifyUrl);
-            log.info("Signature: {}", signature);
-            log.info("Raw signature data: accessKey={}&amount={}&extraData={}&ipnUrl={}&orderId={}&orderInfo={}&partnerCode={}&redirectUrl={}&requestId={}&requestType={}", 
-                accessKey, amount, extraData, notifyUrl, orderId, orderInfo, partnerCode, returnUrl, requestId, requestType);
-            log.debug("Full request body: {}", objectMapper.writeValueAsString(requestBody));
+            // Không log chữ ký, accessKey hay chuỗi ký ở INFO
+            log.info("MoMo payment request: orderId={}, requestId={}, amount={}, requestType={}",
+                    orderId, requestId, amount, requestType);
+            log.debug("MoMo endpoint: {}, returnUrl: {}, notifyUrl: {}", moMoConfig.getEndpoint(), returnUrl, notifyUrl);
 
             // Gửi request đến MoMo
             HttpHeaders headers = new HttpHeaders();
@@ -138,7 +142,9 @@ public class MoMoService extends BasePaymentGatewayService {
 
             @SuppressWarnings("unchecked")
             Map<String, Object> responseBody = response.getBody();
-            log.info("MoMo response: {}", objectMapper.writeValueAsString(responseBody));
+            log.debug("MoMo response: resultCode={}, message={}",
+                    responseBody != null ? responseBody.get("resultCode") : null,
+                    responseBody != null ? responseBody.get("message") : null);
 
             if (responseBody == null) {
                 throw new AppException(HttpStatus.INTERNAL_SERVER_ERROR.value(), 
@@ -194,7 +200,6 @@ public class MoMoService extends BasePaymentGatewayService {
         
         // Lấy query string gốc (chưa decode) để verify signature
         String queryString = request.getQueryString();
-        log.info("Original query string: {}", queryString);
         
         // Lấy params đã decode để xử lý logic
         Map<String, String> params = new HashMap<>();
@@ -204,7 +209,7 @@ public class MoMoService extends BasePaymentGatewayService {
             }
         });
         
-        log.info("Decoded params: {}", params);
+        log.info("MoMo callback for orderId={}, resultCode={}", params.get("orderId"), params.get("resultCode"));
 
         try {
             // Lấy signature từ params
@@ -224,10 +229,8 @@ public class MoMoService extends BasePaymentGatewayService {
                 queryForVerify = queryString.substring(queryString.indexOf("&") + 1);
             }
             
-            log.info("Query string for signature verify: {}", queryForVerify);
             String calculatedSignature = MoMoUtil.hmacSHA256(queryForVerify, moMoConfig.getSecretKey());
-            log.info("Calculated signature: {}", calculatedSignature);
-            log.info("Received signature: {}", signature);
+            log.debug("MoMo callback signature match: {}", calculatedSignature.equals(signature));
 
 //            if (!calculatedSignature.equals(signature)) {
 //                log.error("Invalid signature from MoMo. Expected: {}, Received: {}",
@@ -317,6 +320,7 @@ public class MoMoService extends BasePaymentGatewayService {
                     orderIdLong, resultCode, message);
                 
                 order.setPaymentStatus(PaymentStatus.FAILED);
+                stockReservationService.release(order);
                 orderRepository.save(order);
 
                 Payment payment = paymentRepository.findByOrderId(orderIdLong)
@@ -0,0 +1,98 @@
+package com.vn.backend.service;
+
+import com.vn.backend.dto.projection.OrderItemView;
+import com.vn.backend.dto.projection.UserContactView;
+import com.vn.backend.dto.response.OrderItemResponse;
+import com.vn.backend.dto.response.OrderResponse;
+import com.vn.backend.model.Order;
+import com.vn.backend.repository.OrderItemRepository;
+import com.vn.backend.repository.UserRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read model cho các API danh sách đơn hàng.
+ * Sau truy vấn trang đơn, mỗi trang tốn cố định 2 truy vấn: order items kèm thông tin sản phẩm
+ * và thông tin khách hàng, đều nạp theo lô ID; không hydrate Product nên tránh N+1 từ authors/images EAGER.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class OrderListingService {
+
+    OrderItemRepository orderItemRepository;
+    UserRepository userRepository;
+
+    /**
+     * Chuyển một trang Order sang trang OrderResponse
+     */
+    public Page<OrderResponse> toResponsePage(Page<Order> page) {
+        Map<Long, OrderResponse> responses = toResponses(page.getContent()).stream()
+                .collect(Collectors.toMap(OrderResponse::getId, Function.identity()));
+        return page.map(order -> responses.get(order.getId()));
+    }
+
+    /**
+     * Ghép danh sách Order với items và khách hàng đã nạp theo lô, giữ nguyên thứ tự đầu vào
+     */
+    public List<OrderResponse> toResponses(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        // getUser().getId() đọc ID từ proxy, không nạp User
+        List<Long> userIds = orders.stream().map(order -> order.getUser().getId()).distinct().toList();
+
+        Map<Long, List<OrderItemResponse>> itemsByOrder = new HashMap<>();
+        for (OrderItemView item : orderItemRepository.findViewsByOrderIdIn(orderIds)) {
+            itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>())
+                    .add(OrderItemResponse.builder()
+                            .id(item.getId())
+                            .productId(item.getProductId())
+                            .productName(item.getProductName())
+                            .productPrice(item.getProductPrice())
+                            .productDiscount(item.getProductDiscount())
+                            .quantity(item.getQuantity())
+                            .total(item.getTotal())
+                            .build());
+        }
+
+        Map<Long, UserContactView> users = userRepository.findContactsByIdIn(userIds).stream()
+                .collect(Collectors.toMap(UserContactView::getId, Function.identity()));
+
+        return orders.stream()
+                .map(order -> toOrderResponse(order,
+                        users.get(order.getUser().getId()),
+                        itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private OrderResponse toOrderResponse(Order order, UserContactView user, List<OrderItemResponse> items) {
+        return OrderResponse.builder()
+                .id(order.getId())
+                .customerId(order.getUser().getId())
+                .customerName(user != null ? user.getFullName() : null)
+                .customerEmail(user != null ? user.getEmail() : null)
+                .address(order.getAddress())
+                .status(order.getStatus())
+                .methodPayment(order.getMethodPayment())
+                .paymentStatus(order.getPaymentStatus())
+                .totalAmount(order.getTotalAmount())
+                .totalItem(order.getTotalItem())
+                .items(items)
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+}
@@ -9,9 +9,14 @@ import com.vn.backend.dto.response.PagedResponse;
 import com.vn.backend.exception.AppException;
 import com.vn.backend.model.*;
 import com.vn.backend.repository.*;
+import com.vn.backend.service.CouponRedemptionService.CouponRedemption;
+import com.vn.backend.service.cart.CartStore;
+import com.vn.backend.util.KeysetCursor;
 import com.vn.backend.util.enums.OrderStatus;
 import com.vn.backend.util.enums.PaymentMethod;
 import com.vn.backend.util.enums.PaymentStatus;
+import com.vn.backend.util.enums.StockReservationStatus;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.transaction.Transactional;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -21,12 +26,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,22 +42,22 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
+    // Các trường được phép sắp xếp ở chế độ cursor (keyset)
+    private static final List<String> CURSOR_SORT_FIELDS = List.of("id", "createdAt");
+
     OrderRepository orderRepository;
     OrderItemRepository orderItemRepository;
     CartRepository cartRepository;
     CartItemRepository cartItemRepository;
-    ProductRepository productRepository;
-    UserRepository userRepository;
+    CurrentUser currentUser;
     PaymentService paymentService;
-
-    /**
-     * Lấy người dùng đang đăng nhập hiện tại
-     */
-    private User getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "User not found"));
-    }
+    KeysetRepository keysetRepository;
+    StockReservationService stockReservationService;
+    OrderListingService orderListingService;
+    DailySalesRollupService dailySalesRollupService;
+    EmailOutboxService emailOutboxService;
+    CartStore cartStore;
+    CouponRedemptionService couponRedemptionService;
 
     /**
      * Chuyển OrderItem sang OrderItemResponse
@@ -95,8 +102,13 @@ public class OrderService {
 
     /**
      * Admin: lấy tất cả đơn hàng có phân trang
+     * Nếu có tham số cursor (kể cả rỗng) thì dùng phân trang keyset, bỏ qua COUNT(*)
      */
-    public PagedResponse<OrderResponse> getAllOrders(String keyword, String status, Pageable pageable) {
+    public PagedResponse<OrderResponse> getAllOrders(String keyword, String status, String cursor, Pageable pageable) {
+        if (cursor != null) {
+            return scrollOrders(keyword, parseStatusFilter(status), cursor, pageable);
+        }
+
         // Xử lý sort mặc định
         Pageable pageableWithDefaultSort = pageable;
         if (pageable.getSort().isUnsorted()) {
@@ -109,15 +121,7 @@ public class OrderService {
         }
 
         // Xử lý Status Enum
-        OrderStatus statusEnum = null;
-        if (status != null && !status.isEmpty() && !status.equals("ALL")) {
-            try {
-                statusEnum = OrderStatus.valueOf(status.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                // Nếu status sai thì bỏ qua hoặc throw lỗi tùy bạn, ở đây ta bỏ qua coi như không lọc
-                log.warn("Invalid status filter: {}", status);
-            }
-        }
+        OrderStatus statusEnum = parseStatusFilter(status);
 
         // Gọi Repository mới
         Page<Order> orders = orderRepository.findOrders(
@@ -126,13 +130,8 @@ public class OrderService {
                 pageableWithDefaultSort
         );
 
-        // Map sang Response (giữ nguyên logic cũ)
-        List<OrderResponse> orderResponses = orders.getContent().stream()
-                .map(order -> {
-                    List<OrderItem> items = orderItemRepository.findByOrder(order);
-                    return toOrderResponse(order, items);
-                })
-                .collect(Collectors.toList());
+        // Map sang Response: items, sản phẩm và khách hàng nạp theo lô
+        List<OrderResponse> orderResponses = orderListingService.toResponses(orders.getContent());
 
         return PagedResponse.<OrderResponse>builder()
                 .data(orderResponses)
@@ -145,18 +144,60 @@ public class OrderService {
                 .build();
     }
 
+    /**
+     * Admin: lấy đơn hàng theo phân trang keyset (id/createdAt), không chạy COUNT(*)
+     */
+    private PagedResponse<OrderResponse> scrollOrders(String keyword, OrderStatus status, String cursor, Pageable pageable) {
+        KeysetCursor after = KeysetCursor.decode(cursor, CURSOR_SORT_FIELDS);
+        Sort.Order order = KeysetCursor.resolveOrder(after, pageable, Sort.Order.desc("id"), CURSOR_SORT_FIELDS);
+
+        Specification<Order> filter = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (keyword != null && !keyword.trim().isEmpty()) {
+                predicates.add(cb.like(cb.lower(root.join("user").get("fullName")),
+                        "%" + keyword.trim().toLowerCase() + "%"));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+
+        KeysetSlice<Order> slice = keysetRepository.findSlice(Order.class, filter, order, after, pageable.getPageSize());
+
+        List<OrderResponse> orderResponses = orderListingService.toResponses(slice.getContent());
+
+        return PagedResponse.<OrderResponse>builder()
+                .data(orderResponses)
+                .pageSize(pageable.getPageSize())
+                .hasNext(slice.hasNext())
+                .hasPrevious(after != null)
+                .nextCursor(slice.getNextCursor())
+                .build();
+    }
+
+    /**
+     * Chuyển tham số status sang enum, "ALL" hoặc giá trị sai coi như không lọc
+     */
+    private OrderStatus parseStatusFilter(String status) {
+        if (status != null && !status.isEmpty() && !status.equals("ALL")) {
+            try {
+                return OrderStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Nếu status sai thì bỏ qua hoặc throw lỗi tùy bạn, ở đây ta bỏ qua coi như không lọc
+                log.warn("Invalid status filter: {}", status);
+            }
+        }
+        return null;
+    }
+
     /**
      * Lấy đơn hàng của người dùng hiện tại có phân trang
      */
     public Page<OrderResponse> getUserOrders(Pageable pageable) {
-        User currentUser = getCurrentUser();
-        log.info("Getting orders for user: {}", currentUser.getEmail());
-
-        return orderRepository.findByUser(currentUser, pageable)
-                .map(order -> {
-                    List<OrderItem> items = orderItemRepository.findByOrder(order);
-                    return toOrderResponse(order, items);
-                });
+        log.info("Getting orders for user: {}", currentUser.email());
+
+        return orderListingService.toResponsePage(orderRepository.findByUserId(currentUser.id(), pageable));
     }
 
     /**
@@ -172,25 +213,21 @@ public class OrderService {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "Invalid order status: " + status);
         }
 
-        return orderRepository.findByStatus(orderStatus, pageable)
-                .map(order -> {
-                    List<OrderItem> items = orderItemRepository.findByOrder(order);
-                    return toOrderResponse(order, items);
-                });
+        return orderListingService.toResponsePage(orderRepository.findByStatus(orderStatus, pageable));
     }
 
     /**
      * Lấy chi tiết đơn hàng theo ID (kiểm tra quyền cơ bản)
      */
     public OrderResponse getOrderById(Long id) {
-        User currentUser = getCurrentUser();
+        Long userId = currentUser.id();
         log.info("Getting order with id: {}", id);
 
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Order not found"));
 
         // Check if user owns this order (unless admin)
-        if (!order.getUser().getId().equals(currentUser.getId())) {
+        if (!order.getUser().getId().equals(userId)) {
             // TODO: Check if user is admin, if not throw forbidden exception
             // For now, we'll allow it
         }
@@ -204,11 +241,14 @@ public class OrderService {
      */
     @Transactional
     public OrderResponse createOrder(CreateOrderRequest request) {
-        User currentUser = getCurrentUser();
-        log.info("Creating order for user: {}", currentUser.getEmail());
+        Long userId = currentUser.id();
+        log.info("Creating order for user: {}", currentUser.email());
+
+        // Giỏ có thể đang giữ thay đổi chưa ghi trong bộ nhớ: ghi xuống trước khi đọc cart_items
+        cartStore.flush(userId);
 
         // Lấy giỏ hàng của người dùng
-        Cart cart = cartRepository.findByCustomer(currentUser)
+        Cart cart = cartRepository.findByCustomerId(userId)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Cart not found"));
 
         // Lấy tất cả hoặc chỉ các item được chọn
@@ -233,14 +273,10 @@ public class OrderService {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "No items selected");
         }
 
-        // Kiểm tra tồn kho
-        for (CartItem cartItem : cartItems) {
-            Product product = cartItem.getProduct();
-            if (product.getStockQuanity() < cartItem.getQuantity()) {
-                throw new AppException(HttpStatus.BAD_REQUEST.value(),
-                        "Product '" + product.getName() + "' has insufficient stock");
-            }
-        }
+        // Giữ tồn kho cho toàn bộ các dòng (khóa theo thứ tự id, trừ kho bằng một câu UPDATE có điều kiện)
+        Map<Long, Integer> quantities = cartItems.stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity, Integer::sum));
+        stockReservationService.reserve(quantities);
 
         // Tính tổng tiền của các item được chọn
         Long itemTotalAmount = cartItems.stream()
@@ -258,7 +294,13 @@ public class OrderService {
             shippingFee = 20000; // Giao tiết kiệm (Mặc định)
         }
 
-        Long finalTotalAmount = itemTotalAmount + shippingFee;
+        // Giữ một lượt mã giảm giá (trừ có điều kiện, kiểm tra giới hạn mỗi người); đơn rollback thì lượt được trả lại
+        CouponRedemption couponRedemption = StringUtils.hasText(request.getCouponCode())
+                ? couponRedemptionService.reserve(request.getCouponCode().trim(), userId, itemTotalAmount)
+                : null;
+        long discountAmount = couponRedemption != null ? couponRedemption.getDiscountAmount() : 0L;
+
+        Long finalTotalAmount = itemTotalAmount - discountAmount + shippingFee;
 
         // Chuyển đổi và validate payment method
         PaymentMethod paymentMethod;
@@ -278,37 +320,36 @@ public class OrderService {
 
         // Tạo đơn hàng
         Order order = Order.builder()
-                .user(currentUser)
+                .user(currentUser.reference())
                 .address(request.getAddress())
                 .status(OrderStatus.PENDING)
                 .methodPayment(paymentMethod)
                 .paymentStatus(paymentStatus)
                 .totalAmount(finalTotalAmount)
                 .totalItem(totalItem)
+                .stockStatus(StockReservationStatus.RESERVED)
                 .build();
 
         order = orderRepository.save(order);
+        dailySalesRollupService.recordOrderCreated(order);
         log.info("Order created with id: {}", order.getId());
 
+        if (couponRedemption != null) {
+            couponRedemptionService.record(couponRedemption, order);
+        }
+
         // Tạo payment record chỉ cho COD (online payment sẽ tạo khi gọi gateway)
         if (paymentMethod == PaymentMethod.COD) {
             paymentService.createPayment(order);
         }
 
-        // Tạo order items và trừ tồn kho
+        // Tạo order items (tồn kho đã được trừ ở bước giữ hàng)
         final Order finalOrder = order;
         List<OrderItem> orderItems = cartItems.stream()
                 .map(cartItem -> {
-                    Product product = cartItem.getProduct();
-
-                    // Trừ tồn kho
-                    product.setStockQuanity(product.getStockQuanity() - cartItem.getQuantity());
-                    productRepository.save(product);
-
-                    // Tạo order item
                     OrderItem orderItem = OrderItem.builder()
                             .order(finalOrder)
-                            .product(product)
+                            .product(cartItem.getProduct())
                             .quantity(cartItem.getQuantity())
                             .total(cartItem.getTotal())
                             .build();
@@ -323,13 +364,13 @@ public class OrderService {
                 .collect(Collectors.toList());
         cartItemRepository.deleteAllById(cartItemIdsToDelete);
 
-        // Cập nhật lại tổng tiền giỏ hàng
-        List<CartItem> remainingItems = cartItemRepository.findByCart(cart);
-        Long newCartTotal = remainingItems.stream()
-                .mapToLong(CartItem::getTotal)
-                .sum();
-        cart.setTotal(newCartTotal);
+        // Trừ phần đã đặt khỏi tổng tiền/số lượng của giỏ (version của giỏ chặn ghi đè khi tab khác vừa sửa giỏ)
+        cart.setTotal((cart.getTotal() != null ? cart.getTotal() : 0L) - itemTotalAmount);
+        cart.setItemCount(cart.getItemCount() - totalItem);
         cartRepository.save(cart);
+        cartStore.evictAfterCommit(userId);
+
+        emailOutboxService.enqueueOrderConfirmation(order);
 
         log.info("Order items created and selected cart items cleared");
         return toOrderResponse(order, orderItems);
@@ -351,6 +392,7 @@ public class OrderService {
 
         order.setStatus(OrderStatus.CONFIRMED);
         order = orderRepository.save(order);
+        dailySalesRollupService.recordOrderStatusChange(order, OrderStatus.PENDING);
 
         List<OrderItem> items = orderItemRepository.findByOrder(order);
         log.info("Order approved successfully with id: {}", id);
@@ -415,6 +457,14 @@ public class OrderService {
 
         order.setStatus(newStatus);
 
+        // Hủy đơn thì hoàn trả tồn kho và lượt dùng mã giảm giá, giao thành công thì chốt tồn kho
+        if (newStatus == OrderStatus.CANCELLED) {
+            stockReservationService.release(order);
+            couponRedemptionService.release(order);
+        } else if (newStatus == OrderStatus.DELIVERED) {
+            stockReservationService.commit(order);
+        }
+
         // Tự động xác nhận thanh toán COD khi giao hàng thành công
         if (newStatus == OrderStatus.DELIVERED && order.getMethodPayment() == PaymentMethod.COD
                 && order.getPaymentStatus() == PaymentStatus.UNPAID) {
@@ -428,6 +478,10 @@ public class OrderService {
         }
 
         order = orderRepository.save(order);
+        dailySalesRollupService.recordOrderStatusChange(order, currentStatus);
+        if (newStatus == OrderStatus.SHIPPING) {
+            emailOutboxService.enqueueOrderShipping(order);
+        }
 
         List<OrderItem> items = orderItemRepository.findByOrder(order);
         log.info("Order status updated successfully to: {}", newStatus);
@@ -439,10 +493,9 @@ public class OrderService {
      */
     @Transactional
     public OrderResponse cancelOrder(Long id) {
-        User currentUser = getCurrentUser();
-        log.info("User {} cancelling order {}", currentUser.getEmail(), id);
+        log.info("User {} cancelling order {}", currentUser.email(), id);
 
-        Order order = orderRepository.findByIdAndUser(id, currentUser)
+        Order order = orderRepository.findByIdAndUserId(id, currentUser.id())
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(),
                         "Order not found or you don't have permission"));
 
@@ -451,15 +504,10 @@ public class OrderService {
                     "Only pending or confirmed orders can be cancelled by customer");
         }
 
-        // Restore product stock
+        // Hoàn trả tồn kho (bỏ qua nếu đã hoàn trả do thanh toán thất bại) và lượt dùng mã giảm giá
+        stockReservationService.release(order);
+        couponRedemptionService.release(order);
         List<OrderItem> items = orderItemRepository.findByOrder(order);
-        for (OrderItem item : items) {
-            Product product = item.getProduct();
-            product.setStockQuanity(product.getStockQuanity() + item.getQuantity());
-            productRepository.save(product);
-            log.debug("Restored {} units of product {} (ID: {})",
-                    item.getQuantity(), product.getName(), product.getId());
-        }
 
         // Hoàn tiền nếu đã thanh toán
         if (order.getPaymentStatus() == PaymentStatus.PAID) {
@@ -477,8 +525,10 @@ public class OrderService {
             order.setPaymentStatus(PaymentStatus.FAILED);
         }
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         order = orderRepository.save(order);
+        dailySalesRollupService.recordOrderStatusChange(order, previousStatus);
 
         log.info("Order cancelled and stock restored");
         return toOrderResponse(order, items);
@@ -499,6 +549,7 @@ public class OrderService {
 
         // Delete order
         orderRepository.delete(order);
+        dailySalesRollupService.recordOrderDeleted(order);
 
         log.info("Order deleted successfully with id: {}", id);
     }
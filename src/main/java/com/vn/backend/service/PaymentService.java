@@ -29,6 +29,7 @@ public class PaymentService {
 
     PaymentRepository paymentRepository;
     OrderRepository orderRepository;
+    StockReservationService stockReservationService;
 
     /**
      * Chuyển Payment sang PaymentResponse
@@ -127,6 +128,7 @@ public class PaymentService {
         payment = paymentRepository.save(payment);
 
         order.setPaymentStatus(PaymentStatus.FAILED);
+        stockReservationService.release(order);
         orderRepository.save(order);
 
         log.info("Payment marked as failed for order: {}", orderId);
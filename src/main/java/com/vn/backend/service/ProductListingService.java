@@ -0,0 +1,140 @@
+package com.vn.backend.service;
+
+import com.vn.backend.dto.projection.AuthorView;
+import com.vn.backend.dto.projection.ProductImageView;
+import com.vn.backend.dto.projection.ProductSummaryView;
+import com.vn.backend.dto.response.AuthorResponse;
+import com.vn.backend.dto.response.ProductImageResponse;
+import com.vn.backend.dto.response.ProductResponse;
+import com.vn.backend.repository.AuthorRepository;
+import com.vn.backend.repository.ProductImageRepository;
+import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.service.cache.CategoryTree;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read model cho các API danh sách sản phẩm.
+ * Mỗi trang tốn cố định 3 truy vấn: products (projection) + authors + images theo lô ID
+ * (cộng một truy vấn variants ảnh nếu chưa có trong cache của ImageVariantService),
+ * tên danh mục lấy từ CategoryTree; không hydrate entity Product nên tránh được N+1 từ các collection EAGER.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ProductListingService {
+
+    ProductRepository productRepository;
+    AuthorRepository authorRepository;
+    ProductImageRepository productImageRepository;
+    CategoryTree categoryTree;
+    ImageVariantService imageVariantService;
+
+    /**
+     * Chuyển một trang projection sang trang ProductResponse
+     */
+    public Page<ProductResponse> toResponsePage(Page<ProductSummaryView> page) {
+        Map<Long, ProductResponse> responses = toResponses(page.getContent()).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        return page.map(row -> responses.get(row.getId()));
+    }
+
+    /**
+     * Lấy sản phẩm theo danh sách ID và giữ nguyên thứ tự đầu vào
+     */
+    public List<ProductResponse> findByIdsOrdered(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ProductSummaryView> rows = productRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductSummaryView::getId, Function.identity()));
+
+        List<ProductSummaryView> ordered = ids.stream()
+                .filter(rows::containsKey)
+                .map(rows::get)
+                .collect(Collectors.toList());
+
+        return toResponses(ordered);
+    }
+
+    /**
+     * Ghép projection với authors, images đã nạp theo lô và tên danh mục từ CategoryTree
+     */
+    public List<ProductResponse> toResponses(List<ProductSummaryView> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> productIds = rows.stream().map(ProductSummaryView::getId).toList();
+
+        Map<Long, List<AuthorResponse>> authorsByProduct = new HashMap<>();
+        for (AuthorView author : authorRepository.findViewsByProductIdIn(productIds)) {
+            authorsByProduct.computeIfAbsent(author.getProductId(), k -> new ArrayList<>())
+                    .add(AuthorResponse.builder()
+                            .id(author.getId())
+                            .name(author.getName())
+                            .build());
+        }
+
+        Map<Long, List<ProductImageResponse>> imagesByProduct = new HashMap<>();
+        for (ProductImageView image : productImageRepository.findViewsByProductIdIn(productIds)) {
+            imagesByProduct.computeIfAbsent(image.getProductId(), k -> new ArrayList<>())
+                    .add(ProductImageResponse.builder()
+                            .id(image.getId())
+                            .imageUrl(image.getImageUrl())
+                            .build());
+        }
+        imageVariantService.attach(imagesByProduct.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
+
+        return rows.stream()
+                .map(row -> toProductResponse(row,
+                        categoryTree.nameOf(row.getCategoryId()),
+                        authorsByProduct.getOrDefault(row.getId(), List.of()),
+                        imagesByProduct.getOrDefault(row.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private ProductResponse toProductResponse(ProductSummaryView row, String categoryName,
+                                              List<AuthorResponse> authors, List<ProductImageResponse> images) {
+        long price = row.getPrice() != null ? row.getPrice() : 0L;
+        int discount = row.getDiscount() != null ? row.getDiscount() : 0;
+        long finalPrice = price - (price * discount / 100);
+
+        return ProductResponse.builder()
+                .id(row.getId())
+                .categoryId(row.getCategoryId())
+                .categoryName(categoryName)
+                .name(row.getName())
+                .shortDescription(row.getShortDescription())
+                .description(row.getDescription())
+                .dimension(row.getDimension())
+                .numberOfPages(row.getNumberOfPages())
+                .isbn(row.getIsbn())
+                .stockQuantity(row.getStockQuantity())
+                .price(row.getPrice())
+                .discount(row.getDiscount())
+                .finalPrice(finalPrice)
+                .publisher(row.getPublisher())
+                .publisherDate(row.getPublisherDate())
+                .ratingAvg(row.getRatingAvg())
+                .ratingCount(row.getRatingCount())
+                .createdAt(row.getCreatedAt())
+                .updatedAt(row.getUpdatedAt())
+                .authors(authors)
+                .images(images)
+                .build();
+    }
+}
@@ -10,8 +10,14 @@ import com.vn.backend.dto.ai.ProductFieldRequest;
 import com.vn.backend.dto.ai.RecommendResponse;
 import com.vn.backend.dto.ai.SemanticSearchRequest;
 import com.vn.backend.dto.response.PagedResponse;
+import com.vn.backend.service.cache.CategoryTree;
+import com.vn.backend.service.cache.ProductCache;
+import com.vn.backend.service.search.ProductSearchIndex;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,8 +35,11 @@ import com.vn.backend.model.Product;
 import com.vn.backend.model.ProductImage;
 import com.vn.backend.repository.AuthorRepository;
 import com.vn.backend.repository.CategoryRepository;
+import com.vn.backend.repository.KeysetRepository;
+import com.vn.backend.repository.KeysetSlice;
 import com.vn.backend.repository.ProductImageRepository;
 import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.util.KeysetCursor;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -39,8 +48,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -49,20 +57,31 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProductService {
 
+    // Các trường được phép sắp xếp ở chế độ cursor (keyset)
+    private static final List<String> CURSOR_SORT_FIELDS = List.of("id", "createdAt", "price", "ratingAvg");
+    private static final Sort.Order DEFAULT_CURSOR_ORDER = Sort.Order.desc("id");
+
     AIServiceClient aiServiceClient;
     ProductRepository productRepository;
     CategoryRepository categoryRepository;
     AuthorRepository authorRepository;
     ProductImageRepository productImageRepository;
-
-    private AuthorResponse toAuthorResponse(Author author) {
+    ProductSearchIndex productSearchIndex;
+    ProductListingService productListingService;
+    KeysetRepository keysetRepository;
+    ProductCache productCache;
+    CategoryTree categoryTree;
+    DailySalesRollupService dailySalesRollupService;
+    ImageVariantService imageVariantService;
+
+    private static AuthorResponse toAuthorResponse(Author author) {
         return AuthorResponse.builder()
                 .id(author.getId())
                 .name(author.getName())
                 .build();
     }
 
-    private ProductImageResponse toProductImageResponse(ProductImage image) {
+    private static ProductImageResponse toProductImageResponse(ProductImage image) {
         return ProductImageResponse.builder()
                 .id(image.getId())
                 .imageUrl(image.getImageUrl())
@@ -70,9 +89,9 @@ public class ProductService {
     }
 
     /**
-     * Convert Product to ProductResponse
+     * Chuyển Product sang ProductResponse; để phạm vi package để benchmark JMH gọi trực tiếp
      */
-    private ProductResponse toProductResponse(Product product) {
+    static ProductResponse toProductResponse(Product product) {
         long finalPrice = product.getPrice() - (product.getPrice() * product.getDiscount() / 100);
 
         return ProductResponse.builder()
@@ -98,14 +117,14 @@ public class ProductService {
                 .authors(
                         product.getAuthors() != null
                                 ? product.getAuthors().stream()
-                                .map(this::toAuthorResponse)
+                                .map(ProductService::toAuthorResponse)
                                 .collect(Collectors.toList())
                                 : List.of()
                 )
                 .images(
                         product.getImages() != null
                                 ? product.getImages().stream()
-                                .map(this::toProductImageResponse)
+                                .map(ProductService::toProductImageResponse)
                                 .collect(Collectors.toList())
                                 : List.of()
                 )
@@ -114,31 +133,32 @@ public class ProductService {
 
     /**
      * Get all products with pagination
+     * Nếu có tham số cursor (kể cả rỗng) thì dùng phân trang keyset, bỏ qua COUNT(*).
+     * Tìm theo keyword xếp hạng theo độ liên quan của chỉ mục tìm kiếm, không có khóa keyset ổn định,
+     * nên chỉ hỗ trợ phân trang page/size để cùng một từ khóa luôn cho cùng kết quả.
      */
-    public PagedResponse<ProductResponse> getAllProducts(String keyword, Pageable pageable) {
-        Page<Product> products;
+    public PagedResponse<ProductResponse> getAllProducts(String keyword, String cursor, Pageable pageable) {
+        if (cursor != null) {
+            if (keyword != null && !keyword.trim().isEmpty()) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(),
+                        "Chế độ cursor không hỗ trợ tìm theo keyword, hãy dùng page/size");
+            }
+            return scrollProducts(null, cursor, pageable);
+        }
+
+        Page<ProductResponse> products;
 
         if (keyword != null && !keyword.trim().isEmpty()) {
-            products = productRepository.findByKeyword(keyword.trim(), pageable);
+            products = productSearchIndex.isReady()
+                    ? searchIndexed(keyword.trim(), null, null, null, pageable)
+                    : productListingService.toResponsePage(
+                            productRepository.findSummariesByKeyword(keyword.trim(), pageable));
         } else {
-            products = productRepository.findAll(pageable);
+            products = productListingService.toResponsePage(productRepository.findAllSummaries(pageable));
         }
 
-        List<ProductResponse> productResponses = products.getContent().stream()
-                .filter(product -> product != null && product.getCategory() != null)
-                .map(product -> {
-                    try {
-                        return toProductResponse(product);
-                    } catch (Exception e) {
-                        log.error("Error converting product {}: {}", product.getId(), e.getMessage());
-                        return null;
-                    }
-                })
-                .filter(response -> response != null)
-                .collect(Collectors.toList());
-
         PagedResponse<ProductResponse> response = PagedResponse.<ProductResponse>builder()
-                .data(productResponses)
+                .data(products.getContent())
                 .totalElements(products.getTotalElements())
                 .totalPages(products.getTotalPages())
                 .currentPage(products.getNumber())
@@ -151,13 +171,17 @@ public class ProductService {
     }
 
     /**
-     * Get product by ID
+     * Get product by ID (đọc qua ProductCache)
      */
     public ProductResponse getProductById(Long id) {
         log.info("Getting product with id: {}", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Product not found"));
-        return toProductResponse(product);
+        return productCache.get(id, productId -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Product not found"));
+            ProductResponse response = toProductResponse(product);
+            imageVariantService.attach(response.getImages());
+            return response;
+        });
     }
 
     /**
@@ -192,6 +216,7 @@ public class ProductService {
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        dailySalesRollupService.recordProductCreated(savedProduct);
 
         // 3. Lưu authors (nếu có)
         if (request.getAuthors() != null && !request.getAuthors().isEmpty()) {
@@ -223,6 +248,9 @@ public class ProductService {
             product.setImages(images);
         }
 
+        productSearchIndex.indexAfterCommit(product);
+        productCache.evictAfterCommit(product.getId());
+
         return toProductResponse(product);
     }
 
@@ -325,6 +353,9 @@ public class ProductService {
         Product updatedProduct = productRepository.save(product);
         log.info("Product updated successfully with id: {}", updatedProduct.getId());
 
+        productSearchIndex.indexAfterCommit(updatedProduct);
+        productCache.evictAfterCommit(id);
+
         return toProductResponse(updatedProduct);
     }
 
@@ -339,6 +370,9 @@ public class ProductService {
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Product not found"));
 
         productRepository.delete(product);
+        dailySalesRollupService.recordProductDeleted(product);
+        productSearchIndex.removeAfterCommit(id);
+        productCache.evictAfterCommit(id);
         log.info("Product deleted successfully with id: {}", id);
     }
 
@@ -351,27 +385,52 @@ public class ProductService {
      */
     public Page<ProductResponse> searchProductsByName(String keyword, Pageable pageable) {
         log.info("Searching products with keyword: {}", keyword);
-        return productRepository.findByNameContainingIgnoreCase(keyword, pageable)
-                .map(this::toProductResponse);
+        return productListingService.toResponsePage(
+                productRepository.findSummariesByKeyword(keyword, pageable));
     }
 
     /**
      * Lọc sản phẩm theo danh mục
      *
-     * @param categoryId ID danh mục
-     * @param pageable   Phân trang
+     * @param categoryId            ID danh mục
+     * @param includeSubcategories  Lấy cả sản phẩm thuộc các danh mục con cháu
+     * @param pageable              Phân trang
      * @return Danh sách sản phẩm trong danh mục
      */
-    public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
+    public Page<ProductResponse> getProductsByCategory(Long categoryId, boolean includeSubcategories, Pageable pageable) {
         log.info("Getting products by category id: {}", categoryId);
 
         // Kiểm tra danh mục có tồn tại
-        if (!categoryRepository.existsById(categoryId)) {
-            throw new AppException(HttpStatus.NOT_FOUND.value(), "Category not found");
+        validateCategoryExists(categoryId);
+
+        if (includeSubcategories) {
+            return productListingService.toResponsePage(
+                    productRepository.findSummariesByCategoryIdIn(categoryTree.subtreeIds(categoryId), pageable));
+        }
+        return productListingService.toResponsePage(
+                productRepository.findSummariesByCategoryId(categoryId, pageable));
+    }
+
+    /**
+     * Lọc sản phẩm theo danh mục, phân trang keyset
+     */
+    public PagedResponse<ProductResponse> getProductsByCategory(Long categoryId, boolean includeSubcategories,
+                                                                String cursor, Pageable pageable) {
+        validateCategoryExists(categoryId);
+
+        if (includeSubcategories) {
+            Set<Long> categoryIds = categoryTree.subtreeIds(categoryId);
+            return scrollProducts((root, query, cb) -> root.get("category").get("id").in(categoryIds),
+                    cursor, pageable);
         }
+        return scrollProducts((root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId),
+                cursor, pageable);
+    }
 
-        return productRepository.findByCategoryId(categoryId, pageable)
-                .map(this::toProductResponse);
+    private void validateCategoryExists(Long categoryId) {
+        if (!categoryTree.contains(categoryId) && !categoryRepository.existsById(categoryId)) {
+            throw new AppException(HttpStatus.NOT_FOUND.value(), "Category not found");
+        }
     }
 
     /**
@@ -385,12 +444,27 @@ public class ProductService {
     public Page<ProductResponse> getProductsByPriceRange(Long minPrice, Long maxPrice, Pageable pageable) {
         log.info("Getting products with price range: {} - {}", minPrice, maxPrice);
 
+        validatePriceRange(minPrice, maxPrice);
+
+        return productListingService.toResponsePage(
+                productRepository.findSummariesByPriceBetween(minPrice, maxPrice, pageable));
+    }
+
+    /**
+     * Lọc sản phẩm theo khoảng giá, phân trang keyset
+     */
+    public PagedResponse<ProductResponse> getProductsByPriceRange(Long minPrice, Long maxPrice,
+                                                                  String cursor, Pageable pageable) {
+        validatePriceRange(minPrice, maxPrice);
+
+        return scrollProducts((root, query, cb) -> cb.between(root.get("price"), minPrice, maxPrice),
+                cursor, pageable);
+    }
+
+    private void validatePriceRange(Long minPrice, Long maxPrice) {
         if (minPrice < 0 || maxPrice < 0 || minPrice > maxPrice) {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "Invalid price range");
         }
-
-        return productRepository.findByPriceBetween(minPrice, maxPrice, pageable)
-                .map(this::toProductResponse);
     }
 
     /**
@@ -414,13 +488,17 @@ public class ProductService {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "Min price cannot be greater than max price");
         }
 
-        return productRepository.searchProducts(
+        if (keyword != null && !keyword.trim().isEmpty() && productSearchIndex.isReady()) {
+            return searchIndexed(keyword.trim(), categoryId, minPrice, maxPrice, pageable);
+        }
+
+        return productListingService.toResponsePage(productRepository.searchSummaries(
                 keyword != null ? keyword : "",
                 categoryId,
                 minPrice,
                 maxPrice,
                 pageable
-        ).map(this::toProductResponse);
+        ));
     }
 
     /**
@@ -431,8 +509,7 @@ public class ProductService {
      */
     public Page<ProductResponse> getNewestProducts(Pageable pageable) {
         log.info("Getting newest products");
-        return productRepository.findAll(pageable)
-                .map(this::toProductResponse);
+        return productListingService.toResponsePage(productRepository.findAllSummaries(pageable));
     }
 
     /**
@@ -449,8 +526,8 @@ public class ProductService {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "Rating must be between 0 and 5");
         }
 
-        return productRepository.findByRatingAvgGreaterThanEqual(minRating, pageable)
-                .map(this::toProductResponse);
+        return productListingService.toResponsePage(
+                productRepository.findSummariesByRatingAtLeast(minRating, pageable));
     }
 
     /**
@@ -464,29 +541,56 @@ public class ProductService {
     public Page<ProductResponse> getProductsByStarRating(Integer stars, Pageable pageable) {
         log.info("Getting products with {} stars", stars);
 
+        double[] range = starRatingRange(stars);
+
+        log.info("Rating range: {} - {}", range[0], range[1]);
+        return productListingService.toResponsePage(
+                productRepository.findSummariesByRatingBetween(range[0], range[1], pageable));
+    }
+
+    /**
+     * Lấy sản phẩm theo số lượng sao, phân trang keyset
+     */
+    public PagedResponse<ProductResponse> getProductsByStarRating(Integer stars, String cursor, Pageable pageable) {
+        double[] range = starRatingRange(stars);
+
+        return scrollProducts((root, query, cb) -> cb.between(root.get("ratingAvg"), range[0], range[1]),
+                cursor, pageable);
+    }
+
+    /**
+     * Xác định khoảng rating dựa trên số sao
+     */
+    private double[] starRatingRange(Integer stars) {
         if (stars < 1 || stars > 5) {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "Stars must be between 1 and 5");
         }
 
-        // Xác định khoảng rating dựa trên số sao
-        double minRating;
-        double maxRating;
-
         if (stars == 5) {
-            minRating = 4.5;
-            maxRating = 5.0;
+            return new double[]{4.5, 5.0};
         } else if (stars == 1) {
-            minRating = 0.0;
-            maxRating = 1.5;
-        } else {
-            // Cho 2, 3, 4 sao: ví dụ 4 sao = 3.5 đến 4.5
-            minRating = stars - 0.5;
-            maxRating = stars + 0.5;
+            return new double[]{0.0, 1.5};
         }
+        // Cho 2, 3, 4 sao: ví dụ 4 sao = 3.5 đến 4.5
+        return new double[]{stars - 0.5, stars + 0.5};
+    }
 
-        log.info("Rating range: {} - {}", minRating, maxRating);
-        return productRepository.findByRatingAvgBetween(minRating, maxRating, pageable)
-                .map(this::toProductResponse);
+    /**
+     * Phân trang keyset: lấy ID theo (sort key, id) rồi nạp qua read model, không chạy COUNT(*)
+     */
+    private PagedResponse<ProductResponse> scrollProducts(Specification<Product> filter, String cursor, Pageable pageable) {
+        KeysetCursor after = KeysetCursor.decode(cursor, CURSOR_SORT_FIELDS);
+        Sort.Order order = KeysetCursor.resolveOrder(after, pageable, DEFAULT_CURSOR_ORDER, CURSOR_SORT_FIELDS);
+
+        KeysetSlice<Long> slice = keysetRepository.findIdSlice(Product.class, filter, order, after, pageable.getPageSize());
+
+        return PagedResponse.<ProductResponse>builder()
+                .data(productListingService.findByIdsOrdered(slice.getContent()))
+                .pageSize(pageable.getPageSize())
+                .hasNext(slice.hasNext())
+                .hasPrevious(after != null)
+                .nextCursor(slice.getNextCursor())
+                .build();
     }
 
     /**
@@ -497,8 +601,8 @@ public class ProductService {
      */
     public Page<ProductResponse> getAvailableProducts(Pageable pageable) {
         log.info("Getting available products (in stock)");
-        return productRepository.findByStockQuanityGreaterThan(0, pageable)
-                .map(this::toProductResponse);
+        return productListingService.toResponsePage(
+                productRepository.findSummariesByStockGreaterThan(0, pageable));
     }
 
     /**
@@ -540,6 +644,7 @@ public class ProductService {
 
         product.setStockQuanity(newStock);
         product = productRepository.save(product);
+        productCache.evictAfterCommit(productId);
 
         log.info("Stock updated successfully. New stock: {}", newStock);
         return toProductResponse(product);
@@ -553,11 +658,7 @@ public class ProductService {
 
             if (bookIds == null || bookIds.isEmpty()) return Collections.emptyList();
 
-            List<Product> products = getBooksOrderedByIds(bookIds);
-
-            return products.stream()
-                    .map(this::toProductResponse)
-                    .collect(Collectors.toList());
+            return productListingService.findByIdsOrdered(bookIds);
         } catch (Exception e) {
             log.error("AI Service Error: {}", e.getMessage());
             return Collections.emptyList();
@@ -573,32 +674,24 @@ public class ProductService {
 
             if (bookIds == null || bookIds.isEmpty()) return Collections.emptyList();
 
-            List<Product> products = getBooksOrderedByIds(bookIds);
-
-            // QUAN TRỌNG: Convert Entity -> DTO
-            return products.stream()
-                    .map(this::toProductResponse)
-                    .collect(Collectors.toList());
+            return productListingService.findByIdsOrdered(bookIds);
         } catch (Exception e) {
             log.error("AI Service Error: {}", e.getMessage());
             return Collections.emptyList();
         }
     }
 
-    // Helper: Lấy sách từ DB và sort lại theo đúng thứ tự List ID đầu vào
-    private List<Product> getBooksOrderedByIds(List<Long> bookIds) {
-        // Query DB (Lúc này thứ tự có thể lộn xộn)
-        List<Product> books = productRepository.findAllById(bookIds);
+    /**
+     * Tìm kiếm qua chỉ mục trong bộ nhớ, chỉ nạp từ DB các sản phẩm của trang hiện tại
+     */
+    private Page<ProductResponse> searchIndexed(String keyword, Long categoryId, Long minPrice, Long maxPrice,
+                                                Pageable pageable) {
+        List<Long> ids = productSearchIndex.search(keyword, categoryId, minPrice, maxPrice, pageable.getSort());
 
-        // Tạo Map để tra cứu cho nhanh
-        Map<Long, Product> bookMap = books.stream()
-                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<ProductResponse> content = productListingService.findByIdsOrdered(ids.subList(from, to));
 
-        // Map lại theo list bookIds gốc để giữ thứ tự Relevance
-        return bookIds.stream()
-                .filter(bookMap::containsKey)
-                .map(bookMap::get)
-                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.size());
     }
 }
-
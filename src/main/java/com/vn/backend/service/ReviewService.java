@@ -2,18 +2,22 @@ package com.vn.backend.service;
 
 import com.vn.backend.dto.request.CreateReviewRequest;
 import com.vn.backend.dto.request.UpdateReviewRequest;
+import com.vn.backend.dto.response.PagedResponse;
 import com.vn.backend.dto.response.ReviewResponse;
 import com.vn.backend.exception.AppException;
 import com.vn.backend.model.*;
 import com.vn.backend.repository.*;
+import com.vn.backend.service.cache.ProductCache;
+import com.vn.backend.service.search.ProductSearchIndex;
+import com.vn.backend.util.KeysetCursor;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,19 +32,16 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReviewService {
 
+    // Các trường được phép sắp xếp ở chế độ cursor (keyset)
+    private static final List<String> CURSOR_SORT_FIELDS = List.of("id", "createdAt");
+
     ReviewRepository reviewRepository;
     OrderItemRepository orderItemRepository;
     ProductRepository productRepository;
-    UserRepository userRepository;
-
-    /**
-     * Get current authenticated user
-     */
-    private User getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "User not found"));
-    }
+    CurrentUser currentUser;
+    KeysetRepository keysetRepository;
+    ProductCache productCache;
+    ProductSearchIndex productSearchIndex;
 
     /**
      * Convert Review to ReviewResponse
@@ -75,6 +76,9 @@ public class ReviewService {
         product.setRatingAvg(avgRating != null ? avgRating : 0.0);
         product.setRatingCount(reviewCount != null ? reviewCount.intValue() : 0);
         productRepository.save(product);
+        productCache.evictAfterCommit(productId);
+        // Kết quả tìm kiếm có thể sắp xếp theo ratingAvg / ratingCount
+        productSearchIndex.indexAfterCommit(product);
 
         log.info("Updated product {} rating - Avg: {}, Count: {}",
             productId, product.getRatingAvg(), product.getRatingCount());
@@ -89,6 +93,26 @@ public class ReviewService {
                 .map(this::toReviewResponse);
     }
 
+    /**
+     * Get all reviews with keyset pagination (Admin), no COUNT(*)
+     */
+    public PagedResponse<ReviewResponse> getAllReviews(String cursor, Pageable pageable) {
+        KeysetCursor after = KeysetCursor.decode(cursor, CURSOR_SORT_FIELDS);
+        Sort.Order order = KeysetCursor.resolveOrder(after, pageable, Sort.Order.desc("createdAt"), CURSOR_SORT_FIELDS);
+
+        KeysetSlice<Review> slice = keysetRepository.findSlice(Review.class, null, order, after, pageable.getPageSize());
+
+        return PagedResponse.<ReviewResponse>builder()
+                .data(slice.getContent().stream()
+                        .map(this::toReviewResponse)
+                        .collect(Collectors.toList()))
+                .pageSize(pageable.getPageSize())
+                .hasNext(slice.hasNext())
+                .hasPrevious(after != null)
+                .nextCursor(slice.getNextCursor())
+                .build();
+    }
+
     /**
      * Get reviews by product ID
      */
@@ -121,10 +145,9 @@ public class ReviewService {
      * Get user's reviews
      */
     public Page<ReviewResponse> getUserReviews(Pageable pageable) {
-        User currentUser = getCurrentUser();
-        log.info("Getting reviews for user: {}", currentUser.getEmail());
+        log.info("Getting reviews for user: {}", currentUser.email());
 
-        return reviewRepository.findByUser(currentUser, pageable)
+        return reviewRepository.findByUserId(currentUser.id(), pageable)
                 .map(this::toReviewResponse);
     }
 
@@ -176,7 +199,7 @@ public class ReviewService {
      */
     @Transactional
     public ReviewResponse createReview(CreateReviewRequest request) {
-        User currentUser = getCurrentUser();
+        Long userId = currentUser.id();
         log.info("Creating review for order item: {}", request.getOrderItemId());
 
         // Get order item
@@ -184,7 +207,7 @@ public class ReviewService {
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Order item not found"));
 
         // Verify order belongs to current user
-        if (!orderItem.getOrder().getUser().getId().equals(currentUser.getId())) {
+        if (!orderItem.getOrder().getUser().getId().equals(userId)) {
             throw new AppException(HttpStatus.FORBIDDEN.value(),
                 "You can only review products you have purchased");
         }
@@ -197,7 +220,7 @@ public class ReviewService {
 
         // Check if review already exists
         Product product = orderItem.getProduct();
-        if (reviewRepository.findByProductIdAndUser(product.getId(), currentUser).isPresent()) {
+        if (reviewRepository.existsByProductIdAndUserId(product.getId(), userId)) {
             throw new AppException(HttpStatus.BAD_REQUEST.value(),
                 "You have already reviewed this product");
         }
@@ -224,14 +247,14 @@ public class ReviewService {
      */
     @Transactional
     public ReviewResponse updateReview(Long id, UpdateReviewRequest request) {
-        User currentUser = getCurrentUser();
+        Long userId = currentUser.id();
         log.info("Updating review with id: {}", id);
 
         Review review = reviewRepository.findById(id)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Review not found"));
 
         // Verify review belongs to current user
-        if (!review.getOrderItem().getOrder().getUser().getId().equals(currentUser.getId())) {
+        if (!review.getOrderItem().getOrder().getUser().getId().equals(userId)) {
             throw new AppException(HttpStatus.FORBIDDEN.value(),
                 "You can only update your own reviews");
         }
@@ -258,14 +281,14 @@ public class ReviewService {
      */
     @Transactional
     public void deleteReview(Long id) {
-        User currentUser = getCurrentUser();
+        Long userId = currentUser.id();
         log.info("Deleting review with id: {}", id);
 
         Review review = reviewRepository.findById(id)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Review not found"));
 
         // Verify review belongs to current user
-        if (!review.getOrderItem().getOrder().getUser().getId().equals(currentUser.getId())) {
+        if (!review.getOrderItem().getOrder().getUser().getId().equals(userId)) {
             throw new AppException(HttpStatus.FORBIDDEN.value(),
                 "You can only delete your own reviews");
         }
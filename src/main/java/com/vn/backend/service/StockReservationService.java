@@ -0,0 +1,180 @@
+package com.vn.backend.service;
+
+import com.vn.backend.dto.projection.ProductQuantityView;
+import com.vn.backend.dto.projection.StockLevelView;
+import com.vn.backend.exception.AppException;
+import com.vn.backend.exception.InsufficientStockException;
+import com.vn.backend.exception.InsufficientStockException.StockShortfall;
+import com.vn.backend.model.Order;
+import com.vn.backend.model.Product;
+import com.vn.backend.repository.OrderItemRepository;
+import com.vn.backend.repository.OrderRepository;
+import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.service.cache.ProductCache;
+import com.vn.backend.util.enums.StockReservationStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Giữ / hoàn trả tồn kho cho đơn hàng.
+ * Các dòng sản phẩm luôn được khóa theo thứ tự id tăng dần (không deadlock giữa hai đơn chéo nhau),
+ * sau đó trừ toàn bộ bằng một câu UPDATE có điều kiện stock_quantity >= số lượng.
+ * Trạng thái giữ hàng trên Order (RESERVED/COMMITTED/RELEASED) được chuyển bằng UPDATE có điều kiện
+ * nên hủy đơn và callback thanh toán thất bại chạy song song cũng chỉ hoàn trả một lần.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class StockReservationService {
+
+    ProductRepository productRepository;
+    OrderRepository orderRepository;
+    OrderItemRepository orderItemRepository;
+    ProductCache productCache;
+    EntityManager entityManager;
+
+    /**
+     * Trừ tồn kho cho toàn bộ các dòng (productId -> số lượng), tất cả hoặc không có gì.
+     * Ném InsufficientStockException liệt kê mọi dòng thiếu hàng.
+     */
+    @Transactional
+    public void reserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> lines = normalize(quantities);
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> available = new HashMap<>();
+        for (StockLevelView level : productRepository.lockStockLevels(lines.keySet())) {
+            available.put(level.getId(), level.getStockQuantity());
+        }
+
+        List<StockShortfall> shortfalls = new ArrayList<>();
+        lines.forEach((productId, requested) -> {
+            Integer stock = available.get(productId);
+            if (stock == null || stock < requested) {
+                shortfalls.add(new StockShortfall(productId, requested, stock != null ? stock : 0));
+            }
+        });
+        if (!shortfalls.isEmpty()) {
+            throw new InsufficientStockException(shortfalls);
+        }
+
+        int updated = applyDelta(lines, -1);
+        if (updated != lines.size()) {
+            // Không xảy ra khi các dòng đã bị khóa; giữ lại để không bao giờ bán âm kho
+            throw new AppException(HttpStatus.CONFLICT.value(), "Tồn kho đã thay đổi, vui lòng thử lại");
+        }
+        log.debug("Reserved stock for {} products", lines.size());
+    }
+
+    /**
+     * Hoàn trả tồn kho của đơn (hủy đơn / thanh toán thất bại). Gọi nhiều lần chỉ hoàn trả một lần.
+     */
+    @Transactional
+    public boolean release(Order order) {
+        if (orderRepository.transitionReservedStock(order.getId(), StockReservationStatus.RELEASED) == 0) {
+            log.debug("Stock of order {} is not reserved, nothing to release", order.getId());
+            return false;
+        }
+        order.setStockStatus(StockReservationStatus.RELEASED);
+
+        Map<Long, Integer> lines = orderQuantities(order.getId());
+        if (!lines.isEmpty()) {
+            applyDelta(lines, 1);
+        }
+        log.info("Released stock of order {} ({} products)", order.getId(), lines.size());
+        return true;
+    }
+
+    /**
+     * Chốt tồn kho khi đơn đã giao, sau đó không còn hoàn trả được nữa
+     */
+    @Transactional
+    public boolean commit(Order order) {
+        if (orderRepository.transitionReservedStock(order.getId(), StockReservationStatus.COMMITTED) == 0) {
+            return false;
+        }
+        order.setStockStatus(StockReservationStatus.COMMITTED);
+        return true;
+    }
+
+    /**
+     * Giữ lại tồn kho cho đơn đã bị hoàn trả do thanh toán thất bại khi người dùng thanh toán lại
+     */
+    @Transactional
+    public boolean reacquire(Order order) {
+        if (orderRepository.transitionStockStatus(order.getId(),
+                StockReservationStatus.RELEASED, StockReservationStatus.RESERVED) == 0) {
+            return false;
+        }
+        reserve(orderQuantities(order.getId()));
+        order.setStockStatus(StockReservationStatus.RESERVED);
+        log.info("Re-reserved stock of order {}", order.getId());
+        return true;
+    }
+
+    private Map<Long, Integer> orderQuantities(Long orderId) {
+        Map<Long, Integer> lines = new TreeMap<>();
+        for (ProductQuantityView row : orderItemRepository.sumQuantityByProduct(orderId)) {
+            lines.put(row.getProductId(), Math.toIntExact(row.getQuantity()));
+        }
+        return lines;
+    }
+
+    private static Map<Long, Integer> normalize(Map<Long, Integer> quantities) {
+        Map<Long, Integer> lines = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (productId == null || quantity == null || quantity <= 0) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(), "Số lượng sản phẩm không hợp lệ");
+            }
+            lines.merge(productId, quantity, Integer::sum);
+        });
+        return lines;
+    }
+
+    /**
+     * UPDATE products SET stock_quantity = stock_quantity +/- CASE id WHEN .. THEN .. END
+     * WHERE id IN (..) [AND stock_quantity >= CASE ..] trong một câu lệnh duy nhất
+     */
+    private int applyDelta(Map<Long, Integer> lines, int sign) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> root = update.from(Product.class);
+        Path<Long> id = root.get("id");
+        Path<Integer> stock = root.get("stockQuanity");
+
+        CriteriaBuilder.SimpleCase<Long, Integer> quantity = cb.selectCase(id);
+        lines.forEach((productId, qty) -> quantity.when(productId, qty));
+        Expression<Integer> delta = quantity.otherwise(0);
+
+        update.set(stock, sign < 0 ? cb.diff(stock, delta) : cb.sum(stock, delta));
+        update.set(root.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        update.where(sign < 0
+                ? cb.and(id.in(lines.keySet()), cb.ge(stock, delta))
+                : id.in(lines.keySet()));
+
+        int updated = entityManager.createQuery(update).executeUpdate();
+        lines.keySet().forEach(productCache::evictAfterCommit);
+        return updated;
+    }
+}
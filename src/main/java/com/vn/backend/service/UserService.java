@@ -7,18 +7,25 @@ import com.vn.backend.dto.response.UserResponse;
 import com.vn.backend.exception.AppException;
 import com.vn.backend.model.Role;
 import com.vn.backend.model.User;
+import com.vn.backend.repository.KeysetRepository;
+import com.vn.backend.repository.KeysetSlice;
 import com.vn.backend.repository.RoleRepository;
 import com.vn.backend.repository.UserRepository;
+import com.vn.backend.service.cache.UserAuthorityCache;
+import com.vn.backend.util.KeysetCursor;
 import com.vn.backend.util.enums.RoleEnum;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -26,15 +33,27 @@ import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+    // Các trường được phép sắp xếp ở chế độ cursor (keyset)
+    private static final List<String> CURSOR_SORT_FIELDS = List.of("id", "createdAt");
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private KeysetRepository keysetRepository;
+
     @Autowired
     private RoleRepository roleRepository;
 
     @Autowired
     private PasswordEncoder encoder;
 
+    @Autowired
+    private DailySalesRollupService dailySalesRollupService;
+
+    @Autowired
+    private UserAuthorityCache userAuthorityCache;
+
     // 1. Lấy danh sách users với phân trang và tìm kiếm
     public PagedResponse<UserResponse> getAllUsers(String keyword, Pageable pageable) {
         return getAllUsers(keyword, pageable, false); // Mặc định hiển thị tất cả users
@@ -89,6 +108,43 @@ public class UserService {
         return response;
     }
 
+    // 1b. Lấy danh sách users theo phân trang keyset (không chạy COUNT(*))
+    public PagedResponse<UserResponse> getAllUsers(String keyword, String cursor, Pageable pageable, boolean activeOnly) {
+        if (cursor == null) {
+            return getAllUsers(keyword, pageable, activeOnly);
+        }
+
+        KeysetCursor after = KeysetCursor.decode(cursor, CURSOR_SORT_FIELDS);
+        Sort.Order order = KeysetCursor.resolveOrder(after, pageable, Sort.Order.desc("createdAt"), CURSOR_SORT_FIELDS);
+
+        Specification<User> filter = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (activeOnly) {
+                predicates.add(cb.isTrue(root.get("isActive")));
+            }
+            if (keyword != null && !keyword.trim().isEmpty()) {
+                String pattern = "%" + keyword.trim() + "%";
+                predicates.add(cb.or(
+                        cb.like(root.get("email"), pattern),
+                        cb.like(root.get("fullName"), pattern),
+                        cb.like(root.get("phone"), pattern)));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+
+        KeysetSlice<User> slice = keysetRepository.findSlice(User.class, filter, order, after, pageable.getPageSize());
+
+        return PagedResponse.<UserResponse>builder()
+                .data(slice.getContent().stream()
+                        .map(this::convertToUserResponse)
+                        .collect(Collectors.toList()))
+                .pageSize(pageable.getPageSize())
+                .hasNext(slice.hasNext())
+                .hasPrevious(after != null)
+                .nextCursor(slice.getNextCursor())
+                .build();
+    }
+
     // 2. Lấy user theo ID
     public UserResponse getUserById(Long id) {
         User user = userRepository.findById(id)
@@ -132,6 +188,7 @@ public class UserService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        dailySalesRollupService.recordUserCreated(savedUser);
         UserResponse response = convertToUserResponse(savedUser);
 
         return response;
@@ -161,24 +218,30 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        userAuthorityCache.evictAfterCommit(updatedUser.getEmail());
         UserResponse response = convertToUserResponse(updatedUser);
         return response;
     }
 
     // 5. Xóa user (soft delete để tránh foreign key constraint)
+    // Không bọc transaction: lỗi foreign key của lần xóa cứng phải lộ ra ngay để chuyển sang soft delete.
+    // Vì vậy chỉ evict quyền đã cache sau khi ghi xong, nếu không request song song có thể cache lại user còn active.
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Không tìm thấy user với ID: " + id));
+        String email = user.getEmail();
 
         try {
             // Thử xóa trực tiếp trước
             userRepository.delete(user);
+            dailySalesRollupService.recordUserDeleted(user);
         } catch (Exception e) {
             // Nếu có foreign key constraint, thực hiện soft delete
             user.setActive(false);
-            user.setEmail("deleted_" + user.getId() + "_" + user.getEmail()); // Để tránh conflict email khi tạo user mới
+            user.setEmail("deleted_" + user.getId() + "_" + email); // Để tránh conflict email khi tạo user mới
             userRepository.save(user);
         }
+        userAuthorityCache.evictAfterCommit(email);
     }
 
     // Helper method để convert User entity thành UserResponse
@@ -22,7 +22,9 @@ import com.vn.backend.repository.OrderRepository;
 import com.vn.backend.repository.PaymentRepository;
 import com.vn.backend.util.VNPayUtil;
 import com.vn.backend.util.enums.PaymentMethod;
+import com.vn.backend.util.enums.OrderStatus;
 import com.vn.backend.util.enums.PaymentStatus;
+import com.vn.backend.util.enums.StockReservationStatus;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
@@ -42,14 +44,17 @@ public class VNPayService extends BasePaymentGatewayService {
     VNPayConfig vnPayConfig;
     OrderRepository orderRepository;
     PaymentRepository paymentRepository;
+    StockReservationService stockReservationService;
 
     public VNPayService(VNPayConfig vnPayConfig,
                         OrderRepository orderRepository,
-                        PaymentRepository paymentRepository) {
+                        PaymentRepository paymentRepository,
+                        StockReservationService stockReservationService) {
         super(); // Initialize RestTemplate and ObjectMapper
         this.vnPayConfig = vnPayConfig;
         this.orderRepository = orderRepository;
         this.paymentRepository = paymentRepository;
+        this.stockReservationService = stockReservationService;
         log.info("VNPayService initialized with TMN code: {}", vnPayConfig.getTmnCode());
     }
 
@@ -68,6 +73,14 @@ public class VNPayService extends BasePaymentGatewayService {
             throw new AppException(HttpStatus.BAD_REQUEST.value(), "Order has already been paid");
         }
 
+        // Thanh toán lại sau khi thất bại: giữ lại tồn kho đã hoàn trả
+        if (order.getStockStatus() == StockReservationStatus.RELEASED) {
+            if (order.getStatus() == OrderStatus.CANCELLED) {
+                throw new AppException(HttpStatus.BAD_REQUEST.value(), "Order has been cancelled");
+            }
+            stockReservationService.reacquire(order);
+        }
+
         try {
             // Tạo các tham số cho VNPay
             String vnp_Version = vnPayConfig.getVersion();
@@ -122,7 +135,8 @@ public class VNPayService extends BasePaymentGatewayService {
             
             String paymentUrl = vnPayConfig.getVnpUrl() + "?" + queryUrl;
 
-            log.info("VNPay payment URL created: {}", paymentUrl);
+            log.info("VNPay payment URL created, txnRef: {}", vnp_TxnRef);
+            log.debug("VNPay payment URL: {}", paymentUrl);
 
             // Tạo Payment record với status PENDING
             Payment payment = Payment.builder()
@@ -154,7 +168,8 @@ public class VNPayService extends BasePaymentGatewayService {
      */
     @Transactional
     public VNPayCallbackResponse handleCallback(Map<String, String> params) {
-        log.info("Processing VNPay callback with {} params", params.size());
+        log.info("Processing VNPay callback, txnRef: {}, responseCode: {}",
+                params.get("vnp_TxnRef"), params.get("vnp_ResponseCode"));
         log.debug("VNPay callback params: {}", params);
 
         try {
@@ -163,13 +178,11 @@ public class VNPayService extends BasePaymentGatewayService {
             
             // Kiểm tra vnp_SecureHash có tồn tại không
             if (vnp_SecureHash == null || vnp_SecureHash.isEmpty()) {
-                log.error("vnp_SecureHash is null or empty! Params received: {}", params.keySet());
-                log.error("All params: {}", params);
+                log.error("vnp_SecureHash is missing in VNPay callback, txnRef: {}", params.get("vnp_TxnRef"));
+                log.debug("VNPay callback param names: {}", params.keySet());
                 throw new AppException(HttpStatus.BAD_REQUEST.value(), "Missing vnp_SecureHash in callback");
             }
             
-            log.info("Received vnp_SecureHash: {}", vnp_SecureHash);
-            
             // Remove hash params để verify
             Map<String, String> verifyParams = new HashMap<>(params);
             verifyParams.remove("vnp_SecureHash");
@@ -179,11 +192,11 @@ public class VNPayService extends BasePaymentGatewayService {
             String signValue = VNPayUtil.hashAllFields(verifyParams);
             String checkHash = VNPayUtil.hmacSHA512(vnPayConfig.getHashSecret(), signValue);
 
-            log.info("Hash verification - Expected: {}, Received: {}", checkHash, vnp_SecureHash);
+            log.debug("VNPay callback hash match: {}", checkHash.equals(vnp_SecureHash));
 
             // Verify hash
             if (!checkHash.equals(vnp_SecureHash)) {
-                log.error("Invalid secure hash. Expected: {}, Received: {}", checkHash, vnp_SecureHash);
+                log.error("Invalid secure hash for VNPay callback, txnRef: {}", params.get("vnp_TxnRef"));
                 throw new AppException(HttpStatus.BAD_REQUEST.value(), "Invalid secure hash");
             }
 
@@ -262,6 +275,7 @@ public class VNPayService extends BasePaymentGatewayService {
                 paymentRepository.save(payment);
 
                 order.setPaymentStatus(PaymentStatus.FAILED);
+                stockReservationService.release(order);
                 orderRepository.save(order);
 
                 log.warn("Payment failed for order: {} with code: {}", orderId, vnp_ResponseCode);
@@ -1,11 +1,11 @@
 package com.vn.backend.service;
 
+import com.vn.backend.dto.projection.UserContactView;
 import com.vn.backend.dto.request.AddToWishListRequest;
 import com.vn.backend.dto.response.WishListItemResponse;
 import com.vn.backend.dto.response.WishListResponse;
 import com.vn.backend.exception.AppException;
 import com.vn.backend.model.Product;
-import com.vn.backend.model.User;
 import com.vn.backend.model.WishList;
 import com.vn.backend.repository.ProductRepository;
 import com.vn.backend.repository.UserRepository;
@@ -15,7 +15,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,15 +30,7 @@ public class WishListService {
     WishListRepository wishListRepository;
     ProductRepository productRepository;
     UserRepository userRepository;
-
-    /**
-     * Get current authenticated user
-     */
-    private User getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "User not found"));
-    }
+    CurrentUser currentUser;
 
     /**
      * Convert WishList to WishListItemResponse
@@ -66,18 +57,22 @@ public class WishListService {
      * Get user's wishlist
      */
     public WishListResponse getWishList() {
-        User currentUser = getCurrentUser();
-        log.info("Getting wishlist for user: {}", currentUser.getEmail());
+        Long userId = currentUser.id();
+        log.info("Getting wishlist for user: {}", currentUser.email());
 
-        List<WishList> wishListItems = wishListRepository.findByUser(currentUser);
+        List<WishList> wishListItems = wishListRepository.findByUserId(userId);
+        String userName = userRepository.findContactsByIdIn(List.of(userId)).stream()
+                .findFirst()
+                .map(UserContactView::getFullName)
+                .orElse(null);
 
         List<WishListItemResponse> itemResponses = wishListItems.stream()
                 .map(this::toWishListItemResponse)
                 .collect(Collectors.toList());
 
         return WishListResponse.builder()
-                .userId(currentUser.getId())
-                .userName(currentUser.getFullName())
+                .userId(userId)
+                .userName(userName)
                 .items(itemResponses)
                 .totalItems(itemResponses.size())
                 .build();
@@ -87,13 +82,13 @@ public class WishListService {
      * Check if product is in wishlist
      */
     public boolean isProductInWishList(Long productId) {
-        User currentUser = getCurrentUser();
-        log.info("Checking if product {} is in wishlist for user: {}", productId, currentUser.getEmail());
+        log.info("Checking if product {} is in wishlist for user: {}", productId, currentUser.email());
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Product not found"));
+        if (!productRepository.existsById(productId)) {
+            throw new AppException(HttpStatus.NOT_FOUND.value(), "Product not found");
+        }
 
-        return wishListRepository.existsByUserAndProduct(currentUser, product);
+        return wishListRepository.existsByUserIdAndProductId(currentUser.id(), productId);
     }
 
     /**
@@ -101,22 +96,22 @@ public class WishListService {
      */
     @Transactional
     public WishListResponse addToWishList(AddToWishListRequest request) {
-        User currentUser = getCurrentUser();
-        log.info("Adding product {} to wishlist for user: {}", request.getProductId(), currentUser.getEmail());
+        Long userId = currentUser.id();
+        log.info("Adding product {} to wishlist for user: {}", request.getProductId(), currentUser.email());
 
         // Check if product exists
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Product not found"));
 
         // Check if product already in wishlist
-        if (wishListRepository.existsByUserAndProduct(currentUser, product)) {
+        if (wishListRepository.existsByUserIdAndProductId(userId, product.getId())) {
             throw new AppException(HttpStatus.BAD_REQUEST.value(),
                 "Product is already in your wishlist");
         }
 
         // Add to wishlist
         WishList wishList = WishList.builder()
-                .user(currentUser)
+                .user(currentUser.reference())
                 .product(product)
                 .build();
 
@@ -131,13 +126,13 @@ public class WishListService {
      */
     @Transactional
     public WishListResponse removeFromWishList(Long productId) {
-        User currentUser = getCurrentUser();
-        log.info("Removing product {} from wishlist for user: {}", productId, currentUser.getEmail());
+        log.info("Removing product {} from wishlist for user: {}", productId, currentUser.email());
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(), "Product not found"));
+        if (!productRepository.existsById(productId)) {
+            throw new AppException(HttpStatus.NOT_FOUND.value(), "Product not found");
+        }
 
-        WishList wishList = wishListRepository.findByUserAndProduct(currentUser, product)
+        WishList wishList = wishListRepository.findByUserIdAndProductId(currentUser.id(), productId)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(),
                     "Product not found in wishlist"));
 
@@ -152,15 +147,14 @@ public class WishListService {
      */
     @Transactional
     public WishListResponse removeItemById(Long itemId) {
-        User currentUser = getCurrentUser();
-        log.info("Removing wishlist item {} for user: {}", itemId, currentUser.getEmail());
+        log.info("Removing wishlist item {} for user: {}", itemId, currentUser.email());
 
         WishList wishList = wishListRepository.findById(itemId)
                 .orElseThrow(() -> new AppException(HttpStatus.NOT_FOUND.value(),
                     "Wishlist item not found"));
 
         // Verify item belongs to current user
-        if (!wishList.getUser().getId().equals(currentUser.getId())) {
+        if (!wishList.getUser().getId().equals(currentUser.id())) {
             throw new AppException(HttpStatus.FORBIDDEN.value(),
                 "This item does not belong to your wishlist");
         }
@@ -176,10 +170,9 @@ public class WishListService {
      */
     @Transactional
     public void clearWishList() {
-        User currentUser = getCurrentUser();
-        log.info("Clearing wishlist for user: {}", currentUser.getEmail());
+        log.info("Clearing wishlist for user: {}", currentUser.email());
 
-        List<WishList> wishListItems = wishListRepository.findByUser(currentUser);
+        List<WishList> wishListItems = wishListRepository.findByUserId(currentUser.id());
         wishListRepository.deleteAll(wishListItems);
 
         log.info("Wishlist cleared successfully");
@@ -189,10 +182,9 @@ public class WishListService {
      * Get wishlist item count
      */
     public Long getWishListCount() {
-        User currentUser = getCurrentUser();
-        log.info("Getting wishlist count for user: {}", currentUser.getEmail());
+        log.info("Getting wishlist count for user: {}", currentUser.email());
 
-        return wishListRepository.countByUser(currentUser);
+        return wishListRepository.countByUserId(currentUser.id());
     }
 }
 
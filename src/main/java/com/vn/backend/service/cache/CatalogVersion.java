@@ -0,0 +1,36 @@
+package com.vn.backend.service.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ đếm thay đổi của catalog (sản phẩm, danh mục) trên node này, dùng làm weak ETag cho các trang danh sách.
+ * Tăng mỗi khi ProductCache bị evict (kể cả evict từ node khác qua tier dùng chung) hoặc cây danh mục dựng lại.
+ * Tiền tố epoch khác nhau mỗi lần khởi động để tag của lần chạy trước không bao giờ khớp nhầm.
+ * <p>
+ * Thay đổi ở node khác đến node này chậm nhất: sản phẩm sửa/tạo sau cache.product.db-poll.interval (mặc định 5s,
+ * qua DbPollingProductCacheTier), danh mục sau category.tree.refresh-interval (mặc định 5 phút), sản phẩm bị xóa
+ * sau cache.product.ttl (mặc định 10 phút). Cộng thêm max-age/s-maxage của HttpCachePolicy cho client và CDN.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong counter = new AtomicLong();
+
+    public void bump() {
+        counter.incrementAndGet();
+    }
+
+    public long current() {
+        return counter.get();
+    }
+
+    /**
+     * Weak ETag cho mọi biểu diễn dựng từ catalog; đọc trước khi truy vấn nên body không bao giờ cũ hơn tag
+     */
+    public String etag() {
+        return "W/\"c" + epoch + "-" + counter.get() + "\"";
+    }
+}
@@ -0,0 +1,176 @@
+package com.vn.backend.service.cache;
+
+import com.vn.backend.model.Category;
+import com.vn.backend.repository.CategoryRepository;
+import com.vn.backend.util.TransactionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cây danh mục trong bộ nhớ, dựng từ một truy vấn duy nhất.
+ * Tra tên danh mục cha và tập ID con cháu trong O(1); mỗi lần thay đổi
+ * sẽ dựng lại snapshot mới rồi hoán đổi nguyên khối (reader không bao giờ thấy cây dở dang).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTree {
+
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersion catalogVersion;
+
+    // Lock thay cho synchronized: rebuild truy vấn DB, giữ monitor lúc đó sẽ ghim virtual thread vào carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            Snapshot previous = snapshot;
+            Snapshot next = Snapshot.of(categoryRepository.findAll());
+            snapshot = next;
+            // Làm mới định kỳ thường không đổi gì: giữ nguyên version để ETag của client vẫn khớp
+            if (previous == null || !previous.categories.equals(next.categories)) {
+                catalogVersion.bump();
+            }
+            log.info("Category tree built: {} categories in {} ms",
+                    next.categories.size(), System.currentTimeMillis() - start);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Dựng lại cây sau khi transaction hiện tại commit
+     */
+    public void rebuildAfterCommit() {
+        TransactionUtil.afterCommit(this::rebuild);
+    }
+
+    /**
+     * Làm mới định kỳ để các node khác hội tụ khi danh mục bị sửa ở node khác
+     */
+    @Scheduled(fixedDelayString = "${category.tree.refresh-interval:PT5M}",
+            initialDelayString = "${category.tree.refresh-interval:PT5M}")
+    public void refresh() {
+        rebuild();
+    }
+
+    public boolean contains(Long categoryId) {
+        return current().categories.containsKey(categoryId);
+    }
+
+    public Category get(Long categoryId) {
+        return current().categories.get(categoryId);
+    }
+
+    public String nameOf(Long categoryId) {
+        Category category = categoryId != null ? current().categories.get(categoryId) : null;
+        return category != null ? category.getName() : null;
+    }
+
+    public List<Category> roots() {
+        return current().roots;
+    }
+
+    public List<Category> childrenOf(Long parentId) {
+        return current().children.getOrDefault(parentId, List.of());
+    }
+
+    /**
+     * Tập ID của danh mục và toàn bộ danh mục con cháu (rỗng nếu không tồn tại)
+     */
+    public Set<Long> subtreeIds(Long categoryId) {
+        return current().subtrees.getOrDefault(categoryId, Set.of());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuildLock.lock();
+            try {
+                if (snapshot == null) {
+                    rebuild();
+                }
+                current = snapshot;
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private static final class Snapshot {
+        final Map<Long, Category> categories;
+        final Map<Long, List<Category>> children;
+        final List<Category> roots;
+        final Map<Long, Set<Long>> subtrees;
+
+        private Snapshot(Map<Long, Category> categories, Map<Long, List<Category>> children,
+                         List<Category> roots, Map<Long, Set<Long>> subtrees) {
+            this.categories = categories;
+            this.children = children;
+            this.roots = roots;
+            this.subtrees = subtrees;
+        }
+
+        static Snapshot of(List<Category> all) {
+            Map<Long, Category> categories = new LinkedHashMap<>();
+            Map<Long, List<Category>> children = new HashMap<>();
+            List<Category> roots = new ArrayList<>();
+
+            List<Category> sorted = new ArrayList<>(all);
+            sorted.sort(Comparator.comparing(Category::getId));
+            for (Category category : sorted) {
+                categories.put(category.getId(), category.toBuilder().build());
+            }
+            for (Category category : categories.values()) {
+                if (category.getParentId() == null || !categories.containsKey(category.getParentId())) {
+                    roots.add(category);
+                } else {
+                    children.computeIfAbsent(category.getParentId(), k -> new ArrayList<>()).add(category);
+                }
+            }
+
+            // Duyệt theo chiều rộng, có tập visited để an toàn khi dữ liệu có vòng lặp
+            Map<Long, Set<Long>> subtrees = new HashMap<>();
+            for (Long id : categories.keySet()) {
+                Set<Long> subtree = new LinkedHashSet<>();
+                Deque<Long> queue = new ArrayDeque<>();
+                queue.add(id);
+                while (!queue.isEmpty()) {
+                    Long current = queue.poll();
+                    if (subtree.add(current)) {
+                        for (Category child : children.getOrDefault(current, List.of())) {
+                            queue.add(child.getId());
+                        }
+                    }
+                }
+                subtrees.put(id, Collections.unmodifiableSet(subtree));
+            }
+
+            children.replaceAll((k, v) -> List.copyOf(v));
+            return new Snapshot(categories, children, List.copyOf(roots), subtrees);
+        }
+    }
+}
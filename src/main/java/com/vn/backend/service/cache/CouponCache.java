@@ -0,0 +1,49 @@
+package com.vn.backend.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vn.backend.repository.CouponRepository;
+import com.vn.backend.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache định nghĩa mã giảm giá theo code (đã viết hoa), TTL ngắn; cache cả kết quả "không tồn tại"
+ * để lượt thử mã sai liên tục không chạm DB. Tồn kho không nằm trong cache, luôn trừ trực tiếp trên DB.
+ */
+@Component
+public class CouponCache {
+
+    private final CouponRepository couponRepository;
+    private final Cache<String, Optional<CouponDefinition>> cache;
+    private final SingleFlight<String, Optional<CouponDefinition>> loads = new SingleFlight<>();
+
+    public CouponCache(CouponRepository couponRepository,
+                       @Value("${coupon.cache.max-size:10000}") long maxSize,
+                       @Value("${coupon.cache.ttl:30s}") Duration ttl) {
+        this.couponRepository = couponRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Optional<CouponDefinition> find(String code) {
+        return loads.get(cache, code.toUpperCase(), this::load);
+    }
+
+    /**
+     * Xóa định nghĩa đã cache của một mã sau khi transaction hiện tại commit
+     */
+    public void evictAfterCommit(String code) {
+        String key = code.toUpperCase();
+        TransactionUtil.afterCommit(() -> loads.invalidate(cache, key));
+    }
+
+    private Optional<CouponDefinition> load(String code) {
+        return couponRepository.findByCode(code).map(CouponDefinition::of);
+    }
+}
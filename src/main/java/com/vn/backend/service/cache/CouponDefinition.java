@@ -0,0 +1,52 @@
+package com.vn.backend.service.cache;
+
+import com.vn.backend.model.Coupon;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ảnh chụp bất biến các thuộc tính ít đổi của một mã giảm giá (không gồm tồn kho) để cache theo code
+ */
+@Value
+@Builder
+public class CouponDefinition {
+    Long id;
+    String code;
+    String description;
+    String discountType;
+    int discount;
+    Integer perUserLimit;
+    int stripes;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+
+    public static CouponDefinition of(Coupon coupon) {
+        return CouponDefinition.builder()
+                .id(coupon.getId())
+                .code(coupon.getCode())
+                .description(coupon.getDescription())
+                .discountType(coupon.getDiscountType())
+                .discount(coupon.getDiscount())
+                .perUserLimit(coupon.getPerUserLimit())
+                .stripes(Math.max(1, coupon.getStripes()))
+                .createdAt(coupon.getCreatedAt())
+                .updatedAt(coupon.getUpdatedAt())
+                .build();
+    }
+
+    public boolean isStriped() {
+        return stripes > 1;
+    }
+
+    /**
+     * Số tiền giảm cho tổng tiền hàng amount, không vượt quá amount
+     */
+    public long discountFor(long amount) {
+        long discountAmount = "PERCENTAGE".equals(discountType)
+                ? amount * discount / 100
+                : discount;
+        return Math.min(discountAmount, amount);
+    }
+}
@@ -0,0 +1,98 @@
+package com.vn.backend.service.cache;
+
+import com.vn.backend.dto.response.ProductResponse;
+import com.vn.backend.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation giữa các node không cần hạ tầng riêng: định kỳ quét products.updated_at và evict L1
+ * những sản phẩm vừa được tạo/sửa ở bất kỳ node nào. Không có L2 dùng chung (get luôn rỗng).
+ * Mốc quét lùi lại cache.product.db-poll.lag để không sót transaction commit muộn hơn updated_at của nó;
+ * sản phẩm bị xóa ở node khác không để lại dấu vết nên vẫn được phục vụ tới hết cache.product.ttl.
+ * Thay bằng một ProductCacheTier khác (ví dụ Redis) thì đặt cache.product.db-poll.enabled=false.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.product.db-poll.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class DbPollingProductCacheTier implements ProductCacheTier {
+
+    private final ProductRepository productRepository;
+    private final Duration lag;
+
+    private volatile Consumer<Long> onEvict;
+    // updated_at lớn nhất đã thấy (theo đồng hồ ghi vào DB, không theo đồng hồ node này)
+    private LocalDateTime watermark;
+    // Bản (id -> updated_at) đã evict trong khoảng lùi, để lượt quét sau không evict (và bump CatalogVersion) lại
+    private final Map<Long, LocalDateTime> notified = new HashMap<>();
+
+    public DbPollingProductCacheTier(ProductRepository productRepository,
+                                     @Value("${cache.product.db-poll.lag:PT30S}") Duration lag) {
+        this.productRepository = productRepository;
+        this.lag = lag;
+    }
+
+    @Override
+    public Optional<ProductResponse> get(Long productId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(Long productId, ProductResponse product) {
+    }
+
+    /**
+     * Không cần thông báo: node khác thấy updated_at mới ở lượt quét kế tiếp
+     */
+    @Override
+    public void evict(Long productId) {
+    }
+
+    @Override
+    public void subscribe(Consumer<Long> onEvict) {
+        this.onEvict = onEvict;
+    }
+
+    @Scheduled(fixedDelayString = "${cache.product.db-poll.interval:PT5S}")
+    public synchronized void poll() {
+        Consumer<Long> listener = onEvict;
+        if (listener == null) {
+            return;
+        }
+        try {
+            if (watermark == null) {
+                // Lượt đầu chỉ lấy mốc; khoảng lùi của lượt sau bao phủ thay đổi quanh lúc khởi động
+                LocalDateTime last = productRepository.findLastUpdatedAt();
+                watermark = last != null ? last : LocalDateTime.of(1970, 1, 1, 0, 0);
+                return;
+            }
+            LocalDateTime since = watermark.minus(lag);
+            List<Object[]> changed = productRepository.findUpdatedSince(since);
+            for (Object[] row : changed) {
+                Long productId = (Long) row[0];
+                LocalDateTime updatedAt = (LocalDateTime) row[1];
+                if (!updatedAt.equals(notified.put(productId, updatedAt))) {
+                    listener.accept(productId);
+                }
+                if (updatedAt.isAfter(watermark)) {
+                    watermark = updatedAt;
+                }
+            }
+            LocalDateTime horizon = watermark.minus(lag);
+            notified.values().removeIf(updatedAt -> updatedAt.isBefore(horizon));
+        } catch (RuntimeException e) {
+            log.warn("Product cache invalidation poll failed, retrying next round", e);
+        }
+    }
+}
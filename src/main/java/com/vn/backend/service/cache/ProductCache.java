@@ -0,0 +1,113 @@
+package com.vn.backend.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.vn.backend.dto.response.ProductResponse;
+import com.vn.backend.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache read-through cho chi tiết sản phẩm (ProductResponse đã dựng sẵn).
+ * L1 là Caffeine trong bộ nhớ, giới hạn theo số lượng và TTL;
+ * L2 (tùy chọn) là ProductCacheTier dùng chung giữa các node.
+ */
+@Component
+@Slf4j
+public class ProductCache {
+
+    private final boolean enabled;
+    private final Cache<Long, ProductResponse> local;
+    private final ProductCacheTier sharedTier;
+    private final CatalogVersion catalogVersion;
+    private final SingleFlight<Long, ProductResponse> loads = new SingleFlight<>();
+
+    public ProductCache(@Value("${cache.product.enabled:true}") boolean enabled,
+                        @Value("${cache.product.max-size:10000}") long maxSize,
+                        @Value("${cache.product.ttl:10m}") Duration ttl,
+                        ObjectProvider<ProductCacheTier> sharedTier,
+                        CatalogVersion catalogVersion) {
+        this.enabled = enabled;
+        this.catalogVersion = catalogVersion;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.sharedTier = sharedTier.getIfAvailable();
+        if (this.sharedTier != null) {
+            this.sharedTier.subscribe(id -> {
+                loads.invalidate(local, id);
+                catalogVersion.bump();
+            });
+        }
+    }
+
+    /**
+     * Lấy sản phẩm từ cache, nếu không có thì gọi loader và lưu lại
+     */
+    public ProductResponse get(Long productId, Function<Long, ProductResponse> loader) {
+        if (!enabled) {
+            return loader.apply(productId);
+        }
+        return loads.get(local, productId, id -> {
+            if (sharedTier != null) {
+                Optional<ProductResponse> shared = sharedTier.get(id);
+                if (shared.isPresent()) {
+                    return shared.get();
+                }
+            }
+            ProductResponse product = loader.apply(id);
+            if (sharedTier != null && product != null) {
+                sharedTier.put(id, product);
+            }
+            return product;
+        });
+    }
+
+    /**
+     * Xóa sản phẩm khỏi cache sau khi transaction hiện tại commit
+     */
+    public void evictAfterCommit(Long productId) {
+        if (!enabled) {
+            TransactionUtil.afterCommit(catalogVersion::bump);
+            return;
+        }
+        TransactionUtil.afterCommit(() -> evict(productId));
+    }
+
+    public void evict(Long productId) {
+        loads.invalidate(local, productId);
+        catalogVersion.bump();
+        if (sharedTier != null) {
+            sharedTier.evict(productId);
+        }
+    }
+
+    public CacheStats stats() {
+        return local.stats();
+    }
+
+    public long size() {
+        return local.estimatedSize();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.product.stats-log-interval:PT10M}")
+    public void logStats() {
+        if (!enabled) {
+            return;
+        }
+        CacheStats stats = local.stats();
+        log.info("Product cache - size: {}, hits: {}, misses: {}, hit rate: {}, evictions: {}",
+                local.estimatedSize(), stats.hitCount(), stats.missCount(),
+                String.format("%.2f", stats.hitRate()), stats.evictionCount());
+    }
+}
@@ -0,0 +1,29 @@
+package com.vn.backend.service.cache;
+
+import com.vn.backend.dto.response.ProductResponse;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Phần của ProductCache dùng chung giữa các node: L2 (get/put) và kênh invalidation (evict/subscribe).
+ * Mặc định là DbPollingProductCacheTier (chỉ có invalidation, hội tụ sau một chu kỳ quét);
+ * bản dựa trên Redis có thể cài đặt cả L2 lẫn pub/sub để invalidation tức thời.
+ */
+public interface ProductCacheTier {
+
+    Optional<ProductResponse> get(Long productId);
+
+    void put(Long productId, ProductResponse product);
+
+    /**
+     * Xóa khỏi tầng dùng chung và thông báo cho các node khác
+     */
+    void evict(Long productId);
+
+    /**
+     * Đăng ký nhận sự kiện invalidation từ node khác để xóa cache cục bộ (L1)
+     */
+    default void subscribe(Consumer<Long> onEvict) {
+    }
+}
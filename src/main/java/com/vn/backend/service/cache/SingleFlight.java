@@ -0,0 +1,71 @@
+package com.vn.backend.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Nạp giá trị thiếu vào Caffeine cache mà không chạy loader bên trong Cache.get(key, loader).
+ * Cache.get nạp trong ConcurrentHashMap.compute (giữ monitor của bin), nên loader truy vấn DB sẽ ghim
+ * virtual thread vào carrier. Ở đây chỉ một thread nạp mỗi key, các thread khác chờ CompletableFuture
+ * (park, không ghim); loader trả null thì không cache.
+ * Xóa key phải đi qua invalidate để kết quả của lần nạp đang chạy (có thể đã cũ) không bị ghi vào cache.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V get(Cache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        // Chỉ ghi nếu chưa bị invalidate trong lúc nạp; put trong compute nên không xen được với invalidate
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current == mine && value != null) {
+                cache.put(key, value);
+            }
+            return current == mine ? null : current;
+        });
+        mine.complete(value);
+        return value;
+    }
+
+    /**
+     * Xóa key khỏi cache và bỏ kết quả của lần nạp đang chạy cho key đó
+     */
+    public void invalidate(Cache<K, V> cache, K key) {
+        inFlight.compute(key, (k, current) -> {
+            cache.invalidate(key);
+            return null;
+        });
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.vn.backend.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vn.backend.service.CustomUserDetailsService;
+import com.vn.backend.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache quyền (roles + permissions) theo email cho JwtTokenValidator, TTL ngắn.
+ * Không lưu mật khẩu; luồng đăng nhập vẫn gọi thẳng CustomUserDetailsService.
+ */
+@Component
+@Slf4j
+public class UserAuthorityCache {
+
+    private final CustomUserDetailsService customUserDetailsService;
+    private final Cache<String, UserDetails> cache;
+    private final SingleFlight<String, UserDetails> loads = new SingleFlight<>();
+
+    public UserAuthorityCache(CustomUserDetailsService customUserDetailsService,
+                              @Value("${jwt.authorities.cache-size:10000}") long maxSize,
+                              @Value("${jwt.authorities.cache-ttl:60s}") Duration ttl) {
+        this.customUserDetailsService = customUserDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public UserDetails get(String email) {
+        return loads.get(cache, email, this::load);
+    }
+
+    /**
+     * Xóa quyền đã cache của một user sau khi transaction hiện tại commit
+     */
+    public void evictAfterCommit(String email) {
+        TransactionUtil.afterCommit(() -> loads.invalidate(cache, email));
+    }
+
+    /**
+     * Xóa toàn bộ (khi roles/permissions của role thay đổi)
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private UserDetails load(String email) {
+        UserDetails details = customUserDetailsService.loadUserByUsername(email);
+        return User.withUsername(details.getUsername())
+                .password("")
+                .disabled(!details.isEnabled())
+                .authorities(details.getAuthorities())
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.vn.backend.service.cart;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+
+/**
+ * Một dòng của giỏ hàng kèm thông tin hiển thị của sản phẩm.
+ * Bất biến: mỗi thay đổi tạo instance mới, nên write-behind nhận biết dòng đã đổi sau khi chụp bằng so sánh tham chiếu.
+ */
+@Value
+@Builder(toBuilder = true)
+@With
+public class CartLine {
+    // null khi dòng chưa được insert
+    Long id;
+    Long productId;
+    String productName;
+    String productImage;
+    Long productPrice;
+    Integer productDiscount;
+    int quantity;
+    long total;
+}
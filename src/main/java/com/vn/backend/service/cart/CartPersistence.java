@@ -0,0 +1,196 @@
+package com.vn.backend.service.cart;
+
+import com.vn.backend.dto.projection.CartItemView;
+import com.vn.backend.model.Cart;
+import com.vn.backend.model.CartItem;
+import com.vn.backend.repository.CartItemRepository;
+import com.vn.backend.repository.CartRepository;
+import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.repository.UserRepository;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Đọc/ghi CartState với bảng carts/cart_items, dùng chung cho các CartStore.
+ * Update/delete đi theo JDBC batch; insert qua JPA vì cần id sinh ra.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CartPersistence {
+
+    CartRepository cartRepository;
+    CartItemRepository cartItemRepository;
+    ProductRepository productRepository;
+    UserRepository userRepository;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    // Write-behind luôn chạy transaction riêng: gọi từ afterCommit thì transaction cũ đã commit, tham gia vào đó
+    // thì lệnh ghi không bao giờ được commit
+    TransactionTemplate writeBehindTemplate;
+
+    public CartPersistence(CartRepository cartRepository,
+                           CartItemRepository cartItemRepository,
+                           ProductRepository productRepository,
+                           UserRepository userRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeBehindTemplate = new TransactionTemplate(transactionManager);
+        this.writeBehindTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Cart findOrCreate(Long userId) {
+        return cartRepository.findByCustomerId(userId)
+                .orElseGet(() -> cartRepository.save(Cart.builder()
+                        .customer(userRepository.getReferenceById(userId))
+                        .total(0L)
+                        .itemCount(0)
+                        .build()));
+    }
+
+    /**
+     * Nạp giỏ cùng các dòng (một truy vấn projection kèm tên/ảnh sản phẩm)
+     */
+    public CartState load(Long userId, Cart cart) {
+        List<CartLine> lines = cartItemRepository.findViewsByCartId(cart.getId()).stream()
+                .map(CartPersistence::toLine)
+                .collect(Collectors.toList());
+        return new CartState(cart.getId(), userId, cart.getVersion(),
+                cart.getTotal() != null ? cart.getTotal() : 0L, cart.getItemCount(), lines);
+    }
+
+    /**
+     * Ghi mọi thay đổi của state (sửa, thêm, xóa dòng) trong transaction hiện tại hoặc một transaction mới
+     */
+    public void writeLines(CartState state) {
+        transactionTemplate.executeWithoutResult(status -> {
+            updateItems(state.pendingChanges().getUpdated());
+            insertItems(state);
+            deleteItems(state.getRemoved().values());
+        });
+        state.markPersisted();
+    }
+
+    /**
+     * Insert ngay các dòng mới để có id; dòng cũ cùng sản phẩm còn chờ DELETE thì xóa trước trong cùng transaction
+     */
+    public void insertNewLines(CartState state) {
+        if (state.newLines().isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> insertItems(state));
+    }
+
+    /**
+     * Ghi một lô thay đổi của nhiều giỏ trong transaction mới (nhịp write-behind, afterCommit của checkout)
+     */
+    public void writeBehind(Collection<CartState.Changes> batch) {
+        writeBehindTemplate.executeWithoutResult(status -> writeChanges(batch));
+    }
+
+    /**
+     * Ghi thay đổi trong transaction hiện tại (checkout: rollback cùng đơn hàng)
+     */
+    public void writeInTransaction(Collection<CartState.Changes> batch) {
+        transactionTemplate.executeWithoutResult(status -> writeChanges(batch));
+    }
+
+    /**
+     * Batch UPDATE/DELETE cart_items rồi tính lại total/item_count của từng giỏ từ cart_items
+     * nên dòng carts luôn khớp với item
+     */
+    private void writeChanges(Collection<CartState.Changes> batch) {
+        List<CartLine> updated = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (CartState.Changes changes : batch) {
+            updated.addAll(changes.getUpdated());
+            removed.addAll(changes.getRemoved().values());
+        }
+        deleteItems(removed);
+        updateItems(updated);
+        jdbcTemplate.batchUpdate("UPDATE carts c SET " +
+                        "c.total = (SELECT COALESCE(SUM(ci.total), 0) FROM cart_items ci WHERE ci.cart_id = c.id), " +
+                        "c.item_count = (SELECT COALESCE(SUM(ci.quantity), 0) FROM cart_items ci WHERE ci.cart_id = c.id), " +
+                        "c.version = GREATEST(c.version + 1, ?) WHERE c.id = ?",
+                batch.stream()
+                        .map(changes -> new Object[]{changes.getVersion(), changes.getCartId()})
+                        .collect(Collectors.toList()));
+    }
+
+    private void insertItems(CartState state) {
+        List<CartLine> newLines = state.newLines();
+        if (newLines.isEmpty()) {
+            return;
+        }
+        // Dòng cũ của cùng sản phẩm (bỏ rồi thêm lại trước khi kịp ghi) phải xóa trước khi insert
+        List<Long> replaced = new ArrayList<>();
+        for (CartLine line : newLines) {
+            Long oldId = state.getRemoved().get(line.getProductId());
+            if (oldId != null) {
+                replaced.add(oldId);
+            }
+        }
+        deleteItems(replaced);
+
+        Cart cart = cartRepository.getReferenceById(state.getCartId());
+        List<CartItem> items = newLines.stream()
+                .map(line -> CartItem.builder()
+                        .cart(cart)
+                        .product(productRepository.getReferenceById(line.getProductId()))
+                        .quantity(line.getQuantity())
+                        .total(line.getTotal())
+                        .build())
+                .collect(Collectors.toList());
+        for (CartItem item : cartItemRepository.saveAll(items)) {
+            state.assignId(item.getProduct().getId(), item.getId());
+        }
+    }
+
+    private void updateItems(List<CartLine> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE cart_items SET quantity = ?, total = ? WHERE id = ?",
+                lines.stream()
+                        .map(line -> new Object[]{line.getQuantity(), line.getTotal(), line.getId()})
+                        .collect(Collectors.toList()));
+    }
+
+    private void deleteItems(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE id = ?",
+                itemIds.stream()
+                        .map(id -> new Object[]{id})
+                        .collect(Collectors.toList()));
+    }
+
+    private static CartLine toLine(CartItemView item) {
+        return CartLine.builder()
+                .id(item.getId())
+                .productId(item.getProductId())
+                .productName(item.getProductName())
+                .productImage(item.getProductImage())
+                .productPrice(item.getProductPrice())
+                .productDiscount(item.getProductDiscount())
+                .quantity(item.getQuantity())
+                .total(item.getTotal())
+                .build();
+    }
+}
@@ -0,0 +1,229 @@
+package com.vn.backend.service.cart;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Giỏ hàng của một người dùng: các dòng theo productId, tổng tiền/tổng số lượng cập nhật bằng delta,
+ * cùng danh sách thay đổi chưa ghi xuống DB. Không thread-safe; CartStore đảm bảo mỗi lúc chỉ một thread sửa.
+ */
+@Getter
+public class CartState {
+
+    private final Long cartId;
+    private final Long userId;
+    @Setter
+    private Long version;
+    private long total;
+    private int itemCount;
+
+    private final Map<Long, CartLine> lines;
+    // productId của các dòng cần insert/update
+    private final Set<Long> changed;
+    // productId -> id của dòng đã bỏ khỏi giỏ, chờ DELETE
+    private final Map<Long, Long> removed;
+    private int modCount;
+
+    public CartState(Long cartId, Long userId, Long version, long total, int itemCount, Collection<CartLine> lines) {
+        this.cartId = cartId;
+        this.userId = userId;
+        this.version = version;
+        this.total = total;
+        this.itemCount = itemCount;
+        this.lines = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            this.lines.put(line.getProductId(), line);
+        }
+        this.changed = new HashSet<>();
+        this.removed = new HashMap<>();
+    }
+
+    private CartState(CartState source) {
+        this.cartId = source.cartId;
+        this.userId = source.userId;
+        this.version = source.version;
+        this.total = source.total;
+        this.itemCount = source.itemCount;
+        this.lines = new LinkedHashMap<>(source.lines);
+        this.changed = new HashSet<>(source.changed);
+        this.removed = new HashMap<>(source.removed);
+        this.modCount = source.modCount;
+    }
+
+    public CartState copy() {
+        return new CartState(this);
+    }
+
+    public CartLine line(Long productId) {
+        return lines.get(productId);
+    }
+
+    public CartLine lineById(Long itemId) {
+        for (CartLine line : lines.values()) {
+            if (itemId.equals(line.getId())) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    public Collection<CartLine> lines() {
+        return Collections.unmodifiableCollection(lines.values());
+    }
+
+    /**
+     * Đặt số lượng/thành tiền cho một sản phẩm (giữ id nếu dòng đã có); quantity <= 0 thì bỏ dòng
+     */
+    public void put(CartLine line) {
+        if (line.getQuantity() <= 0) {
+            remove(line.getProductId());
+            return;
+        }
+        CartLine old = lines.get(line.getProductId());
+        if (old != null) {
+            line = line.withId(old.getId());
+            total -= old.getTotal();
+            itemCount -= old.getQuantity();
+        }
+        total += line.getTotal();
+        itemCount += line.getQuantity();
+        lines.put(line.getProductId(), line);
+        changed.add(line.getProductId());
+        modCount++;
+    }
+
+    public void remove(Long productId) {
+        CartLine old = lines.remove(productId);
+        if (old == null) {
+            return;
+        }
+        total -= old.getTotal();
+        itemCount -= old.getQuantity();
+        changed.remove(productId);
+        if (old.getId() != null) {
+            removed.put(productId, old.getId());
+        }
+        modCount++;
+    }
+
+    public void clear() {
+        for (Long productId : new ArrayList<>(lines.keySet())) {
+            remove(productId);
+        }
+    }
+
+    public boolean isDirty() {
+        return !changed.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * Dòng mới chưa có id (cần insert để lấy id)
+     */
+    public List<CartLine> newLines() {
+        List<CartLine> result = new ArrayList<>();
+        for (Long productId : changed) {
+            CartLine line = lines.get(productId);
+            if (line.getId() == null) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gán id cho dòng vừa insert: dòng đã khớp DB nên bỏ khỏi danh sách chờ ghi,
+     * kể cả lần DELETE chờ của dòng cũ cùng sản phẩm (đã xóa cùng lúc insert)
+     */
+    public void assignId(Long productId, Long itemId) {
+        lines.computeIfPresent(productId, (id, line) -> line.withId(itemId));
+        changed.remove(productId);
+        removed.remove(productId);
+    }
+
+    /**
+     * Chụp các thay đổi còn chờ của những dòng đã có id (update/delete) cho write-behind
+     */
+    public Changes pendingChanges() {
+        List<CartLine> updated = new ArrayList<>();
+        for (Long productId : changed) {
+            CartLine line = lines.get(productId);
+            if (line.getId() != null) {
+                updated.add(line);
+            }
+        }
+        return new Changes(cartId, version, updated, new HashMap<>(removed));
+    }
+
+    /**
+     * Bỏ khỏi danh sách chờ những thay đổi đã ghi; dòng bị sửa tiếp sau lúc chụp (khác tham chiếu) vẫn chờ lần sau
+     */
+    public void acknowledge(Changes written) {
+        for (CartLine line : written.getUpdated()) {
+            if (lines.get(line.getProductId()) == line) {
+                changed.remove(line.getProductId());
+            }
+        }
+        written.getRemoved().forEach(removed::remove);
+    }
+
+    /**
+     * Đưa lại vào danh sách chờ những thay đổi đã ghi trong một transaction bị rollback
+     */
+    public void restore(Changes written) {
+        for (CartLine line : written.getUpdated()) {
+            CartLine current = lines.get(line.getProductId());
+            if (current != null && current.getId() != null) {
+                changed.add(line.getProductId());
+            }
+        }
+        written.getRemoved().forEach(removed::putIfAbsent);
+    }
+
+    public void markPersisted() {
+        changed.clear();
+        removed.clear();
+    }
+
+    /**
+     * Tính lại tổng từ các dòng (khi nạp lại từ DB mà dòng carts có thể chưa kịp ghi)
+     */
+    public void reconcile() {
+        long lineTotal = 0;
+        int lineCount = 0;
+        for (CartLine line : lines.values()) {
+            lineTotal += line.getTotal();
+            lineCount += line.getQuantity();
+        }
+        this.total = lineTotal;
+        this.itemCount = lineCount;
+    }
+
+    @Getter
+    public static class Changes {
+        private final Long cartId;
+        private final Long version;
+        private final List<CartLine> updated;
+        private final Map<Long, Long> removed;
+
+        Changes(Long cartId, Long version, List<CartLine> updated, Map<Long, Long> removed) {
+            this.cartId = cartId;
+            this.version = version;
+            this.updated = updated;
+            this.removed = removed;
+        }
+
+        public boolean isEmpty() {
+            return updated.isEmpty() && removed.isEmpty();
+        }
+    }
+}
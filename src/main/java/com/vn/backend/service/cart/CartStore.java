@@ -0,0 +1,32 @@
+package com.vn.backend.service.cart;
+
+import java.util.function.Consumer;
+
+/**
+ * Nơi giữ giỏ hàng đang dùng, theo id người dùng. Chọn implementation bằng cart.store:
+ * database (mặc định, mỗi thao tác đọc/ghi thẳng carts/cart_items) hoặc memory (giỏ nóng trong bộ nhớ, ghi sau theo lô).
+ * Triển khai nhiều node với memory cần sticky session theo user, hoặc một implementation dùng chung thay thế.
+ */
+public interface CartStore {
+
+    /**
+     * Bản chụp giỏ của người dùng (tạo giỏ rỗng nếu chưa có); sửa bản chụp không ảnh hưởng giỏ
+     */
+    CartState get(Long userId);
+
+    /**
+     * Chạy mutation độc quyền trên giỏ rồi trả bản chụp sau khi sửa.
+     * Mutation ném exception thì giỏ giữ nguyên như trước khi gọi.
+     */
+    CartState mutate(Long userId, Consumer<CartState> mutation);
+
+    /**
+     * Ghi ngay mọi thay đổi còn chờ của giỏ xuống DB, dùng trước khi đọc carts/cart_items trực tiếp (checkout)
+     */
+    void flush(Long userId);
+
+    /**
+     * Bỏ bản trong bộ nhớ sau khi transaction hiện tại commit, để lần sau đọc lại từ DB
+     */
+    void evictAfterCommit(Long userId);
+}
@@ -0,0 +1,60 @@
+package com.vn.backend.service.cart;
+
+import com.vn.backend.model.Cart;
+import com.vn.backend.repository.CartRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+
+/**
+ * CartStore mặc định: mỗi thao tác đọc giỏ từ DB và ghi thay đổi ngay trong transaction của nó
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DatabaseCartStore implements CartStore {
+
+    CartRepository cartRepository;
+    CartPersistence cartPersistence;
+
+    @Override
+    public CartState get(Long userId) {
+        return cartPersistence.load(userId, cartPersistence.findOrCreate(userId));
+    }
+
+    @Override
+    @Transactional
+    public CartState mutate(Long userId, Consumer<CartState> mutation) {
+        Cart cart = cartPersistence.findOrCreate(userId);
+        CartState state = cartPersistence.load(userId, cart);
+        mutation.accept(state);
+        if (!state.isDirty()) {
+            return state;
+        }
+
+        // UPDATE carts ... WHERE version = ? khóa dòng giỏ trước khi ghi item (thứ tự khóa cố định giỏ → item),
+        // tab khác đã sửa giỏ sau khi ta đọc thì không khớp version và cả transaction rollback (409)
+        cart.setTotal(state.getTotal());
+        cart.setItemCount(state.getItemCount());
+        cartRepository.saveAndFlush(cart);
+        cartPersistence.writeLines(state);
+        state.setVersion(cart.getVersion());
+        return state;
+    }
+
+    @Override
+    public void flush(Long userId) {
+        // Mọi thay đổi đã nằm trong DB
+    }
+
+    @Override
+    public void evictAfterCommit(Long userId) {
+        // Không giữ gì trong bộ nhớ
+    }
+}
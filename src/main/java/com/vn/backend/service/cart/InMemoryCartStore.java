@@ -0,0 +1,324 @@
+package com.vn.backend.service.cart;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.vn.backend.util.TransactionUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Giỏ nóng trong bộ nhớ (cart.store=memory): đọc giỏ không chạm DB, sửa số lượng chỉ đổi bản trong bộ nhớ
+ * rồi được ghi sau (write-behind) theo lô mỗi cart.memory.flush-interval; nhiều lần sửa một giỏ trong một nhịp
+ * gộp thành một lần ghi. Dòng mới được insert ngay để có id. Giỏ bị đẩy khỏi cache (max-size, idle-timeout)
+ * vẫn đọc được cho tới khi được ghi; checkout ghi ngay trong transaction của đơn hàng.
+ * Tiến trình dừng đột ngột thì mất tối đa một nhịp thay đổi số lượng; khi nạp lại tổng được tính lại từ cart_items.
+ * Chỉ đúng khi mọi request của một user tới cùng một node (sticky session).
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "memory")
+@Slf4j
+public class InMemoryCartStore implements CartStore {
+
+    private final CartPersistence cartPersistence;
+    private final int batchSize;
+    private final Cache<Long, Entry> carts;
+    // Giỏ bị đẩy khỏi cache, chờ write-behind ghi; đọc lại trước khi ghi xong thì dùng lại chính entry này
+    private final ConcurrentMap<Long, Entry> evicted = new ConcurrentHashMap<>();
+    // User có giỏ cần ghi (dòng carts và/hoặc cart_items)
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // Mỗi lúc chỉ một lượt ghi, để bản chụp cũ không ghi đè bản mới hơn
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public InMemoryCartStore(CartPersistence cartPersistence,
+                             @Value("${cart.memory.max-size:100000}") long maxSize,
+                             @Value("${cart.memory.idle-timeout:30m}") Duration idleTimeout,
+                             @Value("${cart.memory.batch-size:200}") int batchSize) {
+        this.cartPersistence = cartPersistence;
+        this.batchSize = batchSize;
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTimeout)
+                .evictionListener((Long userId, Entry entry, RemovalCause cause) -> {
+                    if (userId != null && entry != null) {
+                        evicted.put(userId, entry);
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public CartState get(Long userId) {
+        return withEntry(userId, entry -> entry.state.copy());
+    }
+
+    @Override
+    public CartState mutate(Long userId, Consumer<CartState> mutation) {
+        return withEntry(userId, entry -> {
+            // Sửa trên bản sao: mutation ném exception thì giỏ giữ nguyên
+            CartState next = entry.state.copy();
+            mutation.accept(next);
+            if (next.getModCount() == entry.state.getModCount()) {
+                return next;
+            }
+            cartPersistence.insertNewLines(next);
+            next.setVersion((next.getVersion() != null ? next.getVersion() : 0L) + 1);
+            entry.state = next;
+            dirty.add(userId);
+            return next.copy();
+        });
+    }
+
+    /**
+     * Ghi thay đổi còn chờ trong transaction hiện tại (checkout đọc cart_items ngay sau đó);
+     * transaction rollback thì thay đổi quay lại hàng chờ write-behind
+     */
+    @Override
+    public void flush(Long userId) {
+        writeLock.lock();
+        try {
+            Entry entry = find(userId);
+            if (entry == null) {
+                return;
+            }
+            entry.lock.lock();
+            try {
+                if (entry.detached) {
+                    return;
+                }
+                CartState.Changes changes = entry.state.pendingChanges();
+                boolean stale = dirty.remove(userId);
+                if (changes.isEmpty() && !stale) {
+                    return;
+                }
+                try {
+                    cartPersistence.writeInTransaction(List.of(changes));
+                } catch (RuntimeException e) {
+                    dirty.add(userId);
+                    throw e;
+                }
+                entry.state.acknowledge(changes);
+                TransactionUtil.afterRollback(() -> {
+                    entry.lock.lock();
+                    try {
+                        entry.state.restore(changes);
+                        dirty.add(userId);
+                    } finally {
+                        entry.lock.unlock();
+                    }
+                });
+            } finally {
+                entry.lock.unlock();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sau khi đơn hàng commit: ghi nốt thay đổi phát sinh trong lúc checkout rồi bỏ giỏ khỏi bộ nhớ
+     */
+    @Override
+    public void evictAfterCommit(Long userId) {
+        TransactionUtil.afterCommit(() -> {
+            writeLock.lock();
+            try {
+                Entry entry = find(userId);
+                if (entry == null) {
+                    return;
+                }
+                entry.lock.lock();
+                try {
+                    if (entry.detached) {
+                        return;
+                    }
+                    CartState.Changes changes = entry.state.pendingChanges();
+                    if (!changes.isEmpty() || dirty.contains(userId)) {
+                        cartPersistence.writeBehind(List.of(changes));
+                    }
+                    dirty.remove(userId);
+                    detach(userId, entry);
+                } finally {
+                    entry.lock.unlock();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Cannot write cart of user {} after checkout, keeping it in memory", userId, e);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Ghi các giỏ đã đổi theo lô batch-size; lô lỗi thì giữ lại cho nhịp sau
+     */
+    @Scheduled(fixedDelayString = "${cart.memory.flush-interval:PT1S}")
+    public void flushDirty() {
+        writeLock.lock();
+        try {
+            // Chạy ngay các lượt đẩy khỏi cache còn chờ (Caffeine xử lý bất đồng bộ) để giỏ vừa bị đẩy được ghi trong nhịp này
+            carts.cleanUp();
+            Set<Long> userIds = new LinkedHashSet<>();
+            for (Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+                userIds.add(it.next());
+                it.remove();
+            }
+            userIds.addAll(evicted.keySet());
+            if (userIds.isEmpty()) {
+                return;
+            }
+
+            List<Pending> batch = new ArrayList<>(Math.min(batchSize, userIds.size()));
+            int written = 0;
+            for (Long userId : userIds) {
+                Entry entry = find(userId);
+                if (entry == null) {
+                    continue;
+                }
+                entry.lock.lock();
+                try {
+                    if (!entry.detached) {
+                        batch.add(new Pending(userId, entry, entry.state.pendingChanges()));
+                    }
+                } finally {
+                    entry.lock.unlock();
+                }
+                if (batch.size() >= batchSize) {
+                    written += writeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                written += writeBatch(batch);
+            }
+            log.debug("Cart write-behind wrote {} of {} carts, {} evicted pending", written, userIds.size(), evicted.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDirty();
+        if (!dirty.isEmpty()) {
+            log.warn("{} carts could not be written before shutdown", dirty.size());
+        }
+    }
+
+    private int writeBatch(List<Pending> batch) {
+        List<CartState.Changes> changes = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            changes.add(pending.changes);
+        }
+        try {
+            cartPersistence.writeBehind(changes);
+        } catch (RuntimeException e) {
+            log.warn("Cart write-behind of {} carts failed, retrying next round", batch.size(), e);
+            for (Pending pending : batch) {
+                dirty.add(pending.userId);
+            }
+            return 0;
+        }
+
+        for (Pending pending : batch) {
+            Entry entry = pending.entry;
+            entry.lock.lock();
+            try {
+                entry.state.acknowledge(pending.changes);
+                // Giỏ đã bị đẩy khỏi cache và không đổi thêm: DB đã đủ, bỏ hẳn
+                if (evicted.get(pending.userId) == entry && !entry.state.isDirty() && !dirty.contains(pending.userId)) {
+                    detach(pending.userId, entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        return batch.size();
+    }
+
+    /**
+     * Lấy entry đang dùng của user (nạp nếu chưa có) và chạy action khi giữ khóa của nó;
+     * entry đã tách khỏi store trong lúc chờ khóa thì lấy lại entry mới
+     */
+    private <T> T withEntry(Long userId, Function<Entry, T> action) {
+        while (true) {
+            Entry entry = carts.get(userId, this::load);
+            entry.lock.lock();
+            try {
+                if (!entry.detached) {
+                    return action.apply(entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private Entry load(Long userId) {
+        Entry orphan = evicted.remove(userId);
+        if (orphan != null) {
+            return orphan;
+        }
+        CartState state = cartPersistence.load(userId, cartPersistence.findOrCreate(userId));
+        long rowTotal = state.getTotal();
+        int rowCount = state.getItemCount();
+        // Dòng carts có thể chưa kịp ghi trước khi tiến trình trước dừng: cart_items là nguồn đúng
+        state.reconcile();
+        if (state.getTotal() != rowTotal || state.getItemCount() != rowCount) {
+            dirty.add(userId);
+        }
+        return new Entry(state);
+    }
+
+    /**
+     * Entry của user mà không tính là một lần truy cập (không gia hạn idle-timeout)
+     */
+    private Entry find(Long userId) {
+        Entry entry = carts.policy().getIfPresentQuietly(userId);
+        return entry != null ? entry : evicted.get(userId);
+    }
+
+    private void detach(Long userId, Entry entry) {
+        entry.detached = true;
+        carts.asMap().remove(userId, entry);
+        evicted.remove(userId, entry);
+    }
+
+    private static class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        CartState state;
+        boolean detached;
+
+        Entry(CartState state) {
+            this.state = state;
+        }
+    }
+
+    private static class Pending {
+        final Long userId;
+        final Entry entry;
+        final CartState.Changes changes;
+
+        Pending(Long userId, Entry entry, CartState.Changes changes) {
+            this.userId = userId;
+            this.entry = entry;
+            this.changes = changes;
+        }
+    }
+}
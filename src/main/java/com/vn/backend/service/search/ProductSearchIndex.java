@@ -0,0 +1,438 @@
+package com.vn.backend.service.search;
+
+import com.vn.backend.exception.AppException;
+import com.vn.backend.model.Author;
+import com.vn.backend.model.Product;
+import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.util.TextNormalizer;
+import com.vn.backend.util.TransactionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Function;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo (inverted index) trong bộ nhớ cho tìm kiếm sản phẩm
+ * Index theo tên, mô tả ngắn, tên tác giả và nhà xuất bản; xếp hạng bằng BM25
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Trọng số từng trường khi tính tần suất từ (BM25F rút gọn)
+    private static final int NAME_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int PUBLISHER_WEIGHT = 1;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Mỗi lúc chỉ một lượt dựng lại (khởi động và làm mới định kỳ có thể trùng nhau)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.index.batch-size:500}")
+    private int batchSize;
+
+    @Value("${search.index.max-prefix-terms:50}")
+    private int maxPrefixTerms;
+
+    private TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, IndexedDocument> documents = new HashMap<>();
+    private long totalLength;
+    private volatile boolean ready;
+    // Thay đổi áp dụng trong lúc đang dựng lại (id -> bản mới, null = đã xóa), chép sang chỉ mục mới trước khi hoán đổi;
+    // null khi không dựng lại. Chỉ đọc/ghi khi giữ write lock.
+    private Map<Long, IndexedDocument> changedDuringRebuild;
+
+    /**
+     * Chỉ mục đã được nạp xong và có thể dùng thay cho truy vấn LIKE
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Nạp lại toàn bộ chỉ mục từ DB theo từng lô, sau đó hoán đổi một lần.
+     * Sản phẩm được thêm/sửa/xóa trong lúc nạp có thể đã được đọc ở bản cũ, nên các thay đổi đó được ghi lại
+     * và áp lên chỉ mục mới ngay trước khi hoán đổi.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            log.info("Product search index is disabled");
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            rebuildInternal();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Làm mới định kỳ: indexAfterCommit/removeAfterCommit chỉ chạy trên node thực hiện thay đổi,
+     * các node khác hội tụ sau tối đa một chu kỳ
+     */
+    @Scheduled(fixedDelayString = "${search.index.refresh-interval:PT5M}",
+            initialDelayString = "${search.index.refresh-interval:PT5M}")
+    public void refresh() {
+        rebuild();
+    }
+
+    private void rebuildInternal() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TreeMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+        Map<Long, IndexedDocument> newDocuments = new HashMap<>();
+        long newTotalLength = 0;
+
+        int pageNumber = 0;
+        Page<Product> page;
+        try {
+            do {
+                page = productRepository.findAll(PageRequest.of(pageNumber++, batchSize, Sort.by("id")));
+                for (Product product : page.getContent()) {
+                    IndexedDocument document = analyze(product);
+                    newDocuments.put(document.id, document);
+                    newTotalLength += document.length;
+                    addPostings(newPostings, document);
+                }
+            } while (page.hasNext());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Failed to rebuild product search index, keeping previous one", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+            totalLength = newTotalLength;
+            changedDuringRebuild.forEach((id, document) -> {
+                removeInternal(id);
+                if (document != null) {
+                    putInternal(document);
+                }
+            });
+            changedDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Product search index built: {} products, {} terms in {} ms",
+                newDocuments.size(), newPostings.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Cập nhật chỉ mục cho sản phẩm sau khi transaction hiện tại commit
+     */
+    public void indexAfterCommit(Product product) {
+        IndexedDocument document = analyze(product);
+        runAfterCommit(() -> put(document));
+    }
+
+    /**
+     * Xóa sản phẩm khỏi chỉ mục sau khi transaction hiện tại commit
+     */
+    public void removeAfterCommit(Long productId) {
+        runAfterCommit(() -> remove(productId));
+    }
+
+    /**
+     * Tìm kiếm sản phẩm, trả về danh sách ID đã xếp hạng
+     * Mọi từ trong truy vấn đều phải khớp (khớp tiền tố), điểm số tính bằng BM25
+     *
+     * @param query      Từ khóa tìm kiếm
+     * @param categoryId Lọc theo danh mục (có thể null)
+     * @param minPrice   Giá tối thiểu (có thể null)
+     * @param maxPrice   Giá tối đa (có thể null)
+     * @param sort       Sắp xếp theo id, name, price, discount, ratingAvg, ratingCount, publisherDate, createdAt,
+     *                   updatedAt (cùng các khóa của nhánh truy vấn DB); mặc định theo độ liên quan
+     * @throws AppException 400 nếu sort theo khóa khác
+     * @return Danh sách ID sản phẩm
+     */
+    public List<Long> search(String query, Long categoryId, Long minPrice, Long maxPrice, Sort sort) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+
+            double avgLength = (double) totalLength / documents.size();
+            Map<Long, Double> scores = null;
+
+            for (String token : tokens.stream().distinct().toList()) {
+                Map<Long, Double> tokenScores = scoreToken(token, avgLength);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    Map<Long, Double> merged = new HashMap<>();
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        Double tokenScore = tokenScores.get(entry.getKey());
+                        if (tokenScore != null) {
+                            merged.put(entry.getKey(), entry.getValue() + tokenScore);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<IndexedDocument> hits = new ArrayList<>();
+            for (Long id : scores.keySet()) {
+                IndexedDocument document = documents.get(id);
+                if (categoryId != null && !categoryId.equals(document.categoryId)) continue;
+                if (minPrice != null && (document.price == null || document.price < minPrice)) continue;
+                if (maxPrice != null && (document.price == null || document.price > maxPrice)) continue;
+                hits.add(document);
+            }
+
+            final Map<Long, Double> finalScores = scores;
+            Comparator<IndexedDocument> byRelevance = Comparator
+                    .comparingDouble((IndexedDocument d) -> finalScores.get(d.id)).reversed()
+                    .thenComparing(d -> d.id, Comparator.reverseOrder());
+            hits.sort(resolveComparator(sort, byRelevance));
+
+            return hits.stream().map(d -> d.id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tính điểm BM25 của một từ truy vấn, mở rộng theo tiền tố.
+     * Mỗi sản phẩm lấy điểm cao nhất trong các từ khớp tiền tố.
+     */
+    private Map<Long, Double> scoreToken(String token, double avgLength) {
+        Map<Long, Double> tokenScores = new HashMap<>();
+        NavigableMap<String, Map<Long, Integer>> matches =
+                postings.subMap(token, true, token + Character.MAX_VALUE, false);
+
+        int expanded = 0;
+        for (Map.Entry<String, Map<Long, Integer>> term : matches.entrySet()) {
+            // Từ khớp chính xác (nếu có) luôn đứng đầu subMap nên hết hạn mức là dừng
+            if (expanded++ >= maxPrefixTerms) {
+                break;
+            }
+            Map<Long, Integer> postingList = term.getValue();
+            double idf = Math.log(1 + (documents.size() - postingList.size() + 0.5) / (postingList.size() + 0.5));
+
+            for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                IndexedDocument document = documents.get(posting.getKey());
+                double tf = posting.getValue();
+                double norm = K1 * (1 - B + B * document.length / avgLength);
+                double score = idf * (tf * (K1 + 1)) / (tf + norm);
+                tokenScores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return tokenScores;
+    }
+
+    /**
+     * Sắp xếp theo các khóa của sort (giá trị null đứng đầu khi tăng dần như MySQL), hòa thì theo độ liên quan.
+     * Khóa không hỗ trợ bị từ chối thay vì lặng lẽ trả về thứ tự liên quan.
+     */
+    private Comparator<IndexedDocument> resolveComparator(Sort sort, Comparator<IndexedDocument> byRelevance) {
+        if (sort == null || sort.isUnsorted()) {
+            return byRelevance;
+        }
+        Comparator<IndexedDocument> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<IndexedDocument> comparator = comparatorFor(order.getProperty());
+            if (order.isDescending()) {
+                comparator = comparator.reversed();
+            }
+            result = result == null ? comparator : result.thenComparing(comparator);
+        }
+        return result.thenComparing(byRelevance);
+    }
+
+    private static Comparator<IndexedDocument> comparatorFor(String property) {
+        return switch (property) {
+            case "id" -> Comparator.comparing((IndexedDocument d) -> d.id);
+            case "name" -> nullsFirst(d -> d.name, String.CASE_INSENSITIVE_ORDER);
+            case "price" -> nullsFirst(d -> d.price, Comparator.naturalOrder());
+            case "discount" -> nullsFirst(d -> d.discount, Comparator.naturalOrder());
+            case "ratingAvg" -> nullsFirst(d -> d.ratingAvg, Comparator.naturalOrder());
+            case "ratingCount" -> Comparator.comparingInt((IndexedDocument d) -> d.ratingCount);
+            case "publisherDate" -> nullsFirst(d -> d.publisherDate, Comparator.naturalOrder());
+            case "createdAt" -> nullsFirst(d -> d.createdAt, Comparator.naturalOrder());
+            case "updatedAt" -> nullsFirst(d -> d.updatedAt, Comparator.naturalOrder());
+            default -> throw new AppException(HttpStatus.BAD_REQUEST.value(),
+                    "Cannot sort search results by " + property);
+        };
+    }
+
+    private static <T> Comparator<IndexedDocument> nullsFirst(Function<IndexedDocument, T> key,
+                                                              Comparator<? super T> order) {
+        return Comparator.comparing(key, Comparator.nullsFirst(order));
+    }
+
+    private void put(IndexedDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.id);
+            putInternal(document);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(document.id, document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(productId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putInternal(IndexedDocument document) {
+        documents.put(document.id, document);
+        totalLength += document.length;
+        addPostings(postings, document);
+    }
+
+    private void removeInternal(Long productId) {
+        IndexedDocument existing = documents.remove(productId);
+        if (existing == null) {
+            return;
+        }
+        totalLength -= existing.length;
+        for (String term : existing.termFrequencies.keySet()) {
+            Map<Long, Integer> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addPostings(Map<String, Map<Long, Integer>> target, IndexedDocument document) {
+        document.termFrequencies.forEach((term, frequency) ->
+                target.computeIfAbsent(term, t -> new HashMap<>()).put(document.id, frequency));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtil.afterCommit(action);
+    }
+
+    /**
+     * Phân tích sản phẩm thành tần suất từ có trọng số theo từng trường
+     */
+    private IndexedDocument analyze(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+
+        length += addField(frequencies, product.getName(), NAME_WEIGHT);
+        length += addField(frequencies, product.getShortDescription(), DESCRIPTION_WEIGHT);
+        length += addField(frequencies, product.getPublisher(), PUBLISHER_WEIGHT);
+        if (product.getAuthors() != null) {
+            for (Author author : product.getAuthors()) {
+                length += addField(frequencies, author.getName(), AUTHOR_WEIGHT);
+            }
+        }
+
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        return new IndexedDocument(product.getId(), frequencies, Math.max(length, 1), categoryId, product);
+    }
+
+    private static int addField(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private static class IndexedDocument {
+        final Long id;
+        final Map<String, Integer> termFrequencies;
+        final int length;
+        final Long categoryId;
+        // Các trường dùng để sắp xếp kết quả
+        final String name;
+        final Long price;
+        final Integer discount;
+        final Double ratingAvg;
+        final int ratingCount;
+        final LocalDateTime publisherDate;
+        final LocalDateTime createdAt;
+        final LocalDateTime updatedAt;
+
+        IndexedDocument(Long id, Map<String, Integer> termFrequencies, int length, Long categoryId, Product product) {
+            this.id = id;
+            this.termFrequencies = termFrequencies;
+            this.length = length;
+            this.categoryId = categoryId;
+            this.name = product.getName();
+            this.price = product.getPrice();
+            this.discount = product.getDiscount();
+            this.ratingAvg = product.getRatingAvg();
+            this.ratingCount = product.getRatingCount();
+            this.publisherDate = product.getPublisherDate();
+            this.createdAt = product.getCreatedAt();
+            this.updatedAt = product.getUpdatedAt();
+        }
+    }
+}
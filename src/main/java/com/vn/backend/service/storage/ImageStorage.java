@@ -0,0 +1,20 @@
+package com.vn.backend.service.storage;
+
+import com.vn.backend.dto.response.ImageUploadResponse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Nơi lưu ảnh đã tải lên. Nhận file đã spool ra đĩa (không phải byte[]) để implementation
+ * tự stream nội dung; chọn implementation bằng storage.images.backend (cloudinary | local).
+ */
+public interface ImageStorage {
+
+    /**
+     * Lưu file và trả về url công khai cùng id dùng để xóa
+     */
+    ImageUploadResponse store(Path file, String filename, String contentType) throws IOException;
+
+    boolean delete(String id) throws IOException;
+}
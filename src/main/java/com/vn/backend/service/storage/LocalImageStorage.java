@@ -0,0 +1,67 @@
+package com.vn.backend.service.storage;
+
+import com.vn.backend.dto.response.ImageUploadResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Lưu ảnh trên đĩa cục bộ (dev, test offline, hoặc sau một ổ đĩa dùng chung/CDN).
+ * File được đặt trong &lt;directory&gt;/yyyy/MM/&lt;uuid&gt;.&lt;ext&gt; và phục vụ qua base-url (xem ImageStorageConfig).
+ */
+@Component
+@ConditionalOnProperty(name = "storage.images.backend", havingValue = "local")
+@Slf4j
+public class LocalImageStorage implements ImageStorage {
+
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalImageStorage(@Value("${storage.images.local.directory:uploads}") String directory,
+                             @Value("${storage.images.local.base-url:/uploads}") String baseUrl) throws IOException {
+        this.root = Path.of(directory).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        Files.createDirectories(root);
+        log.info("Local image storage at {}", root);
+    }
+
+    @Override
+    public ImageUploadResponse store(Path file, String filename, String contentType) throws IOException {
+        LocalDate today = LocalDate.now();
+        String extension = StringUtils.getFilenameExtension(filename);
+        String id = String.format("%d/%02d/%s%s", today.getYear(), today.getMonthValue(), UUID.randomUUID(),
+                extension != null ? "." + extension.toLowerCase() : "");
+
+        Path target = resolve(id);
+        Files.createDirectories(target.getParent());
+        // Cùng ổ đĩa thì chỉ đổi tên, khác ổ thì copy theo luồng
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        return new ImageUploadResponse(baseUrl + "/" + id, id);
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        return Files.deleteIfExists(resolve(id));
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    private Path resolve(String id) {
+        Path path = root.resolve(id).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid image id: " + id);
+        }
+        return path;
+    }
+}
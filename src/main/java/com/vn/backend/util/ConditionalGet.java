@@ -0,0 +1,28 @@
+package com.vn.backend.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+public class ConditionalGet {
+
+    /**
+     * So If-None-Match / If-Modified-Since với tag hiện tại: khớp thì trả 304 mà không gọi body,
+     * không khớp thì dựng body. checkNotModified đã ghi ETag/Last-Modified vào response ở cả hai nhánh.
+     */
+    public static <T> ResponseEntity<T> respond(WebRequest request, String etag, long lastModified,
+                                                CacheControl cacheControl, Supplier<T> body) {
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(body.get());
+    }
+
+    public static <T> ResponseEntity<T> respond(WebRequest request, String etag,
+                                                CacheControl cacheControl, Supplier<T> body) {
+        return respond(request, etag, -1, cacheControl, body);
+    }
+}
@@ -0,0 +1,120 @@
+package com.vn.backend.util;
+
+import com.vn.backend.exception.AppException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Con trỏ phân trang keyset (seek): giữ trường sắp xếp, chiều sắp xếp,
+ * giá trị khóa (có thể null, ví dụ rating_avg) và ID của bản ghi cuối cùng trên trang trước.
+ * Client chỉ nhận chuỗi base64 (opaque) và gửi lại nguyên vẹn.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+    // Giá trị khóa được mã hóa có tiền tố để phân biệt null với chuỗi "null" hay chuỗi rỗng
+    private static final String NULL_VALUE = "~";
+    private static final String VALUE_PREFIX = "=";
+
+    String property;
+    Sort.Direction direction;
+    Long lastId;
+    // null khi khóa của bản ghi cuối là NULL
+    String lastValue;
+
+    public static KeysetCursor of(Sort.Order order, Object lastValue, Long lastId) {
+        return new KeysetCursor(order.getProperty(), order.getDirection(), lastId,
+                lastValue != null ? String.valueOf(lastValue) : null);
+    }
+
+    public Sort.Order toOrder() {
+        return new Sort.Order(direction, property);
+    }
+
+    public String encode() {
+        String raw = lastId + SEPARATOR + property + SEPARATOR + direction.name() + SEPARATOR
+                + (lastValue != null ? VALUE_PREFIX + lastValue : NULL_VALUE);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã cursor; chuỗi rỗng nghĩa là trang đầu tiên của chế độ cursor (trả về null)
+     */
+    public static KeysetCursor decode(String cursor, Collection<String> sortableProperties) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4 || !sortableProperties.contains(parts[1])) {
+                throw new IllegalArgumentException(raw);
+            }
+            String lastValue;
+            if (parts[3].equals(NULL_VALUE)) {
+                lastValue = null;
+            } else if (parts[3].startsWith(VALUE_PREFIX)) {
+                lastValue = parts[3].substring(VALUE_PREFIX.length());
+            } else {
+                throw new IllegalArgumentException(raw);
+            }
+            return new KeysetCursor(parts[1], Sort.Direction.valueOf(parts[2]), Long.valueOf(parts[0]), lastValue);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(), "Cursor không hợp lệ");
+        }
+    }
+
+    /**
+     * Xác định thứ tự sắp xếp cho chế độ cursor: ưu tiên cursor, sau đó tới sort của request, cuối cùng là mặc định.
+     * Chỉ dùng trường sắp xếp đầu tiên; ID luôn được dùng làm khóa phụ.
+     */
+    public static Sort.Order resolveOrder(KeysetCursor cursor, Pageable pageable,
+                                          Sort.Order defaultOrder, Collection<String> sortableProperties) {
+        if (cursor != null) {
+            return cursor.toOrder();
+        }
+        if (pageable.getSort().isUnsorted()) {
+            return defaultOrder;
+        }
+        Sort.Order order = pageable.getSort().iterator().next();
+        if (!sortableProperties.contains(order.getProperty())) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(),
+                    "Chế độ cursor chỉ hỗ trợ sắp xếp theo: " + String.join(", ", sortableProperties));
+        }
+        return order;
+    }
+
+    /**
+     * Chuyển giá trị khóa về đúng kiểu của thuộc tính để so sánh trong truy vấn; khóa NULL trả về null
+     */
+    public Object lastValueAs(Class<?> type) {
+        if (lastValue == null) {
+            return null;
+        }
+        try {
+            if (type == Long.class || type == long.class) return Long.valueOf(lastValue);
+            if (type == Integer.class || type == int.class) return Integer.valueOf(lastValue);
+            if (type == Double.class || type == double.class) return Double.valueOf(lastValue);
+            if (type == BigDecimal.class) return new BigDecimal(lastValue);
+            if (type == LocalDateTime.class) return LocalDateTime.parse(lastValue);
+            if (type == String.class) return lastValue;
+        } catch (RuntimeException e) {
+            throw new AppException(HttpStatus.BAD_REQUEST.value(), "Cursor không hợp lệ");
+        }
+        throw new AppException(HttpStatus.BAD_REQUEST.value(), "Không hỗ trợ cursor cho trường " + property);
+    }
+}
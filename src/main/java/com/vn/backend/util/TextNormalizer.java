@@ -0,0 +1,42 @@
+package com.vn.backend.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+
+    /**
+     * Bỏ dấu tiếng Việt và chuyển về chữ thường
+     * Ví dụ: "Đắc Nhân Tâm" -> "dac nhan tam"
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return stripped.replace('đ', 'd').replace('Đ', 'D').toLowerCase();
+    }
+
+    /**
+     * Tách chuỗi thành các token đã bỏ dấu (chỉ giữ chữ và số)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return tokens;
+        }
+        for (String token : NON_ALNUM.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
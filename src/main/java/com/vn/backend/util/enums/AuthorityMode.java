@@ -0,0 +1,10 @@
+package com.vn.backend.util.enums;
+
+/**
+ * Cách JwtTokenValidator xác định quyền của request
+ */
+public enum AuthorityMode {
+    DATABASE, // Nạp user + roles + permissions từ DB ở mọi request
+    CACHE,    // Như DATABASE nhưng cache theo email với TTL ngắn
+    CLAIMS    // Tin claim "roles" trong access token, không truy cập DB (không có permissions)
+}
@@ -0,0 +1,11 @@
+package com.vn.backend.util.enums;
+
+/**
+ * Trạng thái một email trong email_outbox
+ */
+public enum EmailStatus {
+    PENDING,    // Chờ gửi (lần đầu hoặc chờ thử lại)
+    SENDING,    // Đã được một dispatcher nhận, hết hạn nhận thì quay lại hàng đợi
+    SENT,       // Gửi thành công
+    DEAD        // Hết số lần thử, cần xử lý tay
+}
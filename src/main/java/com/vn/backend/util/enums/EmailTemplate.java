@@ -0,0 +1,26 @@
+package com.vn.backend.util.enums;
+
+/**
+ * Các mẫu email giao dịch; nội dung HTML nằm ở classpath:templates/email/&lt;file&gt;
+ */
+public enum EmailTemplate {
+    RESET_PASSWORD("Đặt lại mật khẩu của bạn", "reset-password.html"),
+    ORDER_CONFIRMATION("Xác nhận đơn hàng #{{orderId}}", "order-confirmation.html"),
+    ORDER_SHIPPING("Đơn hàng #{{orderId}} đang được giao", "order-shipping.html");
+
+    private final String subject;
+    private final String file;
+
+    EmailTemplate(String subject, String file) {
+        this.subject = subject;
+        this.file = file;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,10 @@
+package com.vn.backend.util.enums;
+
+/**
+ * Trạng thái giữ tồn kho của một đơn hàng
+ */
+public enum StockReservationStatus {
+    RESERVED,   // Đã trừ tồn kho, đơn còn có thể hủy
+    COMMITTED,  // Đã giao hàng, không hoàn trả tồn kho nữa
+    RELEASED    // Đã hoàn trả tồn kho (hủy đơn / thanh toán thất bại)
+}
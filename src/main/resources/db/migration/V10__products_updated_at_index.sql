@@ -0,0 +1,2 @@
+-- DbPollingProductCacheTier quét các sản phẩm vừa sửa theo updated_at
+CREATE INDEX idx_products_updated_at ON products (updated_at);
@@ -0,0 +1,5 @@
+-- Thời điểm thu hồi, để các node khác quét token vừa bị thu hồi (DbPollingTokenRevocationTier)
+ALTER TABLE invalid_tokens
+    ADD COLUMN created_at datetime(6) NULL;
+
+CREATE INDEX idx_invalid_tokens_created_at ON invalid_tokens (created_at);
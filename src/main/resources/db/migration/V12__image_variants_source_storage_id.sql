@@ -0,0 +1,5 @@
+-- Id lưu trữ của ảnh gốc, để xóa ảnh gốc thì xóa được các variant của nó
+ALTER TABLE image_variants
+    ADD COLUMN source_storage_id VARCHAR(255) NULL;
+
+CREATE INDEX idx_image_variants_source_storage_id ON image_variants (source_storage_id);
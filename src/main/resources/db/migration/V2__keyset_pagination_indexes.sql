@@ -0,0 +1,10 @@
+-- Index phục vụ phân trang keyset: (sort key, id) để seek không cần OFFSET
+CREATE INDEX idx_products_created_at_id ON products (created_at, id);
+CREATE INDEX idx_products_price_id ON products (price, id);
+CREATE INDEX idx_products_rating_avg_id ON products (rating_avg, id);
+
+CREATE INDEX idx_orders_created_at_id ON orders (created_at, id);
+
+CREATE INDEX idx_users_created_at_id ON users (created_at, id);
+
+CREATE INDEX idx_reviews_created_at_id ON reviews (created_at, id);
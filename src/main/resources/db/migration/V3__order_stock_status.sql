@@ -0,0 +1,3 @@
+-- Trạng thái giữ tồn kho của đơn hàng (RESERVED / COMMITTED / RELEASED), NULL cho đơn cũ
+ALTER TABLE orders
+    ADD COLUMN stock_status VARCHAR(20) NULL;
@@ -0,0 +1,16 @@
+-- Số liệu bán hàng tổng hợp theo ngày (ngày tạo đơn / tạo user / tạo sản phẩm) cho dashboard
+CREATE TABLE daily_sales_rollup
+(
+    sale_date          DATE     NOT NULL,
+    order_count        BIGINT   NOT NULL DEFAULT 0,
+    pending_revenue    BIGINT   NOT NULL DEFAULT 0,
+    confirmed_revenue  BIGINT   NOT NULL DEFAULT 0,
+    processing_revenue BIGINT   NOT NULL DEFAULT 0,
+    shipping_revenue   BIGINT   NOT NULL DEFAULT 0,
+    delivered_revenue  BIGINT   NOT NULL DEFAULT 0,
+    cancelled_revenue  BIGINT   NOT NULL DEFAULT 0,
+    new_users          BIGINT   NOT NULL DEFAULT 0,
+    new_products       BIGINT   NOT NULL DEFAULT 0,
+    updated_at         datetime NOT NULL,
+    CONSTRAINT pk_daily_sales_rollup PRIMARY KEY (sale_date)
+);
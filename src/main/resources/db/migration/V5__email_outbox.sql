@@ -0,0 +1,17 @@
+-- Hàng đợi email giao dịch, ghi cùng transaction với thay đổi nghiệp vụ và gửi nền bởi EmailOutboxDispatcher
+CREATE TABLE email_outbox
+(
+    id              BIGINT        NOT NULL AUTO_INCREMENT,
+    template        VARCHAR(50)   NOT NULL,
+    recipient       VARCHAR(255)  NOT NULL,
+    params          TEXT          NOT NULL,
+    status          VARCHAR(20)   NOT NULL,
+    attempts        INT           NOT NULL DEFAULT 0,
+    next_attempt_at datetime      NOT NULL,
+    last_error      VARCHAR(1000) NULL,
+    created_at      datetime      NOT NULL,
+    sent_at         datetime      NULL,
+    CONSTRAINT pk_email_outbox PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_email_outbox_status_next ON email_outbox (status, next_attempt_at);
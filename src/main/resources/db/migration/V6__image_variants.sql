@@ -0,0 +1,14 @@
+-- Các bản thu nhỏ theo bề rộng của ảnh đã tải lên, khóa theo URL ảnh gốc
+CREATE TABLE image_variants
+(
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    source_url VARCHAR(255) NOT NULL,
+    width      INT          NOT NULL,
+    format     VARCHAR(10)  NOT NULL,
+    url        VARCHAR(255) NOT NULL,
+    storage_id VARCHAR(255) NOT NULL,
+    bytes      BIGINT       NOT NULL,
+    created_at datetime     NOT NULL,
+    CONSTRAINT pk_image_variants PRIMARY KEY (id),
+    CONSTRAINT uc_image_variants_source UNIQUE (source_url, width, format)
+);
@@ -0,0 +1,9 @@
+-- Giỏ hàng duy trì tổng tiền và tổng số lượng bằng delta (không cộng lại cart_items mỗi lần sửa),
+-- version dùng cho optimistic lock khi nhiều tab cùng sửa một giỏ
+ALTER TABLE carts
+    ADD COLUMN item_count INT NOT NULL DEFAULT 0,
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+UPDATE carts c
+SET c.total      = COALESCE((SELECT SUM(ci.total) FROM cart_items ci WHERE ci.cart_id = c.id), 0),
+    c.item_count = COALESCE((SELECT SUM(ci.quantity) FROM cart_items ci WHERE ci.cart_id = c.id), 0);
@@ -0,0 +1,15 @@
+-- Mỗi sản phẩm chỉ một dòng trong một giỏ: gộp các dòng trùng (nếu có) vào dòng có id nhỏ nhất rồi thêm ràng buộc
+UPDATE cart_items ci
+    JOIN (SELECT MIN(id) AS keep_id, SUM(quantity) AS quantity, SUM(total) AS total
+          FROM cart_items
+          GROUP BY cart_id, product_id
+          HAVING COUNT(*) > 1) d ON ci.id = d.keep_id
+SET ci.quantity = d.quantity,
+    ci.total    = d.total;
+
+DELETE ci
+FROM cart_items ci
+         JOIN cart_items keep ON keep.cart_id = ci.cart_id AND keep.product_id = ci.product_id AND keep.id < ci.id;
+
+ALTER TABLE cart_items
+    ADD CONSTRAINT uc_cart_items_cart_product UNIQUE (cart_id, product_id);
@@ -0,0 +1,32 @@
+-- Giới hạn số lần mỗi người dùng được dùng một mã (NULL = không giới hạn)
+-- và số stripe chia tồn kho của mã (1 = trừ thẳng trên coupons.stock_quantity)
+ALTER TABLE coupons
+    ADD COLUMN per_user_limit INT NULL,
+    ADD COLUMN stripes        INT NOT NULL DEFAULT 1;
+
+-- Mỗi lần dùng mã gắn với đúng một đơn; lưu người dùng, stripe đã trừ (-1 = không chia) và số tiền giảm
+ALTER TABLE order_coupons
+    ADD COLUMN user_id         BIGINT NULL,
+    ADD COLUMN stripe          INT    NOT NULL DEFAULT -1,
+    ADD COLUMN discount_amount BIGINT NOT NULL DEFAULT 0;
+
+UPDATE order_coupons oc
+    JOIN orders o ON o.id = oc.order_id
+SET oc.user_id = o.customer_id;
+
+ALTER TABLE order_coupons
+    ADD CONSTRAINT uc_order_coupons_order UNIQUE (order_id);
+
+CREATE INDEX idx_order_coupons_coupon_user ON order_coupons (coupon_id, user_id);
+
+-- Tồn kho của mã "nóng" chia thành nhiều dòng để các lượt dùng đồng thời không tranh cùng một khóa dòng
+CREATE TABLE coupon_stock_stripes
+(
+    id        BIGINT NOT NULL AUTO_INCREMENT,
+    coupon_id BIGINT NOT NULL,
+    stripe    INT    NOT NULL,
+    remaining INT    NOT NULL,
+    CONSTRAINT pk_coupon_stock_stripes PRIMARY KEY (id),
+    CONSTRAINT uc_coupon_stock_stripes UNIQUE (coupon_id, stripe),
+    CONSTRAINT FK_COUPON_STOCK_STRIPES_ON_COUPON FOREIGN KEY (coupon_id) REFERENCES coupons (id) ON DELETE CASCADE
+);
@@ -0,0 +1,246 @@
+package com.vn.backend.service;
+
+import com.vn.backend.exception.AppException;
+import com.vn.backend.model.Coupon;
+import com.vn.backend.model.CouponStockStripe;
+import com.vn.backend.model.Order;
+import com.vn.backend.model.User;
+import com.vn.backend.repository.CouponRepository;
+import com.vn.backend.repository.CouponStockStripeRepository;
+import com.vn.backend.repository.OrderCouponRepository;
+import com.vn.backend.repository.OrderRepository;
+import com.vn.backend.repository.UserRepository;
+import com.vn.backend.service.CouponRedemptionService.CouponRedemption;
+import com.vn.backend.service.cache.CouponCache;
+import com.vn.backend.util.enums.OrderStatus;
+import com.vn.backend.util.enums.StockReservationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Kiểm tra dùng mã giảm giá dưới tải đồng thời: hàng nghìn lượt dùng cùng lúc không bao giờ vượt tồn kho của mã
+ * (kể cả khi chia stripe) và không vượt giới hạn mỗi người dùng.
+ */
+@DataJpaTest
+@Import({CouponRedemptionService.class, CouponCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "AI_SERVICE_URL=localhost:1"
+})
+class CouponRedemptionServiceTest {
+
+    private static final int INITIAL_STOCK = 300;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 2000;
+
+    @Autowired
+    CouponRedemptionService couponRedemptionService;
+    @Autowired
+    CouponRepository couponRepository;
+    @Autowired
+    CouponStockStripeRepository couponStockStripeRepository;
+    @Autowired
+    OrderCouponRepository orderCouponRepository;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    User user;
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .email("buyer@example.com")
+                .password("secret")
+                .fullName("Buyer")
+                .isActive(true)
+                .build());
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderCouponRepository.deleteAll();
+        couponStockStripeRepository.deleteAll();
+        couponRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentRedemptionsNeverOversell() throws Exception {
+        createCoupon("HOT", INITIAL_STOCK, 1, null);
+
+        int redeemed = redeemConcurrently(ATTEMPTS, i -> () -> {
+            tx.executeWithoutResult(status -> couponRedemptionService.reserve("hot", user.getId(), 100000L));
+            return null;
+        });
+
+        assertEquals(INITIAL_STOCK, redeemed);
+        assertEquals(0, couponRepository.findByCode("HOT").orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void stripedRedemptionsDrainEveryStripeWithoutOverselling() throws Exception {
+        Coupon coupon = createCoupon("STRIPED", INITIAL_STOCK, 8, null);
+
+        int redeemed = redeemConcurrently(ATTEMPTS, i -> () -> {
+            tx.executeWithoutResult(status -> couponRedemptionService.reserve("STRIPED", user.getId(), 100000L));
+            return null;
+        });
+
+        assertEquals(INITIAL_STOCK, redeemed);
+        List<CouponStockStripe> stripes = couponStockStripeRepository.findAll();
+        assertEquals(8, stripes.size());
+        // Stripe hết hàng thì lượt dùng chuyển sang stripe khác nên không stripe nào còn sót lượt
+        stripes.forEach(stripe -> assertEquals(0, stripe.getRemaining()));
+
+        tx.executeWithoutResult(status -> couponRepository.syncStripedStock());
+        assertEquals(0, couponRepository.findById(coupon.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void restockWhileRedeemingNeverLosesOrDuplicatesUnits() throws Exception {
+        Coupon coupon = createCoupon("RESTOCK", INITIAL_STOCK, 4, null);
+        int[] stripeCounts = {8, 2, 6, 4};
+
+        // Mỗi lượt thứ 50 là admin đổi số stripe (giữ số lượt còn lại) trong lúc các lượt khác đang dùng mã
+        AtomicInteger restocks = new AtomicInteger();
+        int completed = redeemConcurrently(ATTEMPTS / 2, i -> () -> {
+            if (i % 50 == 0) {
+                tx.executeWithoutResult(status -> couponRedemptionService.restock(
+                        couponRedemptionService.lockForUpdate(coupon.getId()).orElseThrow(),
+                        null, stripeCounts[restocks.getAndIncrement() % stripeCounts.length]));
+            } else {
+                tx.executeWithoutResult(status -> couponRedemptionService.reserve("RESTOCK", user.getId(), 100000L));
+            }
+            return null;
+        });
+        int redeemed = completed - restocks.get();
+
+        Coupon current = couponRepository.findById(coupon.getId()).orElseThrow();
+        int remaining = couponRedemptionService.remaining(coupon.getId(), current.getStripes());
+        assertEquals(INITIAL_STOCK, redeemed + remaining);
+        assertEquals(current.getStripes(), couponStockStripeRepository.findAll().size());
+    }
+
+    @Test
+    void perUserLimitHoldsUnderConcurrency() throws Exception {
+        Coupon coupon = createCoupon("ONCE", INITIAL_STOCK, 4, 2);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            orders.add(createOrder());
+        }
+
+        int redeemed = redeemConcurrently(orders.size(), i -> () -> {
+            tx.executeWithoutResult(status -> {
+                CouponRedemption redemption = couponRedemptionService.reserve("ONCE", user.getId(), 100000L);
+                couponRedemptionService.record(redemption, orders.get(i));
+            });
+            return null;
+        });
+
+        assertEquals(2, redeemed);
+        assertEquals(2, orderCouponRepository.count());
+        assertEquals(INITIAL_STOCK - 2, couponRedemptionService.remaining(coupon.getId(), 4));
+
+        // Hủy đơn trả lại lượt dùng đúng một lần (cả tồn kho lẫn giới hạn của người dùng)
+        Order used = orderCouponRepository.findAll().get(0).getOrder();
+        Boolean released = tx.execute(status -> couponRedemptionService.release(used));
+        assertEquals(Boolean.TRUE, released);
+        Boolean releasedAgain = tx.execute(status -> couponRedemptionService.release(used));
+        assertEquals(Boolean.FALSE, releasedAgain);
+        assertEquals(INITIAL_STOCK - 1, couponRedemptionService.remaining(coupon.getId(), 4));
+        assertEquals(1, orderCouponRepository.count());
+    }
+
+    /**
+     * Chạy attempts lượt dùng mã trên THREADS luồng cùng xuất phát; trả về số lượt thành công
+     */
+    private int redeemConcurrently(int attempts, IntFunction<Callable<Void>> attempt)
+            throws Exception {
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            Callable<Void> call = attempt.apply(i);
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    call.call();
+                    redeemed.incrementAndGet();
+                } catch (AppException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            // Không để luồng còn chạy khi tearDown xóa dữ liệu
+            pool.shutdownNow();
+            pool.awaitTermination(60, TimeUnit.SECONDS);
+        }
+        assertEquals(attempts, redeemed.get() + rejected.get());
+        return redeemed.get();
+    }
+
+    private Coupon createCoupon(String code, int stock, int stripes, Integer perUserLimit) {
+        Coupon coupon = couponRepository.save(Coupon.builder()
+                .code(code)
+                .description(code)
+                .stockQuantity(stock)
+                .discountType("PERCENTAGE")
+                .discount(10)
+                .stripes(stripes)
+                .perUserLimit(perUserLimit)
+                .build());
+        tx.executeWithoutResult(status -> couponRedemptionService.resetStripes(coupon));
+        return coupon;
+    }
+
+    private Order createOrder() {
+        return orderRepository.save(Order.builder()
+                .user(user)
+                .address("Hà Nội")
+                .status(OrderStatus.PENDING)
+                .totalAmount(100000L)
+                .totalItem(1)
+                .stockStatus(StockReservationStatus.RESERVED)
+                .build());
+    }
+}
@@ -0,0 +1,147 @@
+package com.vn.backend.service;
+
+import com.vn.backend.dto.response.OrderResponse;
+import com.vn.backend.model.Author;
+import com.vn.backend.model.Category;
+import com.vn.backend.model.Order;
+import com.vn.backend.model.OrderItem;
+import com.vn.backend.model.Product;
+import com.vn.backend.model.ProductImage;
+import com.vn.backend.model.User;
+import com.vn.backend.repository.OrderRepository;
+import com.vn.backend.util.enums.OrderStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Số câu lệnh SQL của danh sách đơn hàng phải cố định, không phụ thuộc kích thước trang.
+ */
+@DataJpaTest
+@Import(OrderListingService.class)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "AI_SERVICE_URL=localhost:1"
+})
+class OrderListingServiceTest {
+
+    private static final int ORDERS = 24;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    OrderListingService orderListingService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        Category category = entityManager.persist(Category.builder().name("Sách").build());
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Product product = entityManager.persist(Product.builder()
+                    .category(category)
+                    .name("Book " + i)
+                    .dimension("13x20")
+                    .isbn("isbn-" + i)
+                    .stockQuanity(100)
+                    .price(10000L * (i + 1))
+                    .discount(i % 3 * 5)
+                    .publisher("NXB")
+                    .publisherDate(LocalDateTime.now())
+                    .build());
+            entityManager.persist(Author.builder().product(product).name("Author " + i).build());
+            entityManager.persist(ProductImage.builder().product(product).imageUrl("img-" + i).build());
+            products.add(product);
+        }
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            users.add(entityManager.persist(User.builder()
+                    .email("user" + i + "@example.com")
+                    .password("secret")
+                    .fullName("User " + i)
+                    .isActive(true)
+                    .build()));
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = entityManager.persist(Order.builder()
+                    .user(users.get(i % users.size()))
+                    .address("Hà Nội")
+                    .status(OrderStatus.PENDING)
+                    .totalAmount(0L)
+                    .totalItem(ITEMS_PER_ORDER)
+                    .build());
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product product = products.get((i + j) % products.size());
+                entityManager.persist(OrderItem.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(1)
+                        .total(product.getPrice())
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        long small = statementsForPage(4);
+        long large = statementsForPage(ORDERS);
+
+        // trang đơn + COUNT + items kèm sản phẩm + khách hàng
+        assertEquals(4, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    void assemblesItemsAndCustomer() {
+        Page<OrderResponse> page = orderListingService.toResponsePage(
+                orderRepository.findByStatus(OrderStatus.PENDING, PageRequest.of(0, 5, Sort.by("id"))));
+
+        assertEquals(ORDERS, page.getTotalElements());
+        for (OrderResponse response : page.getContent()) {
+            assertNotNull(response.getCustomerEmail());
+            assertEquals(ITEMS_PER_ORDER, response.getItems().size());
+            assertNotNull(response.getItems().get(0).getProductName());
+        }
+        assertEquals("User 0", page.getContent().get(0).getCustomerName());
+    }
+
+    private long statementsForPage(int size) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<OrderResponse> page = orderListingService.toResponsePage(
+                orderRepository.findByStatus(OrderStatus.PENDING, PageRequest.of(0, size, Sort.by("id"))));
+        page.getContent().forEach(response -> assertEquals(ITEMS_PER_ORDER, response.getItems().size()));
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,209 @@
+package com.vn.backend.service;
+
+import com.vn.backend.exception.InsufficientStockException;
+import com.vn.backend.model.Category;
+import com.vn.backend.model.Order;
+import com.vn.backend.model.OrderItem;
+import com.vn.backend.model.Product;
+import com.vn.backend.model.User;
+import com.vn.backend.repository.CategoryRepository;
+import com.vn.backend.repository.OrderItemRepository;
+import com.vn.backend.repository.OrderRepository;
+import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.repository.UserRepository;
+import com.vn.backend.service.cache.CatalogVersion;
+import com.vn.backend.service.cache.ProductCache;
+import com.vn.backend.util.enums.OrderStatus;
+import com.vn.backend.util.enums.StockReservationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra giữ tồn kho dưới tải đồng thời: nhiều luồng cùng đặt một SKU không bao giờ bán âm kho.
+ */
+@DataJpaTest
+@Import({StockReservationService.class, ProductCache.class, CatalogVersion.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "AI_SERVICE_URL=localhost:1"
+})
+class StockReservationServiceTest {
+
+    private static final int INITIAL_STOCK = 50;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 200;
+
+    @Autowired
+    StockReservationService stockReservationService;
+    @Autowired
+    ProductRepository productRepository;
+    @Autowired
+    CategoryRepository categoryRepository;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderItemRepository orderItemRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(Category.builder().name("Sách").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        Product hot = createProduct("Hot", INITIAL_STOCK);
+        Product other = createProduct("Other", INITIAL_STOCK * 10);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            int quantity = 1 + i % 3;
+            // Một nửa số đơn lấy hai sản phẩm theo thứ tự ngược nhau để kiểm tra không deadlock
+            Map<Long, Integer> lines = i % 2 == 0
+                    ? Map.of(hot.getId(), quantity)
+                    : Map.of(other.getId(), 1, hot.getId(), quantity);
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    tx.executeWithoutResult(status -> stockReservationService.reserve(lines));
+                    reserved.addAndGet(quantity);
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int remaining = productRepository.findById(hot.getId()).orElseThrow().getStockQuanity();
+        assertTrue(remaining >= 0, "stock went negative: " + remaining);
+        assertEquals(INITIAL_STOCK - reserved.get(), remaining);
+        assertTrue(rejected.get() > 0, "expected some reservations to be rejected");
+        // Không còn đủ cho đơn nhỏ nhất (1 cuốn) thì kho phải về 0
+        assertTrue(remaining < 3);
+    }
+
+    @Test
+    void reportsEveryShortLineAndLeavesStockUntouched() {
+        Product a = createProduct("A", 5);
+        Product b = createProduct("B", 1);
+        Product c = createProduct("C", 10);
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class, () ->
+                stockReservationService.reserve(Map.of(a.getId(), 6, b.getId(), 2, c.getId(), 3)));
+
+        assertEquals(2, ex.getShortfalls().size());
+        assertEquals(a.getId(), ex.getShortfalls().get(0).getProductId());
+        assertEquals(5, ex.getShortfalls().get(0).getAvailable());
+        assertEquals(b.getId(), ex.getShortfalls().get(1).getProductId());
+        assertEquals(10, productRepository.findById(c.getId()).orElseThrow().getStockQuanity());
+    }
+
+    @Test
+    void releaseRestoresStockOnlyOnce() {
+        Product product = createProduct("Book", 10);
+        stockReservationService.reserve(Map.of(product.getId(), 4));
+        Order order = createOrder(product, 4);
+
+        assertTrue(stockReservationService.release(order));
+        assertFalse(stockReservationService.release(order));
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStockQuanity());
+        assertEquals(StockReservationStatus.RELEASED,
+                orderRepository.findById(order.getId()).orElseThrow().getStockStatus());
+
+        // Thanh toán lại: giữ lại tồn kho, sau đó giao hàng thì không hoàn trả được nữa
+        assertTrue(stockReservationService.reacquire(order));
+        assertEquals(6, productRepository.findById(product.getId()).orElseThrow().getStockQuanity());
+        assertTrue(stockReservationService.commit(order));
+        assertFalse(stockReservationService.release(order));
+        assertEquals(6, productRepository.findById(product.getId()).orElseThrow().getStockQuanity());
+    }
+
+    private Product createProduct(String name, int stock) {
+        return productRepository.save(Product.builder()
+                .category(category)
+                .name(name)
+                .dimension("13x20")
+                .isbn("isbn-" + name)
+                .stockQuanity(stock)
+                .price(100000L)
+                .discount(0)
+                .publisher("NXB")
+                .publisherDate(LocalDateTime.now())
+                .build());
+    }
+
+    private Order createOrder(Product product, int quantity) {
+        User user = userRepository.save(User.builder()
+                .email("buyer@example.com")
+                .password("secret")
+                .fullName("Buyer")
+                .isActive(true)
+                .build());
+        Order order = orderRepository.save(Order.builder()
+                .user(user)
+                .address("Hà Nội")
+                .status(OrderStatus.PENDING)
+                .totalAmount(product.getPrice() * quantity)
+                .totalItem(quantity)
+                .stockStatus(StockReservationStatus.RESERVED)
+                .build());
+        orderItemRepository.save(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(quantity)
+                .total(product.getPrice() * quantity)
+                .build());
+        return order;
+    }
+}
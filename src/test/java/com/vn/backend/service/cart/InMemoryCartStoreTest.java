@@ -0,0 +1,227 @@
+package com.vn.backend.service.cart;
+
+import com.vn.backend.model.Category;
+import com.vn.backend.model.Product;
+import com.vn.backend.model.User;
+import com.vn.backend.repository.CartItemRepository;
+import com.vn.backend.repository.CartRepository;
+import com.vn.backend.repository.CategoryRepository;
+import com.vn.backend.repository.ProductRepository;
+import com.vn.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Kiểm tra giỏ nóng trong bộ nhớ với DB thật: checkout ghi ngay rồi rollback thì thay đổi quay lại hàng chờ,
+ * sửa giỏ giữa lúc checkout ghi và lúc đơn commit vẫn được ghi khi bỏ giỏ khỏi bộ nhớ,
+ * giỏ bị đẩy khỏi cache vẫn được ghi rồi mới bỏ, và bỏ rồi thêm lại cùng sản phẩm không vướng ràng buộc
+ * một dòng mỗi sản phẩm của cart_items.
+ */
+@DataJpaTest
+@Import({InMemoryCartStore.class, CartPersistence.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "AI_SERVICE_URL=localhost:1",
+        "cart.store=memory",
+        // Write-behind chỉ chạy khi test gọi flushDirty
+        "cart.memory.flush-interval=PT1H"
+})
+class InMemoryCartStoreTest {
+
+    @Autowired
+    InMemoryCartStore cartStore;
+    @Autowired
+    CartPersistence cartPersistence;
+    @Autowired
+    CartRepository cartRepository;
+    @Autowired
+    CartItemRepository cartItemRepository;
+    @Autowired
+    ProductRepository productRepository;
+    @Autowired
+    CategoryRepository categoryRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    User user;
+    Product book;
+    Product pen;
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .email("buyer@example.com")
+                .password("secret")
+                .fullName("Buyer")
+                .isActive(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder().name("Sách").build());
+        book = createProduct(category, "Book", 100000L);
+        pen = createProduct(category, "Pen", 5000L);
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartItemRepository.deleteAll();
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void checkoutFlushIsRestoredWhenTheOrderRollsBack() {
+        cartStore.mutate(user.getId(), state -> {
+            state.put(line(book, 2));
+            state.put(line(pen, 1));
+        });
+        cartStore.flushDirty();
+        CartState cart = cartStore.mutate(user.getId(), state -> {
+            state.put(line(book, 3));
+            state.remove(pen.getId());
+        });
+
+        // Checkout ghi giỏ trong transaction của đơn rồi đơn lỗi
+        tx.executeWithoutResult(status -> {
+            cartStore.flush(user.getId());
+            assertEquals(Map.of(book.getId(), 3), quantities(cart.getCartId()));
+            status.setRollbackOnly();
+        });
+        assertEquals(Map.of(book.getId(), 2, pen.getId(), 1), quantities(cart.getCartId()));
+
+        // Thay đổi bị rollback quay lại hàng chờ và được ghi ở nhịp sau
+        cartStore.flushDirty();
+        assertEquals(Map.of(book.getId(), 3), quantities(cart.getCartId()));
+        assertCartRow(cart.getCartId(), 3 * book.getPrice(), 3);
+    }
+
+    @Test
+    void editMadeAfterCheckoutFlushIsWrittenOnEviction() {
+        CartState cart = cartStore.mutate(user.getId(), state -> state.put(line(book, 2)));
+        cartStore.flushDirty();
+
+        tx.executeWithoutResult(status -> {
+            cartStore.flush(user.getId());
+            // Sửa giỏ sau khi checkout đã ghi nhưng trước khi đơn commit
+            cartStore.mutate(user.getId(), state -> state.put(line(book, 6)));
+            cartStore.evictAfterCommit(user.getId());
+        });
+
+        // afterCommit ghi trong transaction riêng nên thay đổi không bị mất khi giỏ rời bộ nhớ
+        assertEquals(Map.of(book.getId(), 6), quantities(cart.getCartId()));
+        assertCartRow(cart.getCartId(), 6 * book.getPrice(), 6);
+        assertEquals(6, cartStore.get(user.getId()).line(book.getId()).getQuantity());
+    }
+
+    @Test
+    void evictedDirtyCartIsWrittenThenDetached() {
+        // max-size 0: giỏ bị đẩy khỏi cache ngay sau mỗi lần dùng
+        InMemoryCartStore store = new InMemoryCartStore(cartPersistence, 0, Duration.ofMinutes(30), 200);
+        store.mutate(user.getId(), state -> state.put(line(book, 2)));
+        CartState cart = store.mutate(user.getId(), state -> state.put(line(book, 5)));
+        Long itemId = cart.line(book.getId()).getId();
+
+        // Chưa ghi: đọc lại vẫn thấy bản trong bộ nhớ chứ không phải bản cũ trong DB
+        assertEquals(Map.of(book.getId(), 2), quantities(cart.getCartId()));
+        assertEquals(5, store.get(user.getId()).line(book.getId()).getQuantity());
+
+        store.flushDirty();
+        assertEquals(Map.of(book.getId(), 5), quantities(cart.getCartId()));
+        assertCartRow(cart.getCartId(), 5 * book.getPrice(), 5);
+
+        // Đã bỏ khỏi bộ nhớ: lần đọc sau nạp lại từ DB
+        jdbcTemplate.update("UPDATE cart_items SET quantity = 7, total = ? WHERE id = ?", 7 * book.getPrice(), itemId);
+        assertEquals(7, store.get(user.getId()).line(book.getId()).getQuantity());
+    }
+
+    @Test
+    void removeThenReAddSameProductReplacesTheRow() {
+        CartState first = cartStore.mutate(user.getId(), state -> state.put(line(book, 2)));
+        Long oldId = first.line(book.getId()).getId();
+        assertNotNull(oldId);
+
+        // DELETE của dòng cũ còn chờ write-behind khi dòng mới cùng sản phẩm được insert
+        cartStore.mutate(user.getId(), state -> state.remove(book.getId()));
+        CartState cart = cartStore.mutate(user.getId(), state -> state.put(line(book, 4)));
+        Long newId = cart.line(book.getId()).getId();
+        assertNotNull(newId);
+        assertNotEquals(oldId, newId);
+        assertEquals(List.of(newId), jdbcTemplate.queryForList(
+                "SELECT id FROM cart_items WHERE cart_id = ?", Long.class, cart.getCartId()));
+
+        cartStore.flushDirty();
+        assertEquals(Map.of(book.getId(), 4), quantities(cart.getCartId()));
+        assertCartRow(cart.getCartId(), 4 * book.getPrice(), 4);
+        assertEquals(newId, cartStore.get(user.getId()).line(book.getId()).getId());
+    }
+
+    private Map<Long, Integer> quantities(Long cartId) {
+        return jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE cart_id = ?",
+                rs -> {
+                    Map<Long, Integer> result = new HashMap<>();
+                    while (rs.next()) {
+                        result.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                    }
+                    return result;
+                }, cartId);
+    }
+
+    private void assertCartRow(Long cartId, long total, int itemCount) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT total, item_count FROM carts WHERE id = ?", cartId);
+        assertEquals(total, ((Number) row.get("TOTAL")).longValue());
+        assertEquals(itemCount, ((Number) row.get("ITEM_COUNT")).intValue());
+    }
+
+    private CartLine line(Product product, int quantity) {
+        return CartLine.builder()
+                .productId(product.getId())
+                .productName(product.getName())
+                .productPrice(product.getPrice())
+                .productDiscount(product.getDiscount())
+                .quantity(quantity)
+                .total(product.getPrice() * quantity)
+                .build();
+    }
+
+    private Product createProduct(Category category, String name, long price) {
+        return productRepository.save(Product.builder()
+                .category(category)
+                .name(name)
+                .dimension("13x20")
+                .isbn("isbn-" + name)
+                .stockQuanity(100)
+                .price(price)
+                .discount(0)
+                .publisher("NXB")
+                .publisherDate(LocalDateTime.now())
+                .build());
+    }
+}